@@ -0,0 +1,37 @@
+package com.energia.dashboard.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collections;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String MATRIZ_RESUMO = "matrizResumo";
+
+    /**
+     * Caches em memória, limitados e com expiração. As remoções feitas dentro
+     * de uma transação só valem após o commit; ainda assim, uma leitura que
+     * começou antes do commit pode gravar o valor anterior depois da remoção.
+     * Esse valor fica no cache no máximo {@code matriz.resumo.ttl-seconds}.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${matriz.resumo.ttl-seconds:60}") long ttlSeconds,
+                                     @Value("${matriz.resumo.max-entries:10000}") long maxEntries) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxEntries));
+        caffeine.setCacheNames(Collections.singletonList(MATRIZ_RESUMO));
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
@@ -18,6 +18,9 @@ public class CorsConfig {
         config.setAllowedOriginPatterns(Arrays.asList("*"));
         config.setAllowedHeaders(Arrays.asList("*"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        // Cabeçalhos de cache e de faixa lidos pelo visualizador de PDF
+        config.setExposedHeaders(Arrays.asList("ETag", "Last-Modified", "Accept-Ranges", "Content-Range", "Content-Disposition",
+                "X-Next-Cursor"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
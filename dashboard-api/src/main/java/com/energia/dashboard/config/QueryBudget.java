@@ -0,0 +1,19 @@
+package com.energia.dashboard.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de comandos SQL (Hibernate ou JDBC, ver {@link QueryCounter})
+ * que o endpoint pode executar, incluindo os disparados durante a
+ * serialização da resposta. Acima disso o {@link QueryBudgetInterceptor}
+ * registra um aviso no log; os testes de {@code QueryBudgetTest} falham.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
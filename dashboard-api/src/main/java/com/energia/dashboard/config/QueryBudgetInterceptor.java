@@ -0,0 +1,43 @@
+package com.energia.dashboard.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Confere o {@link QueryBudget} dos endpoints anotados. A contagem termina
+ * depois da escrita da resposta, então carregamentos preguiçosos feitos pelo
+ * Jackson (N+1) também entram.
+ */
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod)) {
+            return;
+        }
+        QueryBudget budget = ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+        if (budget == null) {
+            return;
+        }
+        int count = QueryCounter.get();
+        if (count > budget.value()) {
+            logger.warn("{} {} executou {} consultas (limite {})", request.getMethod(), request.getRequestURI(),
+                    count, budget.value());
+        } else {
+            logger.debug("{} {}: {} consulta(s)", request.getMethod(), request.getRequestURI(), count);
+        }
+    }
+}
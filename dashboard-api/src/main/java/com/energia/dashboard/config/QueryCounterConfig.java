@@ -0,0 +1,24 @@
+package com.energia.dashboard.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Envolve o {@link DataSource} da aplicação com o {@link QueryCounter}
+ */
+@Configuration
+public class QueryCounterConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCounterDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? QueryCounter.wrap((DataSource) bean) : bean;
+            }
+        };
+    }
+}
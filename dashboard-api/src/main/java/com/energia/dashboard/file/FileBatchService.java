@@ -0,0 +1,100 @@
+package com.energia.dashboard.file;
+
+import com.energia.dashboard.invoice.InvoiceParsingService;
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.search.SearchType;
+import com.energia.dashboard.summary.DashboardSummaryService;
+import com.energia.dashboard.user.User;
+import com.energia.dashboard.user.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload de vários PDFs numa única requisição: grava os arquivos e insere
+ * todos os registros numa só transação. Se a transação não for confirmada,
+ * os arquivos gravados por ela são removidos.
+ */
+@Service
+public class FileBatchService {
+
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final UploadedFileJdbcRepository uploadedFileJdbcRepository;
+    private final InvoiceParsingService invoiceParsingService;
+    private final SearchIndexListener searchIndexListener;
+    private final DashboardSummaryService dashboardSummaryService;
+
+    public FileBatchService(UserRepository userRepository,
+                            FileStorageService fileStorageService,
+                            UploadedFileJdbcRepository uploadedFileJdbcRepository,
+                            InvoiceParsingService invoiceParsingService,
+                            SearchIndexListener searchIndexListener,
+                            DashboardSummaryService dashboardSummaryService) {
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.uploadedFileJdbcRepository = uploadedFileJdbcRepository;
+        this.invoiceParsingService = invoiceParsingService;
+        this.searchIndexListener = searchIndexListener;
+        this.dashboardSummaryService = dashboardSummaryService;
+    }
+
+    /**
+     * Todos os arquivos para o mesmo usuário
+     */
+    @Transactional
+    public List<FileStorageService.StoredFileInfo> uploadForUser(Long userId, List<MultipartFile> files) throws IOException {
+        return storeAll(Collections.nCopies(files.size(), userId), files);
+    }
+
+    /**
+     * Cada arquivo para o usuário do CPF/CNPJ na mesma posição
+     *
+     * @throws IllegalArgumentException se as listas não casarem ou algum CPF/CNPJ não estiver cadastrado
+     */
+    @Transactional
+    public List<FileStorageService.StoredFileInfo> uploadByCpfCnpj(List<String> cpfCnpjs, List<MultipartFile> files) throws IOException {
+        if (cpfCnpjs.size() != files.size()) {
+            throw new IllegalArgumentException("Informe um cpfCnpj para cada arquivo");
+        }
+        Map<String, Long> idsByCpfCnpj = new HashMap<>();
+        for (User user : userRepository.findByCpfCnpjIn(new HashSet<>(cpfCnpjs))) {
+            idsByCpfCnpj.put(user.getCpfCnpj(), user.getId());
+        }
+        List<Long> userIds = new ArrayList<>(cpfCnpjs.size());
+        for (String cpfCnpj : cpfCnpjs) {
+            Long id = idsByCpfCnpj.get(cpfCnpj);
+            if (id == null) {
+                throw new IllegalArgumentException("Usuário não encontrado para o CPF/CNPJ " + cpfCnpj);
+            }
+            userIds.add(id);
+        }
+        return storeAll(userIds, files);
+    }
+
+    private List<FileStorageService.StoredFileInfo> storeAll(List<Long> userIds, List<MultipartFile> files) throws IOException {
+        // Arquivos novos são removidos pelo FileStorageService se a transação não for confirmada
+        List<FileStorageService.StoredFileInfo> stored = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("Arquivo vazio: " + file.getOriginalFilename());
+            }
+            stored.add(fileStorageService.store(file));
+        }
+        // Só as linhas deste lote: o mesmo conteúdo pode estar em uploads anteriores
+        List<Long> ids = uploadedFileJdbcRepository.insertAll(userIds, stored);
+        invoiceParsingService.submitAfterCommit(ids);
+        // Inserção via JDBC não passa pelos listeners do JPA
+        searchIndexListener.refreshAfterCommit(SearchType.FILE, ids);
+        dashboardSummaryService.invalidarAposCommit();
+        return stored;
+    }
+}
@@ -1,91 +1,262 @@
 package com.energia.dashboard.file;
 
-import org.springframework.core.io.FileSystemResource;
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.filial.FilialRepository;
+import com.energia.dashboard.invoice.InvoiceDataRepository;
+import com.energia.dashboard.invoice.InvoiceTextRepository;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizRepository;
+import com.energia.dashboard.search.SearchCursor;
+import com.energia.dashboard.search.SearchHit;
+import com.energia.dashboard.search.SearchIndex;
+import com.energia.dashboard.search.SearchType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UploadedFileRepository uploadedFileRepository;
+    private final FileBatchService fileBatchService;
+    private final InvoiceDataRepository invoiceDataRepository;
+    private final InvoiceTextRepository invoiceTextRepository;
+    private final FileStorageService fileStorageService;
+    private final FileSender fileSender;
+    private final FileExportService fileExportService;
+    private final MatrizRepository matrizRepository;
+    private final FilialRepository filialRepository;
+    private final SearchIndex searchIndex;
 
-    public FileController(UploadedFileRepository uploadedFileRepository) {
+    public FileController(UploadedFileRepository uploadedFileRepository, FileBatchService fileBatchService,
+                          InvoiceDataRepository invoiceDataRepository, InvoiceTextRepository invoiceTextRepository,
+                          FileStorageService fileStorageService, FileSender fileSender,
+                          FileExportService fileExportService,
+                          MatrizRepository matrizRepository, FilialRepository filialRepository,
+                          SearchIndex searchIndex) {
         this.uploadedFileRepository = uploadedFileRepository;
+        this.fileBatchService = fileBatchService;
+        this.invoiceDataRepository = invoiceDataRepository;
+        this.invoiceTextRepository = invoiceTextRepository;
+        this.fileStorageService = fileStorageService;
+        this.fileSender = fileSender;
+        this.fileExportService = fileExportService;
+        this.matrizRepository = matrizRepository;
+        this.filialRepository = filialRepository;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Upload de vários usuários numa requisição: uma parte "cpfCnpj" para
+     * cada parte "files", na mesma ordem. Usado pelo downloader de contas.
+     */
+    @PostMapping(path = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<FileStorageService.StoredFileInfo>> uploadBatch(@RequestParam("cpfCnpj") List<String> cpfCnpjs,
+                                                                             @RequestParam("files") List<MultipartFile> files) throws IOException {
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(fileBatchService.uploadByCpfCnpj(cpfCnpjs, files));
     }
 
+    /**
+     * Listagens paginadas: até {@code limit} itens (padrão 50, máximo 200),
+     * do mais recente para o mais antigo. Quando há mais itens, o cabeçalho
+     * {@code X-Next-Cursor} traz o valor a enviar em {@code cursor} para a
+     * página seguinte.
+     * <p>
+     * Na busca ({@code /search?q=}) a ordem é por relevância (ver
+     * {@link SearchIndex}), sem distinção de acentos.
+     */
     @GetMapping
-    public ResponseEntity<List<FileInfoDTO>> listAllFiles() {
-        List<FileInfoDTO> files = uploadedFileRepository.findAllFilesWithUserInfo();
-        return ResponseEntity.ok(files);
+    public ResponseEntity<List<FileInfoDTO>> listAllFiles(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        FileCursor position = FileCursor.parse(cursor);
+        int size = FileCursor.clampLimit(limit);
+        return page(uploadedFileRepository.findPage(position.getCreatedAt(), position.getId(), PageRequest.of(0, size + 1)), size);
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<FileInfoDTO>> listFilesByUser(@PathVariable Long userId) {
-        List<FileInfoDTO> files = uploadedFileRepository.findFilesByUserIdWithUserInfo(userId);
-        return ResponseEntity.ok(files);
+    public ResponseEntity<List<FileInfoDTO>> listFilesByUser(@PathVariable Long userId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit) {
+        FileCursor position = FileCursor.parse(cursor);
+        int size = FileCursor.clampLimit(limit);
+        return page(uploadedFileRepository.findPageByUserId(userId, position.getCreatedAt(), position.getId(),
+                PageRequest.of(0, size + 1)), size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<FileInfoDTO>> searchFiles(@RequestParam String q) {
+    public ResponseEntity<List<FileInfoDTO>> searchFiles(@RequestParam(required = false) String q,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
         if (q == null || q.trim().isEmpty()) {
-            return ResponseEntity.ok(uploadedFileRepository.findAllFilesWithUserInfo());
+            return listAllFiles(cursor, limit);
         }
-        List<FileInfoDTO> files = uploadedFileRepository.searchFiles(q.trim());
-        return ResponseEntity.ok(files);
+        // Resultados por relevância: o cursor aqui é o do SearchIndex, não o da listagem
+        int offset = SearchCursor.parse(cursor);
+        int size = FileCursor.clampLimit(limit);
+        List<SearchHit> hits = searchIndex.search(q, EnumSet.of(SearchType.FILE), offset, size + 1);
+        List<Long> ids = SearchCursor.ids(hits, size);
+        List<FileInfoDTO> rows = ids.isEmpty() ? Collections.emptyList()
+                : SearchCursor.inHitOrder(ids, uploadedFileRepository.findInfoByIdIn(ids), FileInfoDTO::getId);
+
+        String next = SearchCursor.next(hits, offset, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(rows);
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<UploadedFile> getFileInfo(@PathVariable Long id) {
-        Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(id);
-        if (!fileOpt.isPresent()) {
+    @GetMapping("/count")
+    public Map<String, Long> count() {
+        return Collections.singletonMap("count", uploadedFileRepository.count());
+    }
+
+    private static ResponseEntity<List<FileInfoDTO>> page(List<FileInfoDTO> rows, int size) {
+        String next = FileCursor.next(rows, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(rows.size() > size ? rows.subList(0, size) : rows);
+    }
+
+    /**
+     * ZIP com todas as contas de uma matriz (e das suas filiais) e/ou de um
+     * período de envio, gerado durante a resposta. Datas inclusivas (AAAA-MM-DD).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Long matrizId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (matrizId == null && from == null && to == null) {
+            throw new IllegalArgumentException("Informe matrizId e/ou o período (from, to)");
+        }
+        if (matrizId != null && !matrizRepository.existsById(matrizId)) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(fileOpt.get());
+        ZoneId zone = ZoneId.systemDefault();
+        OffsetDateTime start = from == null ? OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                : from.atStartOfDay(zone).toOffsetDateTime();
+        OffsetDateTime end = to == null ? OffsetDateTime.now().plusDays(1)
+                : to.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+
+        // A lista é lida aqui; o corpo só lê o armazenamento
+        List<FileExportEntry> entries = matrizId != null
+                ? uploadedFileRepository.findExportByMatriz(matrizId, start, end)
+                : uploadedFileRepository.findExport(start, end);
+
+        String filename = "faturas" + (matrizId != null ? "-matriz-" + matrizId : "")
+                + (from != null ? "-de-" + from : "") + (to != null ? "-ate-" + to : "") + ".zip";
+        StreamingResponseBody body = out -> fileExportService.writeZip(entries, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
     }
 
-    @GetMapping("/{id}/download")
-    public ResponseEntity<FileSystemResource> download(@PathVariable Long id) throws Exception {
+    /**
+     * Vincula o arquivo a uma unidade: informe filialId (a matriz vem da
+     * filial) ou matrizId; sem nenhum dos dois, remove o vínculo.
+     */
+    @PutMapping("/{id}/unidade")
+    @Transactional
+    public ResponseEntity<UploadedFile> linkUnidade(@PathVariable Long id,
+                                                    @RequestParam(required = false) Long matrizId,
+                                                    @RequestParam(required = false) Long filialId) {
         Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(id);
         if (!fileOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
-        UploadedFile meta = fileOpt.get();
-        File file = new File(meta.getStoragePath());
-        if (!file.exists()) {
-            return ResponseEntity.notFound().build();
+        UploadedFile file = fileOpt.get();
+        if (filialId != null) {
+            Filial filial = filialRepository.findByIdWithMatriz(filialId);
+            if (filial == null) {
+                throw new IllegalArgumentException("Filial não encontrada: " + filialId);
+            }
+            if (matrizId != null && !matrizId.equals(filial.getMatriz().getId())) {
+                throw new IllegalArgumentException("A filial " + filialId + " não pertence à matriz " + matrizId);
+            }
+            file.setFilial(filial);
+            file.setMatriz(filial.getMatriz());
+        } else if (matrizId != null) {
+            Matriz matriz = matrizRepository.findById(matrizId)
+                    .orElseThrow(() -> new IllegalArgumentException("Matriz não encontrada: " + matrizId));
+            file.setFilial(null);
+            file.setMatriz(matriz);
+        } else {
+            file.setFilial(null);
+            file.setMatriz(null);
         }
+        return ResponseEntity.ok(uploadedFileRepository.save(file));
+    }
 
-        String contentType = meta.getContentType();
-        if (contentType == null || contentType.isBlank()) {
-            contentType = Files.probeContentType(file.toPath());
-            if (contentType == null) contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadedFile> getFileInfo(@PathVariable Long id) {
+        Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(id);
+        if (!fileOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(fileOpt.get());
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + meta.getOriginalFilename() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .contentLength(file.length())
-                .body(new FileSystemResource(file));
+    @GetMapping("/{id}/download")
+    public void download(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(id, false, request, response);
     }
 
     @GetMapping("/{id}/view")
-    public ResponseEntity<FileSystemResource> viewFile(@PathVariable Long id) throws Exception {
+    public void viewFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Para PDFs, retornar inline para visualização no navegador
+        serve(id, true, request, response);
+    }
+
+    /**
+     * Envio com ETag e Last-Modified (304 para requisições condicionais, 206
+     * para Range) pelo {@link FileSender}, pelo sendfile do Tomcat quando disponível.
+     * O conteúdo de arquivos com SHA-256 nunca muda (o endereço é o próprio
+     * hash), então o ETag é forte e o cache pode guardá-los sem revalidar.
+     */
+    private void serve(Long id, boolean inline, HttpServletRequest request, HttpServletResponse response) throws IOException {
         Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(id);
         if (!fileOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
         UploadedFile meta = fileOpt.get();
         File file = new File(meta.getStoragePath());
         if (!file.exists()) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
         String contentType = meta.getContentType();
@@ -93,25 +264,25 @@ public class FileController {
             contentType = Files.probeContentType(file.toPath());
             if (contentType == null) contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
         }
+        String disposition = inline && contentType.contains("pdf") ? "inline" : "attachment";
 
-        // Para PDFs, retornar inline para visualização no navegador
-        if (contentType.contains("pdf")) {
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + meta.getOriginalFilename() + "\"")
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .contentLength(file.length())
-                    .body(new FileSystemResource(file));
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition + "; filename=\"" + meta.getOriginalFilename() + "\"");
+        String etag;
+        if (meta.getSha256() != null) {
+            etag = "\"" + meta.getSha256() + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable");
+        } else {
+            // Arquivo anterior ao armazenamento por conteúdo: ETag fraco, revalidado a cada uso
+            etag = "W/\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
         }
-
-        // Para outros tipos de arquivo, retornar como download
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + meta.getOriginalFilename() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .contentLength(file.length())
-                .body(new FileSystemResource(file));
+        fileSender.send(request, response, file.toPath(), etag, file.lastModified());
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> deleteFile(@PathVariable Long id) {
         Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(id);
         if (!fileOpt.isPresent()) {
@@ -119,16 +290,15 @@ public class FileController {
         }
         
         UploadedFile meta = fileOpt.get();
-        File file = new File(meta.getStoragePath());
         
-        // Deletar arquivo físico
-        if (file.exists()) {
-            file.delete();
-        }
-        
-        // Deletar registro do banco
+        // Deletar registro do banco (e os dados e o texto extraídos do PDF)
+        invoiceDataRepository.deleteByUploadedFileId(id);
+        invoiceTextRepository.deleteByUploadedFileId(id);
         uploadedFileRepository.deleteById(id);
         
+        // Deletar arquivo físico após o commit, se nenhum outro registro usar o mesmo conteúdo
+        fileStorageService.delete(meta);
+        
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,82 @@
+package com.energia.dashboard.file;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Posição na listagem de arquivos, ordenada por {@code (created_at, id)}
+ * decrescentes. A próxima página começa logo depois do último item da
+ * anterior, então o custo não cresce com o número de páginas já lidas.
+ * <p>
+ * Para o cliente o cursor é um texto opaco (base64url).
+ */
+public final class FileCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // Antes do primeiro item: maior que qualquer created_at/id
+    private static final FileCursor START =
+            new FileCursor(OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC), Long.MAX_VALUE);
+
+    private final OffsetDateTime createdAt;
+    private final Long id;
+
+    private FileCursor(OffsetDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param cursor valor recebido do cliente, ou null para a primeira página
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static FileCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new FileCursor(OffsetDateTime.ofInstant(instant, ZoneOffset.UTC), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Limita o tamanho de página pedido a {@code 1..MAX_LIMIT}
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    /**
+     * Cursor da página seguinte, ou null se {@code page} é a última
+     * (a consulta busca {@code limit + 1} itens para saber se há mais)
+     */
+    public static String next(List<FileInfoDTO> page, int limit) {
+        if (page.size() <= limit) {
+            return null;
+        }
+        FileInfoDTO last = page.get(limit - 1);
+        Instant instant = last.getCreatedAt().toInstant();
+        String raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,27 @@
+package com.energia.dashboard.file;
+
+/**
+ * Arquivo incluído na exportação ZIP, com os nomes da unidade para as pastas
+ */
+public class FileExportEntry {
+
+    private final Long id;
+    private final String originalFilename;
+    private final String storagePath;
+    private final String matrizNome;
+    private final String filialNome;
+
+    public FileExportEntry(Long id, String originalFilename, String storagePath, String matrizNome, String filialNome) {
+        this.id = id;
+        this.originalFilename = originalFilename;
+        this.storagePath = storagePath;
+        this.matrizNome = matrizNome;
+        this.filialNome = filialNome;
+    }
+
+    public Long getId() { return id; }
+    public String getOriginalFilename() { return originalFilename; }
+    public String getStoragePath() { return storagePath; }
+    public String getMatrizNome() { return matrizNome; }
+    public String getFilialNome() { return filialNome; }
+}
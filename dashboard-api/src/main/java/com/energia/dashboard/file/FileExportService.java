@@ -0,0 +1,81 @@
+package com.energia.dashboard.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera o ZIP da exportação direto na resposta: cada arquivo é lido do
+ * armazenamento e comprimido à medida que é enviado, sem montar o arquivo
+ * em memória nem em disco.
+ */
+@Service
+public class FileExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileExportService.class);
+
+    /**
+     * Escreve o ZIP com as pastas {@code <matriz>/<filial ou "Matriz">/<arquivo>}
+     * (arquivos sem unidade ficam em "Sem unidade"). Arquivos ausentes do
+     * armazenamento são ignorados.
+     */
+    public void writeZip(List<FileExportEntry> entries, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs já são comprimidos internamente: compressão rápida basta
+        zip.setLevel(Deflater.BEST_SPEED);
+        Set<String> names = new HashSet<>();
+        for (FileExportEntry entry : entries) {
+            Path path = Paths.get(entry.getStoragePath());
+            if (!Files.isRegularFile(path)) {
+                logger.warn("Arquivo {} ausente do armazenamento; fora da exportação", entry.getId());
+                continue;
+            }
+            ZipEntry zipEntry = new ZipEntry(entryName(entry, names));
+            zipEntry.setTime(Files.getLastModifiedTime(path).toMillis());
+            zip.putNextEntry(zipEntry);
+            Files.copy(path, zip);
+            zip.closeEntry();
+        }
+        // finish() e não close(): o stream da resposta é do container
+        zip.finish();
+        zip.flush();
+    }
+
+    private static String entryName(FileExportEntry entry, Set<String> used) {
+        String folder;
+        if (entry.getMatrizNome() == null) {
+            folder = "Sem unidade";
+        } else {
+            folder = sanitize(entry.getMatrizNome()) + "/"
+                    + (entry.getFilialNome() == null ? "Matriz" : sanitize(entry.getFilialNome()));
+        }
+        String filename = sanitize(entry.getOriginalFilename());
+        String name = folder + "/" + filename;
+        if (!used.add(name)) {
+            // Mesmo nome na mesma pasta: diferencia pelo id do arquivo
+            int dot = filename.lastIndexOf('.');
+            String base = dot > 0 ? filename.substring(0, dot) : filename;
+            String extension = dot > 0 ? filename.substring(dot) : "";
+            name = folder + "/" + base + " (" + entry.getId() + ")" + extension;
+            used.add(name);
+        }
+        return name;
+    }
+
+    private static String sanitize(String name) {
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..") ? "_" : cleaned;
+    }
+}
@@ -0,0 +1,183 @@
+package com.energia.dashboard.file;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Envia arquivos do armazenamento.
+ * <p>
+ * No Tomcat (conector NIO) a resposta é entregue ao sendfile do próprio
+ * conector: o kernel copia do cache de páginas para o socket, sem passar pela
+ * heap. Em outros containers, ou abaixo de {@link #SENDFILE_MIN_BYTES}, o
+ * conteúdo é copiado para o stream do servlet por um buffer de
+ * {@link #BUFFER_SIZE} reaproveitado pela thread. Trata também requisições
+ * condicionais (304) e uma faixa de bytes (206); pedidos com várias faixas
+ * recebem o arquivo inteiro.
+ */
+@Component
+public class FileSender {
+
+    // Atributos de requisição do sendfile do Tomcat
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Mesmo limite do DefaultServlet do Tomcat: abaixo disso o sendfile não compensa
+    static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // Uma cópia por thread do container, em vez de um buffer por resposta
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    // transferTo sem progresso seguidas vezes: o destino parou de aceitar dados
+    private static final int MAX_STALLED_TRANSFERS = 1000;
+    private static final long STALL_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Escreve status, cabeçalhos de tamanho/faixa e o corpo. Content-Type,
+     * Content-Disposition e Cache-Control ficam a cargo do chamador.
+     *
+     * @param etag ETag já entre aspas (ou W/"..."), ou null
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Path path,
+                     String etag, long lastModified) throws IOException {
+        // Define ETag/Last-Modified e responde 304 quando o cliente já tem o conteúdo
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(rangeHeader);
+                } catch (IllegalArgumentException e) {
+                    ranges = null;
+                }
+                if (ranges == null || (ranges.size() == 1 && ranges.get(0).getRangeStart(length) >= length)) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+
+            long count = end - start + 1;
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod()) || count == 0) {
+                return;
+            }
+
+            if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // O conector envia o arquivo depois que o método retorna; nada é escrito aqui
+                request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            copy(channel, start, count, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Copia {@code count} bytes a partir de {@code position} para um stream.
+     * O stream do servlet só aceita arrays: {@link FileChannel#transferTo} para
+     * ele passaria por mais um buffer do adaptador de canal.
+     *
+     * @return bytes copiados
+     * @throws EOFException se o arquivo terminar antes de {@code position + count}
+     */
+    public static long copy(FileChannel channel, long position, long count, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(BUFFER.get());
+        long sent = 0;
+        while (sent < count) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), count - sent));
+            int n = channel.read(buffer, position + sent);
+            if (n < 0) {
+                throw new EOFException("Arquivo terminou antes do esperado");
+            }
+            out.write(buffer.array(), 0, n);
+            sent += n;
+        }
+        return sent;
+    }
+
+    /**
+     * Copia {@code count} bytes a partir de {@code position} com
+     * {@link FileChannel#transferTo}, repetindo até completar (o sistema pode
+     * transferir menos por chamada). Sem cópia pela heap quando o destino é um
+     * socket ou arquivo.
+     *
+     * @return bytes transferidos
+     * @throws EOFException se o arquivo terminar antes de {@code position + count}
+     * @throws IOException  se o destino deixar de aceitar dados
+     */
+    public static long transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long sent = 0;
+        int stalled = 0;
+        while (sent < count) {
+            long n = channel.transferTo(position + sent, count - sent, target);
+            if (n > 0) {
+                sent += n;
+                stalled = 0;
+                continue;
+            }
+            if (position + sent >= channel.size()) {
+                throw new EOFException("Arquivo terminou antes do esperado");
+            }
+            // Destino não bloqueante e cheio: espera um pouco em vez de girar
+            if (++stalled > MAX_STALLED_TRANSFERS) {
+                throw new IOException("Destino parou de aceitar dados");
+            }
+            LockSupport.parkNanos(STALL_PAUSE_NANOS);
+        }
+        return sent;
+    }
+
+    // Sem If-Range, ou com o mesmo validador da resposta, a faixa vale
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range só aceita comparação forte
+            return etag != null && !etag.startsWith("W/") && etag.equals(ifRange);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
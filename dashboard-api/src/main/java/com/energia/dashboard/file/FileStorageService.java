@@ -1,50 +1,351 @@
 package com.energia.dashboard.file;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.UUID;
+import java.util.function.Function;
 
+/**
+ * Armazenamento endereçado pelo conteúdo: cada arquivo é gravado uma única vez,
+ * em {@code <raiz>/ab/cd/<sha256>}, e todos os {@link UploadedFile} com o mesmo
+ * SHA-256 apontam para ele. O arquivo só é removido quando o último registro
+ * que o referencia é excluído.
+ * <p>
+ * Arquivos gravados antes do endereçamento por conteúdo (nome UUID, sem
+ * SHA-256 no registro) continuam sendo lidos pelo caminho gravado.
+ */
 @Service
 public class FileStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final Path rootLocation;
+    private final long maxStreamBytes;
+    private final UploadedFileRepository uploadedFileRepository;
+    private final TransactionTemplate referenceCountTx;
+    private final TransactionTemplate registrationTx;
+
+    // Serializa gravação e remoção do mesmo conteúdo
+    private final Object[] locks = new Object[64];
 
-    public FileStorageService(@Value("${file.storage.location:uploads}") String location) throws IOException {
+    public FileStorageService(@Value("${file.storage.location:uploads}") String location,
+                              @Value("${file.upload.max-stream-size:1GB}") DataSize maxStreamSize,
+                              UploadedFileRepository uploadedFileRepository,
+                              PlatformTransactionManager transactionManager) throws IOException {
         this.rootLocation = Paths.get(location).toAbsolutePath().normalize();
+        this.maxStreamBytes = maxStreamSize.toBytes();
+        this.uploadedFileRepository = uploadedFileRepository;
+        // Contagem sempre em transação própria: release() também roda após o
+        // término (rollback) da transação do upload
+        this.referenceCountTx = new TransactionTemplate(transactionManager);
+        this.referenceCountTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.referenceCountTx.setReadOnly(true);
+        this.registrationTx = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
         Files.createDirectories(this.rootLocation);
     }
 
+    /**
+     * Limite do upload em streaming ({@code file.upload.max-stream-size})
+     */
+    public long getMaxStreamBytes() {
+        return maxStreamBytes;
+    }
+
     public StoredFileInfo store(MultipartFile file) throws IOException {
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename() == null ? "file.pdf" : file.getOriginalFilename());
-        String extension = originalFilename.contains(".") ? originalFilename.substring(originalFilename.lastIndexOf('.')) : "";
-        String storedFilename = UUID.randomUUID().toString() + extension;
-        Path destination = this.rootLocation.resolve(storedFilename);
+        // O tamanho da parte já foi limitado pelo multipart (spring.servlet.multipart.max-file-size)
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), file.getContentType(), Long.MAX_VALUE);
+        }
+    }
 
-        Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Grava o conteúdo lido de {@code in}, calculando o SHA-256 durante a cópia.
+     * Se o mesmo conteúdo já estiver armazenado, a cópia recebida é descartada
+     * e o arquivo existente é reaproveitado. O stream não é fechado.
+     * <p>
+     * Dentro de uma transação, um arquivo novo é removido se ela não for
+     * confirmada.
+     *
+     * @throws FileTooLargeException se o conteúdo passar de {@code maxBytes}
+     */
+    public StoredFileInfo store(InputStream in, String filename, String contentType, long maxBytes) throws IOException {
+        Received received = receive(in, maxBytes);
+        try {
+            return place(received, filename, contentType);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(received.temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Como {@link #store(InputStream, String, String, long)}, mas lê o conteúdo
+     * fora de qualquer transação e só então abre uma transação curta em que o
+     * arquivo é armazenado e {@code register} grava o registro. Se
+     * {@code register} falhar, a transação é desfeita e o arquivo novo,
+     * removido. Para uploads grandes, que não devem segurar uma conexão do
+     * banco durante a leitura.
+     */
+    public <T> T storeAndRegister(InputStream in, String filename, String contentType, long maxBytes,
+                                  Function<StoredFileInfo, T> register) throws IOException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("storeAndRegister não deve ser chamado dentro de uma transação");
+        }
+        Received received = receive(in, maxBytes);
+        try {
+            return registrationTx.execute(status -> {
+                try {
+                    return register.apply(place(received, filename, contentType));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Com a transação encerrada, o temporário já foi movido ou descartado,
+            // a não ser que place tenha falhado antes de movê-lo
+            deleteQuietly(received.temp);
+        }
+    }
+
+    /**
+     * Copia o conteúdo para um arquivo temporário, calculando o SHA-256
+     */
+    private Received receive(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        long size = 0;
+        Path temp = Files.createTempFile(this.rootLocation, ".upload-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new FileTooLargeException(maxBytes);
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new Received(temp, toHex(digest.digest()), size);
+    }
+
+    /**
+     * Move o conteúdo recebido para o endereço do SHA-256, ou reaproveita o
+     * arquivo já armazenado
+     */
+    private StoredFileInfo place(Received received, String filename, String contentType) throws IOException {
+        String originalFilename = StringUtils.cleanPath(filename == null || filename.isBlank() ? "file.pdf" : filename);
+        String sha256 = received.sha256;
+        Path temp = received.temp;
+        Path blob = blobPath(sha256);
+        boolean created = false;
+        synchronized (lockFor(sha256)) {
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                created = true;
+            }
+        }
+        if (!created) {
+            // Conteúdo já armazenado: a cópia recebida é mantida até o commit
+            // para repor o arquivo caso ele seja removido antes disso
+            keepUntilCompletion(sha256, temp);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(sha256);
+                    }
+                }
+            });
+        }
 
         StoredFileInfo info = new StoredFileInfo();
         info.setOriginalFilename(originalFilename);
-        info.setStoredFilename(storedFilename);
-        info.setStoragePath(destination.toString());
-        info.setSizeBytes(file.getSize());
-        info.setContentType(file.getContentType());
+        info.setStoredFilename(sha256);
+        info.setStoragePath(blob.toString());
+        info.setSizeBytes(received.size);
+        info.setContentType(contentType);
+        info.setSha256(sha256);
+        info.setDeduplicated(!created);
         return info;
     }
 
+    /**
+     * Reaproveita o conteúdo já armazenado com este SHA-256 para um novo
+     * registro, que deve ser gravado na transação corrente. Como em
+     * {@link #store}, uma referência ao arquivo (hard link, ou cópia se o
+     * sistema de arquivos não permitir) é mantida até o commit para repô-lo
+     * caso a exclusão do último registro o remova antes disso.
+     *
+     * @return caminho do conteúdo, ou null se não houver
+     */
+    public Path reuseExisting(String sha256) throws IOException {
+        if (sha256 == null || !sha256.matches("[0-9a-f]{64}")) {
+            return null;
+        }
+        Path blob = blobPath(sha256);
+        Path temp = rootLocation.resolve(".reuse-" + UUID.randomUUID() + ".tmp");
+        synchronized (lockFor(sha256)) {
+            if (!Files.exists(blob)) {
+                return null;
+            }
+            try {
+                Files.createLink(temp, blob);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(blob, temp);
+            }
+        }
+        keepUntilCompletion(sha256, temp);
+        return blob;
+    }
+
+    /**
+     * Remove o arquivo de um registro excluído, se nenhum outro registro
+     * apontar para o mesmo conteúdo. Dentro de uma transação, a remoção fica
+     * para depois do commit da exclusão (e não acontece no rollback).
+     */
+    public void delete(UploadedFile file) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteNow(file);
+                }
+            });
+        } else {
+            deleteNow(file);
+        }
+    }
+
+    private void deleteNow(UploadedFile file) {
+        if (file.getSha256() == null) {
+            deleteQuietly(Paths.get(file.getStoragePath()));
+        } else {
+            release(file.getSha256());
+        }
+    }
+
+    private void release(String sha256) {
+        synchronized (lockFor(sha256)) {
+            Long references = referenceCountTx.execute(status -> uploadedFileRepository.countBySha256(sha256));
+            if (references != null && references == 0) {
+                deleteQuietly(blobPath(sha256));
+            }
+        }
+    }
+
+    private void keepUntilCompletion(String sha256, Path temp) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteQuietly(temp);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Path blob = blobPath(sha256);
+                synchronized (lockFor(sha256)) {
+                    try {
+                        if (status == STATUS_COMMITTED && !Files.exists(blob)) {
+                            Files.createDirectories(blob.getParent());
+                            Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                            return;
+                        }
+                    } catch (IOException e) {
+                        logger.error("Não foi possível restaurar o arquivo {}", sha256, e);
+                    }
+                }
+                deleteQuietly(temp);
+            }
+        });
+    }
+
+    private Path blobPath(String sha256) {
+        return rootLocation.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), locks.length)];
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Não foi possível remover {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class Received {
+        private final Path temp;
+        private final String sha256;
+        private final long size;
+
+        private Received(Path temp, String sha256, long size) {
+            this.temp = temp;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+    }
+
     public static class StoredFileInfo {
         private String originalFilename;
         private String storedFilename;
         private String storagePath;
         private long sizeBytes;
         private String contentType;
+        private String sha256;
+        private boolean deduplicated;
 
         public String getOriginalFilename() { return originalFilename; }
         public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
@@ -56,7 +357,10 @@ public class FileStorageService {
         public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
         public String getContentType() { return contentType; }
         public void setContentType(String contentType) { this.contentType = contentType; }
+        public String getSha256() { return sha256; }
+        public void setSha256(String sha256) { this.sha256 = sha256; }
+        // true se o conteúdo já estava armazenado e não foi gravado de novo
+        public boolean isDeduplicated() { return deduplicated; }
+        public void setDeduplicated(boolean deduplicated) { this.deduplicated = deduplicated; }
     }
 }
-
-
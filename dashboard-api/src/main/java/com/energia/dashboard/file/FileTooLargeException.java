@@ -0,0 +1,18 @@
+package com.energia.dashboard.file;
+
+/**
+ * Upload maior que o limite configurado; o que já foi gravado é descartado
+ */
+public class FileTooLargeException extends RuntimeException {
+
+    private final long limitBytes;
+
+    public FileTooLargeException(long limitBytes) {
+        super("Arquivo excede o limite de " + limitBytes + " bytes");
+        this.limitBytes = limitBytes;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+}
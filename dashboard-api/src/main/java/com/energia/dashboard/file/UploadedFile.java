@@ -1,13 +1,23 @@
 package com.energia.dashboard.file;
 
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.summary.DashboardSummaryListener;
 import com.energia.dashboard.user.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.persistence.*;
 import java.time.OffsetDateTime;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, DashboardSummaryListener.class})
 @Table(name = "uploaded_files", indexes = {
-        @Index(name = "idx_uploaded_files_user", columnList = "user_id")
+        @Index(name = "idx_uploaded_files_user", columnList = "user_id"),
+        @Index(name = "idx_uploaded_files_created", columnList = "created_at, id"),
+        @Index(name = "idx_uploaded_files_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_uploaded_files_sha256", columnList = "sha256"),
+        @Index(name = "idx_uploaded_files_matriz_created", columnList = "matriz_id, created_at")
 })
 public class UploadedFile {
 
@@ -19,6 +29,17 @@ public class UploadedFile {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Unidade da conta (opcional): a matriz, ou a filial e a matriz dela
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "matriz_id")
+    private Matriz matriz;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "filial_id")
+    private Filial filial;
+
     @Column(name = "original_filename", nullable = false)
     private String originalFilename;
 
@@ -34,6 +55,10 @@ public class UploadedFile {
     @Column(name = "storage_path", nullable = false)
     private String storagePath;
 
+    // Nulo para arquivos enviados antes do cálculo do hash
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
@@ -48,6 +73,17 @@ public class UploadedFile {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
+    public Matriz getMatriz() { return matriz; }
+    public void setMatriz(Matriz matriz) { this.matriz = matriz; }
+
+    // O id vem do proxy, sem carregar a matriz
+    public Long getMatrizId() { return matriz == null ? null : matriz.getId(); }
+
+    public Filial getFilial() { return filial; }
+    public void setFilial(Filial filial) { this.filial = filial; }
+
+    public Long getFilialId() { return filial == null ? null : filial.getId(); }
+
     public String getOriginalFilename() { return originalFilename; }
     public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
 
@@ -63,6 +99,9 @@ public class UploadedFile {
     public String getStoragePath() { return storagePath; }
     public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
 
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,65 @@
+package com.energia.dashboard.file;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserção em lote de {@link UploadedFile} via JDBC. Os ids são IDENTITY, o que
+ * impede o Hibernate de agrupar os INSERTs; aqui eles vão num único
+ * executeBatch por lote.
+ */
+@Repository
+public class UploadedFileJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO uploaded_files (user_id, original_filename, stored_filename, content_type, " +
+            "size_bytes, storage_path, sha256, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UploadedFileJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return ids gerados, na ordem de {@code files}
+     */
+    public List<Long> insertAll(List<Long> userIds, List<FileStorageService.StoredFileInfo> files) {
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[] {"id"})) {
+                for (int i = 0; i < files.size(); i++) {
+                    FileStorageService.StoredFileInfo info = files.get(i);
+                    ps.setLong(1, userIds.get(i));
+                    ps.setString(2, info.getOriginalFilename());
+                    ps.setString(3, info.getStoredFilename());
+                    ps.setString(4, info.getContentType());
+                    ps.setLong(5, info.getSizeBytes());
+                    ps.setString(6, info.getStoragePath());
+                    ps.setString(7, info.getSha256());
+                    ps.setTimestamp(8, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(files.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != files.size()) {
+                    throw new IllegalStateException("Ids gerados: " + ids.size() + ", arquivos: " + files.size());
+                }
+                return ids;
+            }
+        });
+    }
+}
@@ -1,22 +1,35 @@
 package com.energia.dashboard.file;
 
+import com.energia.dashboard.invoice.InvoiceData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface UploadedFileRepository extends JpaRepository<UploadedFile, Long> {
     
     List<UploadedFile> findByUserId(Long userId);
+
+    // Registros que apontam para o mesmo conteúdo armazenado
+    long countBySha256(String sha256);
+
+    Optional<UploadedFile> findFirstBySha256(String sha256);
     
+    // Listagens paginadas por cursor (ver FileCursor): ordem (createdAt, id) decrescente
     @Query("SELECT new com.energia.dashboard.file.FileInfoDTO(" +
            "f.id, f.originalFilename, f.contentType, f.sizeBytes, f.createdAt, " +
            "u.id, u.fullName, u.cpfCnpj) " +
            "FROM UploadedFile f " +
            "JOIN f.user u " +
-           "ORDER BY f.createdAt DESC")
-    List<FileInfoDTO> findAllFilesWithUserInfo();
+           "WHERE f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.id < :id) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FileInfoDTO> findPage(@Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id, Pageable pageable);
     
     @Query("SELECT new com.energia.dashboard.file.FileInfoDTO(" +
            "f.id, f.originalFilename, f.contentType, f.sizeBytes, f.createdAt, " +
@@ -24,19 +37,54 @@ public interface UploadedFileRepository extends JpaRepository<UploadedFile, Long
            "FROM UploadedFile f " +
            "JOIN f.user u " +
            "WHERE u.id = :userId " +
-           "ORDER BY f.createdAt DESC")
-    List<FileInfoDTO> findFilesByUserIdWithUserInfo(@Param("userId") Long userId);
+           "AND (f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.id < :id)) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FileInfoDTO> findPageByUserId(@Param("userId") Long userId, @Param("createdAt") OffsetDateTime createdAt,
+                                       @Param("id") Long id, Pageable pageable);
     
+    // Resultados da busca (SearchIndex), carregados pelos ids
     @Query("SELECT new com.energia.dashboard.file.FileInfoDTO(" +
            "f.id, f.originalFilename, f.contentType, f.sizeBytes, f.createdAt, " +
            "u.id, u.fullName, u.cpfCnpj) " +
            "FROM UploadedFile f " +
            "JOIN f.user u " +
-           "WHERE LOWER(f.originalFilename) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(u.fullName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(u.cpfCnpj) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "ORDER BY f.createdAt DESC")
-    List<FileInfoDTO> searchFiles(@Param("searchTerm") String searchTerm);
-}
+           "WHERE f.id IN :ids")
+    List<FileInfoDTO> findInfoByIdIn(@Param("ids") Collection<Long> ids);
 
+    // PDFs ainda sem texto extraído, exceto os que não puderam ser lidos
+    @Query("SELECT f.id FROM UploadedFile f " +
+           "WHERE NOT EXISTS (SELECT t.uploadedFileId FROM InvoiceText t WHERE t.uploadedFileId = f.id) " +
+           "AND NOT EXISTS (SELECT d.id FROM InvoiceData d WHERE d.uploadedFileId = f.id AND d.status = :failed) " +
+           "AND (LOWER(f.contentType) LIKE '%pdf%' OR LOWER(f.originalFilename) LIKE '%.pdf') " +
+           "ORDER BY f.id")
+    List<Long> findIdsWithoutInvoiceText(@Param("failed") InvoiceData.Status failed, Pageable pageable);
+
+    @Query("SELECT new com.energia.dashboard.file.FileExportEntry(" +
+           "f.id, f.originalFilename, f.storagePath, m.nome, fi.nome) " +
+           "FROM UploadedFile f " +
+           "JOIN f.matriz m " +
+           "LEFT JOIN f.filial fi " +
+           "WHERE m.id = :matrizId AND f.createdAt >= :from AND f.createdAt < :to " +
+           "ORDER BY f.createdAt")
+    List<FileExportEntry> findExportByMatriz(@Param("matrizId") Long matrizId,
+                                             @Param("from") OffsetDateTime from,
+                                             @Param("to") OffsetDateTime to);
 
+    @Query("SELECT new com.energia.dashboard.file.FileExportEntry(" +
+           "f.id, f.originalFilename, f.storagePath, m.nome, fi.nome) " +
+           "FROM UploadedFile f " +
+           "LEFT JOIN f.matriz m " +
+           "LEFT JOIN f.filial fi " +
+           "WHERE f.createdAt >= :from AND f.createdAt < :to " +
+           "ORDER BY f.createdAt")
+    List<FileExportEntry> findExport(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    // Antes de excluir a unidade: os arquivos continuam, sem vínculo
+    @Modifying
+    @Query("UPDATE UploadedFile f SET f.matriz = null, f.filial = null WHERE f.matriz.id = :matrizId")
+    int unlinkMatriz(@Param("matrizId") Long matrizId);
+
+    @Modifying
+    @Query("UPDATE UploadedFile f SET f.filial = null WHERE f.filial.id = :filialId")
+    int unlinkFilial(@Param("filialId") Long filialId);
+}
@@ -1,6 +1,9 @@
 package com.energia.dashboard.filial;
 
+import com.energia.dashboard.matriz.AlocacaoEnergia;
 import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.summary.DashboardSummaryListener;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -8,6 +11,7 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, DashboardSummaryListener.class})
 @Table(name = "filiais", indexes = {
         @Index(name = "idx_filiais_matriz", columnList = "matriz_id"),
         @Index(name = "idx_filiais_nome", columnList = "nome")
@@ -142,9 +146,8 @@ public class Filial {
     // Métodos utilitários
     public BigDecimal getEnergiaRecebidaKw() {
         if (matriz != null && matriz.getGeracaoKw() != null) {
-            return matriz.getGeracaoKw()
-                    .multiply(porcentagemEnergia)
-                    .divide(BigDecimal.valueOf(100));
+            return AlocacaoEnergia.kw(AlocacaoEnergia.miliwatts(
+                    AlocacaoEnergia.centesimos(matriz.getGeracaoKw()), AlocacaoEnergia.centesimos(porcentagemEnergia)));
         }
         return BigDecimal.ZERO;
     }
@@ -1,7 +1,16 @@
 package com.energia.dashboard.filial;
 
+import com.energia.dashboard.config.QueryBudget;
+import com.energia.dashboard.file.UploadedFileRepository;
 import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizAlocacaoService;
 import com.energia.dashboard.matriz.MatrizRepository;
+import com.energia.dashboard.search.NameCursor;
+import com.energia.dashboard.search.SearchCursor;
+import com.energia.dashboard.search.SearchHit;
+import com.energia.dashboard.search.SearchIndex;
+import com.energia.dashboard.search.SearchType;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,65 +19,189 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/api/filiais")
 @Validated
 public class FilialController {
 
+    private static final int SEARCH_LIMIT = 50;
+
     private final FilialRepository filialRepository;
     private final MatrizRepository matrizRepository;
+    private final UploadedFileRepository uploadedFileRepository;
+    private final SearchIndex searchIndex;
+    private final MatrizAlocacaoService matrizAlocacaoService;
 
-    public FilialController(FilialRepository filialRepository, MatrizRepository matrizRepository) {
+    public FilialController(FilialRepository filialRepository, MatrizRepository matrizRepository,
+                            UploadedFileRepository uploadedFileRepository, SearchIndex searchIndex,
+                            MatrizAlocacaoService matrizAlocacaoService) {
         this.filialRepository = filialRepository;
         this.matrizRepository = matrizRepository;
+        this.uploadedFileRepository = uploadedFileRepository;
+        this.searchIndex = searchIndex;
+        this.matrizAlocacaoService = matrizAlocacaoService;
     }
 
     @GetMapping
-    public List<Filial> list() {
-        return filialRepository.findAll();
+    @QueryBudget(1)
+    public List<FilialDTO> list() {
+        return filialRepository.findAllDto();
     }
 
     @GetMapping("/with-matriz")
-    public List<Filial> listWithMatriz() {
-        return filialRepository.findAllWithMatriz();
+    @QueryBudget(1)
+    public List<FilialDTO> listWithMatriz() {
+        return filialRepository.findAllDto();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Filial> get(@PathVariable Long id) {
-        return filialRepository.findById(id)
+    @QueryBudget(1)
+    public ResponseEntity<FilialDTO> get(@PathVariable Long id) {
+        return filialRepository.findDtoById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/{id}/with-matriz")
-    public ResponseEntity<Filial> getWithMatriz(@PathVariable Long id) {
-        Filial filial = filialRepository.findByIdWithMatriz(id);
-        if (filial == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(filial);
+    @QueryBudget(1)
+    public ResponseEntity<FilialDTO> getWithMatriz(@PathVariable Long id) {
+        return get(id);
     }
 
     @GetMapping("/by-matriz/{matrizId}")
-    public ResponseEntity<List<Filial>> getByMatriz(@PathVariable Long matrizId) {
+    @QueryBudget(2)
+    public ResponseEntity<List<FilialDTO>> getByMatriz(@PathVariable Long matrizId) {
         if (!matrizRepository.existsById(matrizId)) {
             return ResponseEntity.notFound().build();
         }
-        List<Filial> filiais = filialRepository.findByMatrizId(matrizId);
-        return ResponseEntity.ok(filiais);
+        return ResponseEntity.ok(filialRepository.findDtoByMatrizIdIn(Collections.singletonList(matrizId)));
+    }
+
+    /**
+     * Substitui de uma vez as porcentagens de todas as filiais da matriz. O
+     * total é validado uma única vez, sem passar pelos estados intermediários
+     * de alterações uma a uma, e as filiais são gravadas numa só transação
+     * (UPDATEs em lote).
+     */
+    @PutMapping(value = "/by-matriz/{matrizId}/porcentagens", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Transactional
+    public ResponseEntity<?> rebalancear(@PathVariable Long matrizId,
+                                         @RequestBody List<@NotNull @Valid FilialPorcentagem> porcentagens) {
+        Optional<Matriz> matrizOpt = matrizRepository.findById(matrizId);
+        if (!matrizOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<Long, BigDecimal> novas = new HashMap<>();
+        // Valores já validados (@Valid): filialId e porcentagem com até duas casas
+        for (FilialPorcentagem item : porcentagens) {
+            if (novas.put(item.getFilialId(), item.getPorcentagemEnergia()) != null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Filial " + item.getFilialId() + " informada mais de uma vez");
+            }
+        }
+
+        // Trava as filiais: nenhuma alteração individual entra no meio do rebalanceamento
+        List<Filial> filiais = filialRepository.findByMatrizIdForUpdate(matrizId);
+        Set<Long> desconhecidas = new TreeSet<>(novas.keySet());
+        Set<Long> faltando = new TreeSet<>();
+        BigDecimal totalAtual = BigDecimal.ZERO;
+        BigDecimal totalNovo = BigDecimal.ZERO;
+        for (Filial f : filiais) {
+            BigDecimal nova = novas.get(f.getId());
+            if (nova == null) {
+                faltando.add(f.getId());
+                continue;
+            }
+            desconhecidas.remove(f.getId());
+            totalAtual = totalAtual.add(f.getPorcentagemEnergia());
+            totalNovo = totalNovo.add(nova);
+        }
+        if (!desconhecidas.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Filiais não pertencem à matriz: " + desconhecidas);
+        }
+        if (!faltando.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Informe a porcentagem de todas as filiais da matriz. Faltando: " + faltando);
+        }
+
+        Matriz matriz = matrizOpt.get();
+        if (matriz.getPorcentagemMatriz().add(totalNovo).compareTo(BigDecimal.valueOf(100)) > 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Porcentagem excede o limite. Disponível para as filiais: "
+                          + BigDecimal.valueOf(100).subtract(matriz.getPorcentagemMatriz()) + "%");
+        }
+        // Só a diferença: uma filial criada em paralelo continua contada no total da matriz
+        if (!matrizAlocacaoService.reservar(matrizId, totalNovo.subtract(totalAtual), 0)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Porcentagem excede o limite. Disponível: "
+                          + matrizAlocacaoService.disponivel(matrizId).add(totalAtual) + "%");
+        }
+
+        for (Filial f : filiais) {
+            f.setPorcentagemEnergia(novas.get(f.getId()));
+        }
+        // Os UPDATEs saem em lote (hibernate.jdbc.batch_size); o flush preenche updatedAt da resposta
+        filialRepository.flush();
+
+        List<FilialDTO> result = new ArrayList<>(filiais.size());
+        for (Filial f : filiais) {
+            result.add(FilialDTO.of(f));
+        }
+        return ResponseEntity.ok(result);
     }
 
+    /**
+     * Busca por nome, responsável ou endereço, sem distinção de acentos, do
+     * mais relevante para o menos relevante. Sem {@code q}, lista por nome,
+     * uma página por vez.
+     * Paginação pelo cabeçalho {@code X-Next-Cursor} e parâmetro {@code cursor}.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<Filial>> search(@RequestParam String q) {
+    @QueryBudget(1)
+    public ResponseEntity<List<FilialDTO>> search(@RequestParam(required = false) String q,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
         if (q == null || q.trim().isEmpty()) {
-            return ResponseEntity.ok(filialRepository.findAll());
+            NameCursor position = NameCursor.parse(cursor);
+            int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+            List<FilialDTO> rows = filialRepository.findDtoPage(position.getNome(), position.getId(),
+                    PageRequest.of(0, size + 1));
+            return page(rows, size, NameCursor.next(rows, size, FilialDTO::getNome, FilialDTO::getId));
+        }
+        int offset = SearchCursor.parse(cursor);
+        int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+        List<SearchHit> hits = searchIndex.search(q, EnumSet.of(SearchType.FILIAL), offset, size + 1);
+        List<Long> ids = SearchCursor.ids(hits, size);
+
+        String next = SearchCursor.next(hits, offset, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        List<FilialDTO> rows = ids.isEmpty() ? Collections.emptyList() : filialRepository.findDtoByIdIn(ids);
+        return response.body(SearchCursor.inHitOrder(ids, rows, FilialDTO::getId));
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> rows, int size, String next) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
         }
-        List<Filial> filiais = filialRepository.searchFiliais(q.trim());
-        return ResponseEntity.ok(filiais);
+        return response.body(rows.size() > size ? rows.subList(0, size) : rows);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -99,38 +232,27 @@ public class FilialController {
                     .body("Porcentagem de energia deve ser maior que zero");
         }
 
-        // Verificar se a soma das porcentagens não excede 100%
-        BigDecimal porcentagemFiliaisExistentes = filialRepository.sumPorcentagemByMatrizId(matriz.getId());
-        if (porcentagemFiliaisExistentes == null) {
-            porcentagemFiliaisExistentes = BigDecimal.ZERO;
-        }
-
-        BigDecimal porcentagemTotal = matriz.getPorcentagemMatriz()
-                .add(porcentagemFiliaisExistentes)
-                .add(filial.getPorcentagemEnergia());
-
-        if (porcentagemTotal.compareTo(BigDecimal.valueOf(100)) > 0) {
-            BigDecimal porcentagemDisponivel = BigDecimal.valueOf(100)
-                    .subtract(matriz.getPorcentagemMatriz())
-                    .subtract(porcentagemFiliaisExistentes);
+        // Reserva a porcentagem na matriz; a verificação dos 100% e a reserva são atômicas
+        if (!matrizAlocacaoService.reservar(matriz.getId(), filial.getPorcentagemEnergia(), 1)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Porcentagem excede o limite. Disponível: " + porcentagemDisponivel + "%");
+                    .body("Porcentagem excede o limite. Disponível: " + matrizAlocacaoService.disponivel(matriz.getId()) + "%");
         }
 
         filial.setMatriz(matriz);
         Filial saved = filialRepository.save(filial);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        return ResponseEntity.status(HttpStatus.CREATED).body(FilialDTO.of(saved));
     }
 
     @PutMapping("/{id}")
     @Transactional
     public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody Filial filial) {
-        Optional<Filial> existing = filialRepository.findById(id);
+        Optional<Filial> existing = filialRepository.findByIdForUpdate(id);
         if (!existing.isPresent()) {
             return ResponseEntity.notFound().build();
         }
 
         Filial entity = existing.get();
+        Long matrizId = entity.getMatriz().getId();
 
         // Validar porcentagem da filial
         if (filial.getPorcentagemEnergia().compareTo(BigDecimal.ZERO) <= 0) {
@@ -138,23 +260,11 @@ public class FilialController {
                     .body("Porcentagem de energia deve ser maior que zero");
         }
 
-        // Verificar se a soma das porcentagens não excede 100% (excluindo a filial atual)
-        BigDecimal porcentagemFiliaisExistentes = filialRepository.sumPorcentagemByMatrizId(entity.getMatriz().getId());
-        if (porcentagemFiliaisExistentes == null) {
-            porcentagemFiliaisExistentes = BigDecimal.ZERO;
-        }
-        
-        // Subtrair a porcentagem atual da filial
-        porcentagemFiliaisExistentes = porcentagemFiliaisExistentes.subtract(entity.getPorcentagemEnergia());
-
-        BigDecimal porcentagemTotal = entity.getMatriz().getPorcentagemMatriz()
-                .add(porcentagemFiliaisExistentes)
-                .add(filial.getPorcentagemEnergia());
-
-        if (porcentagemTotal.compareTo(BigDecimal.valueOf(100)) > 0) {
-            BigDecimal porcentagemDisponivel = BigDecimal.valueOf(100)
-                    .subtract(entity.getMatriz().getPorcentagemMatriz())
-                    .subtract(porcentagemFiliaisExistentes);
+        // Reserva só a diferença para a porcentagem atual da filial
+        BigDecimal delta = filial.getPorcentagemEnergia().subtract(entity.getPorcentagemEnergia());
+        if (!matrizAlocacaoService.reservar(matrizId, delta, 0)) {
+            BigDecimal porcentagemDisponivel = matrizAlocacaoService.disponivel(matrizId)
+                    .add(entity.getPorcentagemEnergia());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Porcentagem excede o limite. Disponível: " + porcentagemDisponivel + "%");
         }
@@ -166,33 +276,37 @@ public class FilialController {
         entity.setPorcentagemEnergia(filial.getPorcentagemEnergia());
 
         Filial saved = filialRepository.save(entity);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(FilialDTO.of(saved));
     }
 
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<?> delete(@PathVariable Long id) {
-        if (!filialRepository.existsById(id)) {
+        Optional<Filial> existing = filialRepository.findByIdForUpdate(id);
+        if (!existing.isPresent()) {
             return ResponseEntity.notFound().build();
         }
+        Long matrizId = existing.get().getMatriz().getId();
 
-        filialRepository.deleteById(id);
+        // Os arquivos da filial continuam vinculados à matriz
+        uploadedFileRepository.unlinkFilial(id);
+        matrizAlocacaoService.reservar(matrizId, existing.get().getPorcentagemEnergia().negate(), -1);
+        filialRepository.delete(existing.get());
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}/energia-calculada")
+    @QueryBudget(1)
     public ResponseEntity<?> getEnergiaCalculada(@PathVariable Long id) {
-        Optional<Filial> filialOpt = filialRepository.findById(id);
+        Optional<FilialDTO> filialOpt = filialRepository.findDtoById(id);
         if (!filialOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
 
-        Filial filial = filialOpt.get();
-        BigDecimal energiaRecebida = filial.getEnergiaRecebidaKw();
-
+        FilialDTO filial = filialOpt.get();
         FilialEnergiaInfo info = new FilialEnergiaInfo();
         info.setFilial(filial);
-        info.setEnergiaRecebidaKw(energiaRecebida);
+        info.setEnergiaRecebidaKw(filial.getEnergiaRecebidaKw());
         info.setGeracaoTotalMatrizKw(filial.getMatriz().getGeracaoKw());
 
         return ResponseEntity.ok(info);
@@ -200,13 +314,13 @@ public class FilialController {
 
     // Classe interna para informações de energia
     public static class FilialEnergiaInfo {
-        private Filial filial;
+        private FilialDTO filial;
         private BigDecimal energiaRecebidaKw;
         private BigDecimal geracaoTotalMatrizKw;
 
         // Getters and Setters
-        public Filial getFilial() { return filial; }
-        public void setFilial(Filial filial) { this.filial = filial; }
+        public FilialDTO getFilial() { return filial; }
+        public void setFilial(FilialDTO filial) { this.filial = filial; }
 
         public BigDecimal getEnergiaRecebidaKw() { return energiaRecebidaKw; }
         public void setEnergiaRecebidaKw(BigDecimal energiaRecebidaKw) { this.energiaRecebidaKw = energiaRecebidaKw; }
@@ -214,4 +328,4 @@ public class FilialController {
         public BigDecimal getGeracaoTotalMatrizKw() { return geracaoTotalMatrizKw; }
         public void setGeracaoTotalMatrizKw(BigDecimal geracaoTotalMatrizKw) { this.geracaoTotalMatrizKw = geracaoTotalMatrizKw; }
     }
-}
\ No newline at end of file
+}
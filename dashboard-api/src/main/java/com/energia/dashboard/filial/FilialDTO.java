@@ -0,0 +1,86 @@
+package com.energia.dashboard.filial;
+
+import com.energia.dashboard.matriz.AlocacaoEnergia;
+import com.energia.dashboard.matriz.Matriz;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Filial com os dados da matriz usados nas telas, lida numa única consulta
+ * (sem carregar a entidade Matriz de cada linha)
+ */
+public class FilialDTO {
+
+    private final Long id;
+    private final Long matrizId;
+    private final MatrizRef matriz;
+    private final String nome;
+    private final String endereco;
+    private final String responsavel;
+    private final String telefone;
+    private final BigDecimal porcentagemEnergia;
+    private final BigDecimal energiaRecebidaKw;
+    private final OffsetDateTime createdAt;
+    private final OffsetDateTime updatedAt;
+
+    public FilialDTO(Long id, Long matrizId, String matrizNome, BigDecimal matrizGeracaoKw, BigDecimal porcentagemMatriz,
+                     String nome, String endereco, String responsavel, String telefone,
+                     BigDecimal porcentagemEnergia, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+        this.id = id;
+        this.matrizId = matrizId;
+        this.matriz = new MatrizRef(matrizId, matrizNome, matrizGeracaoKw, porcentagemMatriz);
+        this.nome = nome;
+        this.endereco = endereco;
+        this.responsavel = responsavel;
+        this.telefone = telefone;
+        this.porcentagemEnergia = porcentagemEnergia;
+        this.energiaRecebidaKw = matrizGeracaoKw == null ? BigDecimal.ZERO
+                : AlocacaoEnergia.kw(AlocacaoEnergia.miliwatts(
+                        AlocacaoEnergia.centesimos(matrizGeracaoKw), AlocacaoEnergia.centesimos(porcentagemEnergia)));
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Para respostas de gravação, com a matriz já carregada
+     */
+    public static FilialDTO of(Filial filial) {
+        Matriz matriz = filial.getMatriz();
+        return new FilialDTO(filial.getId(), matriz.getId(), matriz.getNome(), matriz.getGeracaoKw(),
+                matriz.getPorcentagemMatriz(), filial.getNome(), filial.getEndereco(), filial.getResponsavel(),
+                filial.getTelefone(), filial.getPorcentagemEnergia(), filial.getCreatedAt(), filial.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+    public Long getMatrizId() { return matrizId; }
+    public MatrizRef getMatriz() { return matriz; }
+    public String getNome() { return nome; }
+    public String getEndereco() { return endereco; }
+    public String getResponsavel() { return responsavel; }
+    public String getTelefone() { return telefone; }
+    public BigDecimal getPorcentagemEnergia() { return porcentagemEnergia; }
+    public BigDecimal getEnergiaRecebidaKw() { return energiaRecebidaKw; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+
+    // Campos da matriz exibidos junto com a filial
+    public static class MatrizRef {
+        private final Long id;
+        private final String nome;
+        private final BigDecimal geracaoKw;
+        private final BigDecimal porcentagemMatriz;
+
+        MatrizRef(Long id, String nome, BigDecimal geracaoKw, BigDecimal porcentagemMatriz) {
+            this.id = id;
+            this.nome = nome;
+            this.geracaoKw = geracaoKw;
+            this.porcentagemMatriz = porcentagemMatriz;
+        }
+
+        public Long getId() { return id; }
+        public String getNome() { return nome; }
+        public BigDecimal getGeracaoKw() { return geracaoKw; }
+        public BigDecimal getPorcentagemMatriz() { return porcentagemMatriz; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.energia.dashboard.filial;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * Nova porcentagem de uma filial, no rebalanceamento das filiais de uma matriz
+ */
+public class FilialPorcentagem {
+
+    @NotNull
+    private Long filialId;
+
+    // Mesmas regras de Filial.porcentagemEnergia: o total da matriz é somado com duas casas
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Porcentagem deve ser maior que zero")
+    @DecimalMax(value = "100.00", message = "Porcentagem não pode ser maior que 100%")
+    @Digits(integer = 3, fraction = 2)
+    private BigDecimal porcentagemEnergia;
+
+    public FilialPorcentagem() {}
+
+    public FilialPorcentagem(Long filialId, BigDecimal porcentagemEnergia) {
+        this.filialId = filialId;
+        this.porcentagemEnergia = porcentagemEnergia;
+    }
+
+    public Long getFilialId() { return filialId; }
+    public void setFilialId(Long filialId) { this.filialId = filialId; }
+
+    public BigDecimal getPorcentagemEnergia() { return porcentagemEnergia; }
+    public void setPorcentagemEnergia(BigDecimal porcentagemEnergia) { this.porcentagemEnergia = porcentagemEnergia; }
+}
@@ -1,34 +1,68 @@
 package com.energia.dashboard.filial;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FilialRepository extends JpaRepository<Filial, Long> {
 
+    // Argumentos do construtor de FilialDTO
+    String FILIAL_DTO_FIELDS = "f.id, m.id, m.nome, m.geracaoKw, m.porcentagemMatriz, " +
+                               "f.nome, f.endereco, f.responsavel, f.telefone, f.porcentagemEnergia, f.createdAt, f.updatedAt";
+
     List<Filial> findByMatrizId(Long matrizId);
 
+    long countByMatrizId(Long matrizId);
+
     List<Filial> findByNomeContainingIgnoreCase(String nome);
 
     List<Filial> findByResponsavelContainingIgnoreCase(String responsavel);
 
-    @Query("SELECT f FROM Filial f WHERE " +
-           "LOWER(f.nome) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(f.responsavel) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(f.endereco) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Filial> searchFiliais(@Param("searchTerm") String searchTerm);
+    // Trava a filial até o commit: duas alterações da mesma filial não partem da mesma porcentagem anterior
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Filial f WHERE f.id = :id")
+    Optional<Filial> findByIdForUpdate(@Param("id") Long id);
+
+    // Todas as filiais da matriz, travadas até o commit (rebalanceamento)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Filial f WHERE f.matriz.id = :matrizId ORDER BY f.id")
+    List<Filial> findByMatrizIdForUpdate(@Param("matrizId") Long matrizId);
 
     @Query("SELECT f FROM Filial f JOIN FETCH f.matriz WHERE f.id = :id")
     Filial findByIdWithMatriz(@Param("id") Long id);
 
-    @Query("SELECT f FROM Filial f JOIN FETCH f.matriz")
-    List<Filial> findAllWithMatriz();
+    @Query("SELECT new com.energia.dashboard.filial.FilialDTO(" + FILIAL_DTO_FIELDS + ") " +
+           "FROM Filial f JOIN f.matriz m ORDER BY m.nome, f.nome, f.id")
+    List<FilialDTO> findAllDto();
+
+    // Página seguinte a (nome, id) da filial, usando o índice por nome
+    @Query("SELECT new com.energia.dashboard.filial.FilialDTO(" + FILIAL_DTO_FIELDS + ") " +
+           "FROM Filial f JOIN f.matriz m WHERE f.nome > :nome OR (f.nome = :nome AND f.id > :id) " +
+           "ORDER BY f.nome, f.id")
+    List<FilialDTO> findDtoPage(@Param("nome") String nome, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.energia.dashboard.filial.FilialDTO(" + FILIAL_DTO_FIELDS + ") " +
+           "FROM Filial f JOIN f.matriz m WHERE f.id = :id")
+    Optional<FilialDTO> findDtoById(@Param("id") Long id);
+
+    @Query("SELECT new com.energia.dashboard.filial.FilialDTO(" + FILIAL_DTO_FIELDS + ") " +
+           "FROM Filial f JOIN f.matriz m WHERE f.id IN :ids")
+    List<FilialDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.energia.dashboard.filial.FilialDTO(" + FILIAL_DTO_FIELDS + ") " +
+           "FROM Filial f JOIN f.matriz m WHERE m.id IN :matrizIds ORDER BY f.nome, f.id")
+    List<FilialDTO> findDtoByMatrizIdIn(@Param("matrizIds") Collection<Long> matrizIds);
 
     @Query("SELECT SUM(f.porcentagemEnergia) FROM Filial f WHERE f.matriz.id = :matrizId")
     BigDecimal sumPorcentagemByMatrizId(@Param("matrizId") Long matrizId);
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.energia.dashboard.invoice;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/invoices")
+public class InvoiceController {
+
+    private final InvoiceDataRepository invoiceDataRepository;
+
+    public InvoiceController(InvoiceDataRepository invoiceDataRepository) {
+        this.invoiceDataRepository = invoiceDataRepository;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<InvoiceData>> list(@RequestParam(required = false) Long userId) {
+        if (userId != null) {
+            return ResponseEntity.ok(invoiceDataRepository.findByUserId(userId));
+        }
+        return ResponseEntity.ok(invoiceDataRepository.findAll());
+    }
+
+    @GetMapping("/file/{fileId}")
+    public ResponseEntity<InvoiceData> getByFile(@PathVariable Long fileId) {
+        return invoiceDataRepository.findByUploadedFileId(fileId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
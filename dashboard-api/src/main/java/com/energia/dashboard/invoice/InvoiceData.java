@@ -0,0 +1,112 @@
+package com.energia.dashboard.invoice;
+
+import com.energia.dashboard.file.UploadedFile;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Dados extraídos do PDF de uma conta de energia enviada ao dashboard
+ */
+@Entity
+@Table(name = "invoice_data", indexes = {
+        @Index(name = "idx_invoice_data_file", columnList = "uploaded_file_id", unique = true),
+        @Index(name = "idx_invoice_data_reference", columnList = "reference_month")
+})
+public class InvoiceData {
+
+    public enum Status {
+        PARSED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @OneToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "uploaded_file_id", nullable = false, unique = true)
+    private UploadedFile uploadedFile;
+
+    @Column(name = "uploaded_file_id", insertable = false, updatable = false)
+    private Long uploadedFileId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    // AAAA-MM
+    @Column(name = "reference_month", length = 7)
+    private String referenceMonth;
+
+    @Column(name = "consumption_kwh", precision = 12, scale = 2)
+    private BigDecimal consumptionKwh;
+
+    @Column(name = "injected_kwh", precision = 12, scale = 2)
+    private BigDecimal injectedKwh;
+
+    @Column(name = "compensated_kwh", precision = 12, scale = 2)
+    private BigDecimal compensatedKwh;
+
+    @Column(name = "tariff_flag", length = 30)
+    private String tariffFlag;
+
+    @Column(name = "amount_due", precision = 12, scale = 2)
+    private BigDecimal amountDue;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "parsed_at", nullable = false)
+    private OffsetDateTime parsedAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.parsedAt = OffsetDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public UploadedFile getUploadedFile() { return uploadedFile; }
+    public void setUploadedFile(UploadedFile uploadedFile) { this.uploadedFile = uploadedFile; }
+
+    public Long getUploadedFileId() { return uploadedFileId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getReferenceMonth() { return referenceMonth; }
+    public void setReferenceMonth(String referenceMonth) { this.referenceMonth = referenceMonth; }
+
+    public BigDecimal getConsumptionKwh() { return consumptionKwh; }
+    public void setConsumptionKwh(BigDecimal consumptionKwh) { this.consumptionKwh = consumptionKwh; }
+
+    public BigDecimal getInjectedKwh() { return injectedKwh; }
+    public void setInjectedKwh(BigDecimal injectedKwh) { this.injectedKwh = injectedKwh; }
+
+    public BigDecimal getCompensatedKwh() { return compensatedKwh; }
+    public void setCompensatedKwh(BigDecimal compensatedKwh) { this.compensatedKwh = compensatedKwh; }
+
+    public String getTariffFlag() { return tariffFlag; }
+    public void setTariffFlag(String tariffFlag) { this.tariffFlag = tariffFlag; }
+
+    public BigDecimal getAmountDue() { return amountDue; }
+    public void setAmountDue(BigDecimal amountDue) { this.amountDue = amountDue; }
+
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public OffsetDateTime getParsedAt() { return parsedAt; }
+    public void setParsedAt(OffsetDateTime parsedAt) { this.parsedAt = parsedAt; }
+}
@@ -0,0 +1,23 @@
+package com.energia.dashboard.invoice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface InvoiceDataRepository extends JpaRepository<InvoiceData, Long> {
+
+    Optional<InvoiceData> findByUploadedFileId(Long uploadedFileId);
+
+    @Query("SELECT d FROM InvoiceData d WHERE d.uploadedFile.user.id = :userId ORDER BY d.referenceMonth DESC")
+    List<InvoiceData> findByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InvoiceData d WHERE d.uploadedFileId = :uploadedFileId")
+    void deleteByUploadedFileId(@Param("uploadedFileId") Long uploadedFileId);
+}
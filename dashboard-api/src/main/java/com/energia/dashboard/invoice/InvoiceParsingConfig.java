@@ -0,0 +1,33 @@
+package com.energia.dashboard.invoice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class InvoiceParsingConfig {
+
+    /**
+     * Pool limitado para leitura dos PDFs. Com a fila cheia a tarefa é
+     * descartada (AbortPolicy) e o arquivo fica para a varredura periódica,
+     * sem nunca executar a leitura na thread da requisição.
+     */
+    @Bean(name = "invoiceParsingExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor invoiceParsingExecutor(
+            @Value("${invoice.parsing.threads:2}") int threads,
+            @Value("${invoice.parsing.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("invoice-parser-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
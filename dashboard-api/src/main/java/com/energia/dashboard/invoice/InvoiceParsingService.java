@@ -0,0 +1,149 @@
+package com.energia.dashboard.invoice;
+
+import com.energia.dashboard.file.UploadedFile;
+import com.energia.dashboard.file.UploadedFileRepository;
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.search.SearchType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lê os PDFs enviados e grava os dados extraídos em {@link InvoiceData} e o
+ * texto em {@link InvoiceText}, que entra na busca do arquivo.
+ * <p>
+ * A leitura é enfileirada depois do commit do upload e roda no pool
+ * {@code invoiceParsingExecutor}. Arquivos que não couberam na fila (ou que
+ * chegaram antes desta versão) são encontrados pela varredura periódica.
+ */
+@Service
+public class InvoiceParsingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceParsingService.class);
+
+    private static final int SWEEP_BATCH = 100;
+
+    private final UploadedFileRepository uploadedFileRepository;
+    private final InvoiceDataRepository invoiceDataRepository;
+    private final InvoiceTextRepository invoiceTextRepository;
+    private final InvoicePdfParser parser;
+    private final ThreadPoolTaskExecutor executor;
+    private final SearchIndexListener searchIndexListener;
+
+    // Arquivos na fila ou em leitura, para a varredura não enfileirar de novo
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public InvoiceParsingService(UploadedFileRepository uploadedFileRepository,
+                                 InvoiceDataRepository invoiceDataRepository,
+                                 InvoiceTextRepository invoiceTextRepository,
+                                 InvoicePdfParser parser,
+                                 @Qualifier("invoiceParsingExecutor") ThreadPoolTaskExecutor executor,
+                                 SearchIndexListener searchIndexListener) {
+        this.uploadedFileRepository = uploadedFileRepository;
+        this.invoiceDataRepository = invoiceDataRepository;
+        this.invoiceTextRepository = invoiceTextRepository;
+        this.parser = parser;
+        this.executor = executor;
+        this.searchIndexListener = searchIndexListener;
+    }
+
+    public void submitAfterCommit(Long uploadedFileId) {
+        submitAfterCommit(Collections.singletonList(uploadedFileId));
+    }
+
+    /**
+     * Enfileira a leitura quando a transação atual for confirmada (ou já, se
+     * não houver transação), para o worker enxergar os registros.
+     */
+    public void submitAfterCommit(Collection<Long> uploadedFileIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(uploadedFileIds);
+                }
+            });
+        } else {
+            submit(uploadedFileIds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invoice.parsing.sweep-millis:60000}",
+            initialDelayString = "${invoice.parsing.sweep-millis:60000}")
+    public void sweep() {
+        submit(uploadedFileRepository.findIdsWithoutInvoiceText(InvoiceData.Status.FAILED, PageRequest.of(0, SWEEP_BATCH)));
+    }
+
+    private void submit(Collection<Long> uploadedFileIds) {
+        for (Long id : uploadedFileIds) {
+            if (!inFlight.add(id)) {
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        parse(id);
+                    } finally {
+                        inFlight.remove(id);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                inFlight.remove(id);
+                logger.debug("Fila de leitura cheia; arquivo {} fica para a próxima varredura", id);
+            }
+        }
+    }
+
+    private void parse(Long uploadedFileId) {
+        Optional<InvoiceData> existing = invoiceDataRepository.findByUploadedFileId(uploadedFileId);
+        if (existing.isPresent()
+                && (existing.get().getStatus() == InvoiceData.Status.FAILED || invoiceTextRepository.existsById(uploadedFileId))) {
+            return;
+        }
+        Optional<UploadedFile> fileOpt = uploadedFileRepository.findById(uploadedFileId);
+        if (!fileOpt.isPresent()) {
+            return;
+        }
+        UploadedFile file = fileOpt.get();
+        InvoiceData data;
+        try {
+            String text = parser.extractText(new File(file.getStoragePath()));
+            invoiceTextRepository.save(new InvoiceText(uploadedFileId, text));
+            // Arquivos lidos antes da busca por conteúdo já têm os dados: só falta o texto
+            data = existing.isPresent() ? null : parser.parseText(text);
+            if (data != null) {
+                data.setStatus(InvoiceData.Status.PARSED);
+            }
+        } catch (Exception e) {
+            logger.warn("Não foi possível ler o PDF {} ({}): {}", file.getId(), file.getOriginalFilename(), e.getMessage());
+            if (existing.isPresent()) {
+                // Texto vazio: a varredura não tenta de novo a cada ciclo
+                invoiceTextRepository.save(new InvoiceText(uploadedFileId, ""));
+                return;
+            }
+            data = new InvoiceData();
+            data.setStatus(InvoiceData.Status.FAILED);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            data.setErrorMessage(message.length() > 500 ? message.substring(0, 500) : message);
+        }
+        if (data != null && !existing.isPresent()) {
+            data.setUploadedFile(file);
+            invoiceDataRepository.save(data);
+        }
+        searchIndexListener.refreshAfterCommit(SearchType.FILE, Collections.singletonList(uploadedFileId));
+    }
+}
@@ -0,0 +1,105 @@
+package com.energia.dashboard.invoice;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extrai os dados da conta de energia do texto do PDF. Os padrões cobrem os
+ * rótulos usados pelas distribuidoras (consumo, energia injetada/compensada,
+ * bandeira, total a pagar); campos não encontrados ficam nulos.
+ */
+@Component
+public class InvoicePdfParser {
+
+    // NUMBER, CONSUMPTION, INJECTED, COMPENSATED, TARIFF_FLAG e AMOUNT_DUE são os mesmos de
+    // com.energia.service.InvoiceSummary, no cliente de download (projeto Maven separado):
+    // ao corrigir um padrão, corrigir também lá
+    private static final String NUMBER = "(\\d{1,3}(?:\\.\\d{3})*(?:,\\d+)?|\\d+(?:,\\d+)?)";
+
+    private static final Pattern REFERENCE_NUMERIC = Pattern.compile(
+            "(?:refer[eê]ncia|referente a|m[eê]s/ano|m[eê]s de refer[eê]ncia)\\s*:?\\s*(0?[1-9]|1[0-2])\\s*/\\s*(20\\d{2})");
+    private static final Pattern REFERENCE_NAMED = Pattern.compile(
+            "(?:refer[eê]ncia|referente a|m[eê]s/ano)\\s*:?\\s*(jan|fev|mar|abr|mai|jun|jul|ago|set|out|nov|dez)[a-zç]*\\s*(?:/|de)?\\s*(20\\d{2})");
+    private static final Pattern CONSUMPTION = Pattern.compile(
+            "consumo(?: ativo| faturado| total)?(?: \\(kwh\\))?[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern INJECTED = Pattern.compile(
+            "(?:energia )?injetada[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern COMPENSATED = Pattern.compile(
+            "(?:energia )?compensada[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern TARIFF_FLAG = Pattern.compile(
+            "bandeira(?: tarif[aá]ria)?\\s*:?\\s*(verde|amarela|vermelha(?:\\s*(?:-\\s*)?(?:patamar\\s*)?[12])?|escassez h[ií]drica)");
+    private static final Pattern AMOUNT_DUE = Pattern.compile(
+            "(?:total a pagar|valor a pagar|valor total|total da fatura)[^\\n\\d]{0,20}(?:r\\$)?\\s*" + NUMBER);
+    private static final Pattern DUE_DATE = Pattern.compile(
+            "vencimento[^\\n\\d]{0,20}(\\d{2}/\\d{2}/\\d{4})");
+
+    private static final Pattern HORIZONTAL_SPACE = Pattern.compile("[ \\t\\x0B\\f\\r]+");
+
+    private static final Map<String, Integer> MONTHS = new HashMap<>();
+
+    static {
+        String[] names = {"jan", "fev", "mar", "abr", "mai", "jun", "jul", "ago", "set", "out", "nov", "dez"};
+        for (int i = 0; i < names.length; i++) {
+            MONTHS.put(names[i], i + 1);
+        }
+    }
+
+    public InvoiceData parse(File pdf) throws IOException {
+        return parseText(extractText(pdf));
+    }
+
+    /**
+     * Texto do PDF na ordem de leitura, com espaços repetidos reduzidos
+     * (as quebras de linha são mantidas, os padrões acima dependem delas)
+     */
+    public String extractText(File pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            return HORIZONTAL_SPACE.matcher(stripper.getText(document)).replaceAll(" ").trim();
+        }
+    }
+
+    InvoiceData parseText(String rawText) {
+        String text = rawText.toLowerCase(new Locale("pt", "BR")).replace('\u00a0', ' ');
+        InvoiceData data = new InvoiceData();
+
+        Matcher m = REFERENCE_NUMERIC.matcher(text);
+        if (m.find()) {
+            data.setReferenceMonth(String.format("%s-%02d", m.group(2), Integer.parseInt(m.group(1))));
+        } else if ((m = REFERENCE_NAMED.matcher(text)).find()) {
+            data.setReferenceMonth(String.format("%s-%02d", m.group(2), MONTHS.get(m.group(1))));
+        }
+        data.setConsumptionKwh(decimal(CONSUMPTION, text));
+        data.setInjectedKwh(decimal(INJECTED, text));
+        data.setCompensatedKwh(decimal(COMPENSATED, text));
+        if ((m = TARIFF_FLAG.matcher(text)).find()) {
+            data.setTariffFlag(m.group(1).replaceAll("\\s+", " "));
+        }
+        data.setAmountDue(decimal(AMOUNT_DUE, text));
+        if ((m = DUE_DATE.matcher(text)).find()) {
+            data.setDueDate(LocalDate.parse(m.group(1), DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        }
+        return data;
+    }
+
+    private static BigDecimal decimal(Pattern pattern, String text) {
+        Matcher m = pattern.matcher(text);
+        if (!m.find()) {
+            return null;
+        }
+        return new BigDecimal(m.group(1).replace(".", "").replace(',', '.'));
+    }
+}
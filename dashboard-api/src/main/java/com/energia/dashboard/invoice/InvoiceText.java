@@ -0,0 +1,50 @@
+package com.energia.dashboard.invoice;
+
+import javax.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Texto extraído do PDF de uma conta, usado pela busca por conteúdo (número
+ * da instalação, endereço, número da fatura). Fica fora de
+ * {@link InvoiceData} para as consultas dos dados extraídos não carregarem
+ * o texto.
+ */
+@Entity
+@Table(name = "invoice_text")
+public class InvoiceText {
+
+    @Id
+    @Column(name = "uploaded_file_id")
+    private Long uploadedFileId;
+
+    @Column(name = "content", nullable = false, columnDefinition = "text")
+    private String content;
+
+    @Column(name = "extracted_at", nullable = false)
+    private OffsetDateTime extractedAt;
+
+    protected InvoiceText() {
+    }
+
+    public InvoiceText(Long uploadedFileId, String content) {
+        this.uploadedFileId = uploadedFileId;
+        this.content = content;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.extractedAt = OffsetDateTime.now();
+    }
+
+    public Long getUploadedFileId() {
+        return uploadedFileId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public OffsetDateTime getExtractedAt() {
+        return extractedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.energia.dashboard.invoice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface InvoiceTextRepository extends JpaRepository<InvoiceText, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InvoiceText t WHERE t.uploadedFileId = :uploadedFileId")
+    void deleteByUploadedFileId(@Param("uploadedFileId") Long uploadedFileId);
+}
@@ -0,0 +1,96 @@
+package com.energia.dashboard.matriz;
+
+import java.math.BigDecimal;
+
+/**
+ * Cálculo da energia alocada a matrizes e filiais em ponto fixo.
+ * <p>
+ * Geração (kW) e porcentagens têm duas casas decimais no banco; como inteiros
+ * em centésimos, {@code kW × % / 100} é exatamente o produto dos dois, em
+ * milionésimos de kW (mW). Não há arredondamento nem objetos intermediários:
+ * o resultado é igual ao de {@code geracaoKw.multiply(porcentagem).divide(100)}
+ * e {@link #kwArredondado} reproduz {@code divide(100, 2, HALF_UP)}.
+ * <p>
+ * {@link #alocar} calcula uma carteira inteira em arrays primitivos.
+ */
+public final class AlocacaoEnergia {
+
+    // mW por centésimo de kW
+    private static final long MW_POR_CENTESIMO = 10_000;
+
+    private AlocacaoEnergia() {
+    }
+
+    /**
+     * Valor com até duas casas decimais em centésimos ({@code 12.34 → 1234})
+     *
+     * @throws ArithmeticException se o valor tiver mais de duas casas decimais
+     */
+    public static long centesimos(BigDecimal valor) {
+        return valor.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Energia, em mW, correspondente à porcentagem da geração
+     *
+     * @param geracaoCentesimos geração em centésimos de kW
+     * @param porcentagemCentesimos porcentagem em centésimos de ponto percentual
+     */
+    public static long miliwatts(long geracaoCentesimos, long porcentagemCentesimos) {
+        return geracaoCentesimos * porcentagemCentesimos;
+    }
+
+    /**
+     * mW em kW, exato, com a mesma representação da divisão por 100 com
+     * BigDecimal (ao menos quatro casas decimais)
+     */
+    public static BigDecimal kw(long miliwatts) {
+        if (miliwatts % 100 == 0) {
+            return BigDecimal.valueOf(miliwatts / 100, 4);
+        }
+        if (miliwatts % 10 == 0) {
+            return BigDecimal.valueOf(miliwatts / 10, 5);
+        }
+        return BigDecimal.valueOf(miliwatts, 6);
+    }
+
+    /**
+     * mW em kW com duas casas decimais, arredondando a metade para longe do zero
+     */
+    public static BigDecimal kwArredondado(long miliwatts) {
+        return BigDecimal.valueOf(centesimosArredondados(miliwatts), 2);
+    }
+
+    static long centesimosArredondados(long miliwatts) {
+        long metade = MW_POR_CENTESIMO / 2;
+        return miliwatts >= 0
+                ? (miliwatts + metade) / MW_POR_CENTESIMO
+                : -((-miliwatts + metade) / MW_POR_CENTESIMO);
+    }
+
+    /**
+     * Energia de uma carteira de matrizes e filiais, numa passada.
+     *
+     * @param geracao geração de cada matriz, em centésimos de kW
+     * @param porcentagemMatriz porcentagem própria de cada matriz, em centésimos
+     * @param matrizDaFilial índice (em {@code geracao}) da matriz de cada filial
+     * @param porcentagemFilial porcentagem de cada filial, em centésimos
+     * @param energiaMatriz saída: energia própria de cada matriz, em mW
+     * @param energiaFiliais saída: soma da energia das filiais de cada matriz, em mW
+     * @param energiaFilial saída: energia de cada filial, em mW
+     */
+    public static void alocar(long[] geracao, int[] porcentagemMatriz,
+                              int[] matrizDaFilial, int[] porcentagemFilial,
+                              long[] energiaMatriz, long[] energiaFiliais, long[] energiaFilial) {
+        for (int m = 0; m < geracao.length; m++) {
+            energiaMatriz[m] = geracao[m] * porcentagemMatriz[m];
+            energiaFiliais[m] = 0;
+        }
+        for (int f = 0; f < matrizDaFilial.length; f++) {
+            int m = matrizDaFilial[f];
+            long energia = geracao[m] * porcentagemFilial[f];
+            energiaFilial[f] = energia;
+            energiaFiliais[m] += energia;
+        }
+    }
+}
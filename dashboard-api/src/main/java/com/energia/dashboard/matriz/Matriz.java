@@ -1,6 +1,9 @@
 package com.energia.dashboard.matriz;
 
 import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.summary.DashboardSummaryListener;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -10,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, DashboardSummaryListener.class})
 @Table(name = "matrizes", indexes = {
         @Index(name = "idx_matrizes_nome", columnList = "nome")
 })
@@ -52,6 +56,7 @@ public class Matriz {
     private BigDecimal porcentagemMatriz;
 
     @OneToMany(mappedBy = "matriz", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<Filial> filiais = new ArrayList<>();
 
     @Column(name = "created_at", nullable = false)
@@ -159,10 +164,12 @@ public class Matriz {
     }
 
     public BigDecimal getGeracaoMatrizKw() {
-        return geracaoKw.multiply(porcentagemMatriz).divide(BigDecimal.valueOf(100));
+        return AlocacaoEnergia.kw(AlocacaoEnergia.miliwatts(
+                AlocacaoEnergia.centesimos(geracaoKw), AlocacaoEnergia.centesimos(porcentagemMatriz)));
     }
 
     public BigDecimal getGeracaoFiliaisKw() {
-        return geracaoKw.multiply(getPorcentagemFiliais()).divide(BigDecimal.valueOf(100));
+        return AlocacaoEnergia.kw(AlocacaoEnergia.miliwatts(
+                AlocacaoEnergia.centesimos(geracaoKw), 10_000 - AlocacaoEnergia.centesimos(porcentagemMatriz)));
     }
 }
\ No newline at end of file
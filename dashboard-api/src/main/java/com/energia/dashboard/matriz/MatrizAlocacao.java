@@ -0,0 +1,81 @@
+package com.energia.dashboard.matriz;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Totais das filiais de uma matriz, mantidos a cada inclusão, alteração ou
+ * exclusão de filial (ver {@link MatrizAlocacaoService}), para o resumo da
+ * matriz não precisar agregar as filiais a cada consulta.
+ * <p>
+ * Guarda também uma cópia da porcentagem da matriz: o limite de 100% é
+ * verificado só com os dados desta linha, num único UPDATE.
+ */
+@Entity
+@Table(name = "matriz_alocacoes")
+public class MatrizAlocacao {
+
+    @Id
+    @Column(name = "matriz_id")
+    private Long matrizId;
+
+    // Com default para o ddl-auto=update incluir a coluna em tabelas já populadas
+    @Column(name = "porcentagem_matriz", nullable = false, precision = 5, scale = 2,
+            columnDefinition = "numeric(5,2) default 0 not null")
+    private BigDecimal porcentagemMatriz = BigDecimal.ZERO;
+
+    @Column(name = "porcentagem_filiais", nullable = false, precision = 5, scale = 2)
+    private BigDecimal porcentagemFiliais = BigDecimal.ZERO;
+
+    @Column(name = "quantidade_filiais", nullable = false)
+    private int quantidadeFiliais;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    protected MatrizAlocacao() {
+    }
+
+    public MatrizAlocacao(Long matrizId) {
+        this.matrizId = matrizId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = OffsetDateTime.now();
+    }
+
+    public Long getMatrizId() {
+        return matrizId;
+    }
+
+    public BigDecimal getPorcentagemMatriz() {
+        return porcentagemMatriz;
+    }
+
+    public void setPorcentagemMatriz(BigDecimal porcentagemMatriz) {
+        this.porcentagemMatriz = porcentagemMatriz;
+    }
+
+    public BigDecimal getPorcentagemFiliais() {
+        return porcentagemFiliais;
+    }
+
+    public void setPorcentagemFiliais(BigDecimal porcentagemFiliais) {
+        this.porcentagemFiliais = porcentagemFiliais;
+    }
+
+    public int getQuantidadeFiliais() {
+        return quantidadeFiliais;
+    }
+
+    public void setQuantidadeFiliais(int quantidadeFiliais) {
+        this.quantidadeFiliais = quantidadeFiliais;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
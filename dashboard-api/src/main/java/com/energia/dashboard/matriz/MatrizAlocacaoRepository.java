@@ -0,0 +1,62 @@
+package com.energia.dashboard.matriz;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface MatrizAlocacaoRepository extends JpaRepository<MatrizAlocacao, Long> {
+
+    @Query("SELECT new com.energia.dashboard.matriz.MatrizResumo(" +
+           "m.id, m.nome, m.endereco, m.responsavel, m.telefone, m.geracaoKw, m.porcentagemMatriz, " +
+           "a.porcentagemFiliais, a.quantidadeFiliais) " +
+           "FROM Matriz m, MatrizAlocacao a " +
+           "WHERE a.matrizId = m.id AND m.id = :matrizId")
+    MatrizResumo findResumo(@Param("matrizId") Long matrizId);
+
+    // Matrizes anteriores aos totais mantidos
+    @Query("SELECT m.id FROM Matriz m WHERE NOT EXISTS (SELECT a.matrizId FROM MatrizAlocacao a WHERE a.matrizId = m.id)")
+    List<Long> findMatrizIdsWithoutAlocacao();
+
+    /**
+     * Soma {@code delta} ao total das filiais se o resultado não passar de
+     * 100% (liberações, com delta negativo, sempre passam). O UPDATE trava a
+     * linha da matriz: escritas concorrentes esperam e são verificadas contra
+     * o total já atualizado.
+     *
+     * @return 1 se aplicado; 0 se excederia o limite ou a linha não existe
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE MatrizAlocacao a SET a.porcentagemFiliais = a.porcentagemFiliais + :delta, " +
+           "a.quantidadeFiliais = a.quantidadeFiliais + :quantidade, a.updatedAt = :agora " +
+           "WHERE a.matrizId = :matrizId " +
+           "AND (:delta <= 0 OR a.porcentagemMatriz + a.porcentagemFiliais + :delta <= 100)")
+    int reservar(@Param("matrizId") Long matrizId, @Param("delta") BigDecimal delta,
+                 @Param("quantidade") int quantidade, @Param("agora") OffsetDateTime agora);
+
+    /**
+     * Altera a porcentagem da matriz se ela, somada às filiais, não passar de 100%
+     *
+     * @return 1 se aplicado; 0 se excederia o limite ou a linha não existe
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE MatrizAlocacao a SET a.porcentagemMatriz = :porcentagem, a.updatedAt = :agora " +
+           "WHERE a.matrizId = :matrizId " +
+           "AND (:porcentagem <= a.porcentagemMatriz OR :porcentagem + a.porcentagemFiliais <= 100)")
+    int alterarPorcentagemMatriz(@Param("matrizId") Long matrizId, @Param("porcentagem") BigDecimal porcentagem,
+                                 @Param("agora") OffsetDateTime agora);
+
+    @Query("SELECT 100 - a.porcentagemMatriz - a.porcentagemFiliais FROM MatrizAlocacao a WHERE a.matrizId = :matrizId")
+    BigDecimal findDisponivel(@Param("matrizId") Long matrizId);
+
+    // Linhas gravadas antes da cópia da porcentagem da matriz (a da matriz é sempre maior que zero)
+    @Modifying
+    @Query("UPDATE MatrizAlocacao a SET a.porcentagemMatriz = " +
+           "(SELECT m.porcentagemMatriz FROM Matriz m WHERE m.id = a.matrizId) " +
+           "WHERE a.porcentagemMatriz = 0")
+    int sincronizarPorcentagemMatriz();
+}
@@ -0,0 +1,171 @@
+package com.energia.dashboard.matriz;
+
+import com.energia.dashboard.config.CacheConfig;
+import com.energia.dashboard.filial.FilialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Mantém os totais de filiais por matriz ({@link MatrizAlocacao}) e serve o
+ * resumo da matriz a partir do cache {@code matrizResumo}.
+ * <p>
+ * {@link #reservar} e {@link #alterarPorcentagemMatriz} devem ser chamados na
+ * mesma transação que altera as filiais ou a matriz, antes da alteração: o
+ * limite de 100% é verificado e o total atualizado num único UPDATE na linha
+ * da matriz, que fica travada até o commit. Escritas concorrentes na mesma
+ * matriz são serializadas por essa linha; matrizes diferentes não disputam
+ * nenhum lock. O cache é limpo após o commit.
+ */
+@Service
+public class MatrizAlocacaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatrizAlocacaoService.class);
+
+    private final MatrizAlocacaoRepository alocacaoRepository;
+    private final MatrizRepository matrizRepository;
+    private final FilialRepository filialRepository;
+    private final TransactionTemplate novaTransacao;
+
+    public MatrizAlocacaoService(MatrizAlocacaoRepository alocacaoRepository, MatrizRepository matrizRepository,
+                                 FilialRepository filialRepository, PlatformTransactionManager transactionManager) {
+        this.alocacaoRepository = alocacaoRepository;
+        this.matrizRepository = matrizRepository;
+        this.filialRepository = filialRepository;
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return o resumo, ou null se a matriz não existir
+     */
+    @Cacheable(cacheNames = CacheConfig.MATRIZ_RESUMO, key = "#matrizId", unless = "#result == null")
+    @Transactional
+    public MatrizResumo getResumo(Long matrizId) {
+        MatrizResumo resumo = alocacaoRepository.findResumo(matrizId);
+        if (resumo == null && matrizRepository.existsById(matrizId)) {
+            // Matriz criada antes dos totais mantidos e ainda não preenchida pela carga inicial
+            criarSeFaltar(matrizId);
+            resumo = alocacaoRepository.findResumo(matrizId);
+        }
+        return resumo;
+    }
+
+    /**
+     * Recalcula os totais a partir das filiais. Só para a criação da matriz:
+     * nas alterações de filiais os totais são mantidos por {@link #reservar}.
+     */
+    @CacheEvict(cacheNames = CacheConfig.MATRIZ_RESUMO, key = "#matrizId")
+    @Transactional
+    public void recalcular(Long matrizId) {
+        atualizar(matrizId);
+    }
+
+    /**
+     * Reserva {@code delta} pontos percentuais para as filiais da matriz (ou
+     * libera, com delta negativo) e ajusta a quantidade de filiais.
+     *
+     * @return false, sem alterar nada, se o total passaria de 100%
+     */
+    @CacheEvict(cacheNames = CacheConfig.MATRIZ_RESUMO, key = "#matrizId")
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reservar(Long matrizId, BigDecimal delta, int quantidade) {
+        if (alocacaoRepository.reservar(matrizId, delta, quantidade, OffsetDateTime.now()) == 1) {
+            return true;
+        }
+        // Nenhuma linha: ou o limite foi atingido, ou a matriz ainda não tem totais
+        return criarSeFaltar(matrizId)
+                && alocacaoRepository.reservar(matrizId, delta, quantidade, OffsetDateTime.now()) == 1;
+    }
+
+    /**
+     * @return false, sem alterar nada, se a nova porcentagem somada às
+     *         filiais passaria de 100%
+     */
+    @CacheEvict(cacheNames = CacheConfig.MATRIZ_RESUMO, key = "#matrizId")
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean alterarPorcentagemMatriz(Long matrizId, BigDecimal porcentagem) {
+        if (alocacaoRepository.alterarPorcentagemMatriz(matrizId, porcentagem, OffsetDateTime.now()) == 1) {
+            return true;
+        }
+        return criarSeFaltar(matrizId)
+                && alocacaoRepository.alterarPorcentagemMatriz(matrizId, porcentagem, OffsetDateTime.now()) == 1;
+    }
+
+    /**
+     * Porcentagem ainda livre na matriz, para mensagens de erro
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal disponivel(Long matrizId) {
+        BigDecimal disponivel = alocacaoRepository.findDisponivel(matrizId);
+        return disponivel == null ? BigDecimal.ZERO : disponivel;
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.MATRIZ_RESUMO, key = "#matrizId")
+    @Transactional
+    public void remover(Long matrizId) {
+        if (alocacaoRepository.existsById(matrizId)) {
+            alocacaoRepository.deleteById(matrizId);
+        }
+    }
+
+    /**
+     * Preenche os totais das matrizes cadastradas antes desta tabela existir
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void preencherFaltantes() {
+        alocacaoRepository.sincronizarPorcentagemMatriz();
+        List<Long> ids = alocacaoRepository.findMatrizIdsWithoutAlocacao();
+        ids.forEach(this::atualizar);
+        if (!ids.isEmpty()) {
+            logger.info("Totais de alocação calculados para {} matriz(es)", ids.size());
+        }
+    }
+
+    /**
+     * Cria, numa transação própria e já confirmada, os totais de uma matriz
+     * que ainda não os tem. Se outra requisição criar a linha ao mesmo tempo,
+     * a chave duplicada é ignorada e a linha dela é usada.
+     *
+     * @return true se a linha não existia (a operação deve ser repetida)
+     */
+    private boolean criarSeFaltar(Long matrizId) {
+        if (alocacaoRepository.existsById(matrizId)) {
+            return false;
+        }
+        try {
+            novaTransacao.executeWithoutResult(status -> {
+                if (!alocacaoRepository.existsById(matrizId)) {
+                    atualizar(matrizId);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Totais da matriz {} criados por outra requisição", matrizId);
+        }
+        return true;
+    }
+
+    private void atualizar(Long matrizId) {
+        BigDecimal porcentagem = filialRepository.sumPorcentagemByMatrizId(matrizId);
+        MatrizAlocacao alocacao = alocacaoRepository.findById(matrizId).orElseGet(() -> new MatrizAlocacao(matrizId));
+        matrizRepository.findById(matrizId).ifPresent(m -> alocacao.setPorcentagemMatriz(m.getPorcentagemMatriz()));
+        alocacao.setPorcentagemFiliais(porcentagem == null ? BigDecimal.ZERO : porcentagem);
+        alocacao.setQuantidadeFiliais((int) filialRepository.countByMatrizId(matrizId));
+        alocacaoRepository.save(alocacao);
+    }
+}
@@ -1,6 +1,15 @@
 package com.energia.dashboard.matriz;
 
+import com.energia.dashboard.config.QueryBudget;
+import com.energia.dashboard.file.UploadedFileRepository;
+import com.energia.dashboard.filial.FilialDTO;
 import com.energia.dashboard.filial.FilialRepository;
+import com.energia.dashboard.search.NameCursor;
+import com.energia.dashboard.search.SearchCursor;
+import com.energia.dashboard.search.SearchHit;
+import com.energia.dashboard.search.SearchIndex;
+import com.energia.dashboard.search.SearchType;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,7 +19,12 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -18,47 +32,108 @@ import java.util.Optional;
 @Validated
 public class MatrizController {
 
+    private static final int SEARCH_LIMIT = 50;
+
     private final MatrizRepository matrizRepository;
     private final FilialRepository filialRepository;
+    private final UploadedFileRepository uploadedFileRepository;
+    private final SearchIndex searchIndex;
+    private final MatrizAlocacaoService matrizAlocacaoService;
 
-    public MatrizController(MatrizRepository matrizRepository, FilialRepository filialRepository) {
+    public MatrizController(MatrizRepository matrizRepository, FilialRepository filialRepository,
+                            UploadedFileRepository uploadedFileRepository, SearchIndex searchIndex,
+                            MatrizAlocacaoService matrizAlocacaoService) {
         this.matrizRepository = matrizRepository;
         this.filialRepository = filialRepository;
+        this.uploadedFileRepository = uploadedFileRepository;
+        this.searchIndex = searchIndex;
+        this.matrizAlocacaoService = matrizAlocacaoService;
     }
 
     @GetMapping
-    public List<Matriz> list() {
-        return matrizRepository.findAll();
+    @QueryBudget(1)
+    public List<MatrizDTO> list() {
+        return matrizRepository.findAllDto();
     }
 
+    /**
+     * Matrizes e filiais em duas consultas, agrupadas aqui
+     */
     @GetMapping("/with-filiais")
-    public List<Matriz> listWithFiliais() {
-        return matrizRepository.findAllWithFiliais();
+    @QueryBudget(2)
+    public List<MatrizDTO> listWithFiliais() {
+        List<MatrizDTO> matrizes = matrizRepository.findAllDto();
+        attachFiliais(matrizes, filialRepository.findAllDto());
+        return matrizes;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Matriz> get(@PathVariable Long id) {
-        return matrizRepository.findById(id)
+    @QueryBudget(1)
+    public ResponseEntity<MatrizDTO> get(@PathVariable Long id) {
+        return matrizRepository.findDtoById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/{id}/with-filiais")
-    public ResponseEntity<Matriz> getWithFiliais(@PathVariable Long id) {
-        Matriz matriz = matrizRepository.findByIdWithFiliais(id);
-        if (matriz == null) {
+    @QueryBudget(2)
+    public ResponseEntity<MatrizDTO> getWithFiliais(@PathVariable Long id) {
+        Optional<MatrizDTO> matriz = matrizRepository.findDtoById(id);
+        if (!matriz.isPresent()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(matriz);
+        matriz.get().setFiliais(filialRepository.findDtoByMatrizIdIn(Collections.singletonList(id)));
+        return ResponseEntity.ok(matriz.get());
+    }
+
+    private static void attachFiliais(List<MatrizDTO> matrizes, List<FilialDTO> filiais) {
+        Map<Long, List<FilialDTO>> byMatriz = new HashMap<>();
+        for (FilialDTO filial : filiais) {
+            byMatriz.computeIfAbsent(filial.getMatrizId(), k -> new ArrayList<>()).add(filial);
+        }
+        for (MatrizDTO matriz : matrizes) {
+            matriz.setFiliais(byMatriz.getOrDefault(matriz.getId(), new ArrayList<>()));
+        }
     }
 
+    /**
+     * Busca por nome, responsável ou endereço, sem distinção de acentos, do
+     * mais relevante para o menos relevante. Sem {@code q}, lista por nome,
+     * uma página por vez.
+     * Paginação pelo cabeçalho {@code X-Next-Cursor} e parâmetro {@code cursor}.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<Matriz>> search(@RequestParam String q) {
+    @QueryBudget(1)
+    public ResponseEntity<List<MatrizDTO>> search(@RequestParam(required = false) String q,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
         if (q == null || q.trim().isEmpty()) {
-            return ResponseEntity.ok(matrizRepository.findAll());
+            NameCursor position = NameCursor.parse(cursor);
+            int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+            List<MatrizDTO> rows = matrizRepository.findDtoPage(position.getNome(), position.getId(),
+                    PageRequest.of(0, size + 1));
+            return page(rows, size, NameCursor.next(rows, size, MatrizDTO::getNome, MatrizDTO::getId));
         }
-        List<Matriz> matrizes = matrizRepository.searchMatrizes(q.trim());
-        return ResponseEntity.ok(matrizes);
+        int offset = SearchCursor.parse(cursor);
+        int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+        List<SearchHit> hits = searchIndex.search(q, EnumSet.of(SearchType.MATRIZ), offset, size + 1);
+        List<Long> ids = SearchCursor.ids(hits, size);
+
+        String next = SearchCursor.next(hits, offset, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        List<MatrizDTO> rows = ids.isEmpty() ? Collections.emptyList() : matrizRepository.findDtoByIdIn(ids);
+        return response.body(SearchCursor.inHitOrder(ids, rows, MatrizDTO::getId));
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> rows, int size, String next) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(rows.size() > size ? rows.subList(0, size) : rows);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -81,7 +156,8 @@ public class MatrizController {
         }
 
         Matriz saved = matrizRepository.save(matriz);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        matrizAlocacaoService.recalcular(saved.getId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(MatrizDTO.of(saved));
     }
 
     @PutMapping("/{id}")
@@ -103,15 +179,12 @@ public class MatrizController {
                     .body("Porcentagem da matriz deve ser maior que zero");
         }
 
-        // Verificar se a soma das porcentagens das filiais não excede o disponível
-        BigDecimal porcentagemFiliais = filialRepository.sumPorcentagemByMatrizId(id);
-        if (porcentagemFiliais != null) {
-            BigDecimal porcentagemDisponivel = BigDecimal.valueOf(100).subtract(matriz.getPorcentagemMatriz());
-            if (porcentagemFiliais.compareTo(porcentagemDisponivel) > 0) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body("A porcentagem da matriz não pode ser alterada pois excederia o total de 100% " +
-                              "considerando as filiais já cadastradas (" + porcentagemFiliais + "%)");
-            }
+        // Verificar se a soma das porcentagens das filiais não excede o disponível (atômico com as filiais)
+        if (!matrizAlocacaoService.alterarPorcentagemMatriz(id, matriz.getPorcentagemMatriz())) {
+            BigDecimal porcentagemFiliais = filialRepository.sumPorcentagemByMatrizId(id);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("A porcentagem da matriz não pode ser alterada pois excederia o total de 100% " +
+                          "considerando as filiais já cadastradas (" + porcentagemFiliais + "%)");
         }
 
         Matriz entity = existing.get();
@@ -122,8 +195,9 @@ public class MatrizController {
         entity.setGeracaoKw(matriz.getGeracaoKw());
         entity.setPorcentagemMatriz(matriz.getPorcentagemMatriz());
 
+        // O resumo (geração e porcentagem) já foi descartado por alterarPorcentagemMatriz
         Matriz saved = matrizRepository.save(entity);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.ok(MatrizDTO.of(saved));
     }
 
     @DeleteMapping("/{id}")
@@ -134,56 +208,29 @@ public class MatrizController {
         }
 
         // Verificar se há filiais associadas
-        List<com.energia.dashboard.filial.Filial> filiais = filialRepository.findByMatrizId(id);
-        if (!filiais.isEmpty()) {
+        long filiais = filialRepository.countByMatrizId(id);
+        if (filiais > 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Não é possível excluir a matriz pois existem " + filiais.size() + " filiais associadas");
+                    .body("Não é possível excluir a matriz pois existem " + filiais + " filiais associadas");
         }
 
+        uploadedFileRepository.unlinkMatriz(id);
+        matrizAlocacaoService.remover(id);
         matrizRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Resumo da distribuição de energia da matriz, servido do cache de
+     * {@link MatrizAlocacaoService}
+     */
     @GetMapping("/{id}/resumo")
-    public ResponseEntity<?> getResumo(@PathVariable Long id) {
-        Optional<Matriz> matrizOpt = matrizRepository.findById(id);
-        if (!matrizOpt.isPresent()) {
+    @QueryBudget(1)
+    public ResponseEntity<MatrizResumo> getResumo(@PathVariable Long id) {
+        MatrizResumo resumo = matrizAlocacaoService.getResumo(id);
+        if (resumo == null) {
             return ResponseEntity.notFound().build();
         }
-
-        Matriz matriz = matrizOpt.get();
-        BigDecimal porcentagemFiliais = filialRepository.sumPorcentagemByMatrizId(id);
-        if (porcentagemFiliais == null) {
-            porcentagemFiliais = BigDecimal.ZERO;
-        }
-
-        MatrizResumo resumo = new MatrizResumo();
-        resumo.setMatriz(matriz);
-        resumo.setPorcentagemTotalFiliais(porcentagemFiliais);
-        resumo.setPorcentagemDisponivel(BigDecimal.valueOf(100).subtract(matriz.getPorcentagemMatriz()).subtract(porcentagemFiliais));
-        resumo.setQuantidadeFiliais(filialRepository.findByMatrizId(id).size());
-
         return ResponseEntity.ok(resumo);
     }
-
-    // Classe interna para resumo
-    public static class MatrizResumo {
-        private Matriz matriz;
-        private BigDecimal porcentagemTotalFiliais;
-        private BigDecimal porcentagemDisponivel;
-        private int quantidadeFiliais;
-
-        // Getters and Setters
-        public Matriz getMatriz() { return matriz; }
-        public void setMatriz(Matriz matriz) { this.matriz = matriz; }
-
-        public BigDecimal getPorcentagemTotalFiliais() { return porcentagemTotalFiliais; }
-        public void setPorcentagemTotalFiliais(BigDecimal porcentagemTotalFiliais) { this.porcentagemTotalFiliais = porcentagemTotalFiliais; }
-
-        public BigDecimal getPorcentagemDisponivel() { return porcentagemDisponivel; }
-        public void setPorcentagemDisponivel(BigDecimal porcentagemDisponivel) { this.porcentagemDisponivel = porcentagemDisponivel; }
-
-        public int getQuantidadeFiliais() { return quantidadeFiliais; }
-        public void setQuantidadeFiliais(int quantidadeFiliais) { this.quantidadeFiliais = quantidadeFiliais; }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.energia.dashboard.matriz;
+
+import com.energia.dashboard.filial.FilialDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Matriz lida por projeção. {@code filiais} só é preenchido nos endpoints
+ * {@code with-filiais}, por uma segunda consulta (sem JOIN FETCH, que
+ * repetiria a matriz em cada linha de filial).
+ */
+public class MatrizDTO {
+
+    private final Long id;
+    private final String nome;
+    private final String endereco;
+    private final String responsavel;
+    private final String telefone;
+    private final BigDecimal geracaoKw;
+    private final BigDecimal porcentagemMatriz;
+    private final OffsetDateTime createdAt;
+    private final OffsetDateTime updatedAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FilialDTO> filiais;
+
+    public MatrizDTO(Long id, String nome, String endereco, String responsavel, String telefone,
+                     BigDecimal geracaoKw, BigDecimal porcentagemMatriz,
+                     OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+        this.id = id;
+        this.nome = nome;
+        this.endereco = endereco;
+        this.responsavel = responsavel;
+        this.telefone = telefone;
+        this.geracaoKw = geracaoKw;
+        this.porcentagemMatriz = porcentagemMatriz;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static MatrizDTO of(Matriz matriz) {
+        return new MatrizDTO(matriz.getId(), matriz.getNome(), matriz.getEndereco(), matriz.getResponsavel(),
+                matriz.getTelefone(), matriz.getGeracaoKw(), matriz.getPorcentagemMatriz(),
+                matriz.getCreatedAt(), matriz.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+    public String getNome() { return nome; }
+    public String getEndereco() { return endereco; }
+    public String getResponsavel() { return responsavel; }
+    public String getTelefone() { return telefone; }
+    public BigDecimal getGeracaoKw() { return geracaoKw; }
+    public BigDecimal getPorcentagemMatriz() { return porcentagemMatriz; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+
+    public List<FilialDTO> getFiliais() { return filiais; }
+    public void setFiliais(List<FilialDTO> filiais) { this.filiais = filiais; }
+}
@@ -1,28 +1,40 @@
 package com.energia.dashboard.matriz;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MatrizRepository extends JpaRepository<Matriz, Long> {
 
+    // Argumentos do construtor de MatrizDTO
+    String MATRIZ_DTO_FIELDS = "m.id, m.nome, m.endereco, m.responsavel, m.telefone, m.geracaoKw, m.porcentagemMatriz, " +
+                               "m.createdAt, m.updatedAt";
+
     List<Matriz> findByNomeContainingIgnoreCase(String nome);
 
     List<Matriz> findByResponsavelContainingIgnoreCase(String responsavel);
 
-    @Query("SELECT m FROM Matriz m WHERE " +
-           "LOWER(m.nome) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(m.responsavel) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(m.endereco) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Matriz> searchMatrizes(@Param("searchTerm") String searchTerm);
+    @Query("SELECT new com.energia.dashboard.matriz.MatrizDTO(" + MATRIZ_DTO_FIELDS + ") " +
+           "FROM Matriz m ORDER BY m.nome, m.id")
+    List<MatrizDTO> findAllDto();
+
+    // Página seguinte a (nome, id), na ordem da listagem
+    @Query("SELECT new com.energia.dashboard.matriz.MatrizDTO(" + MATRIZ_DTO_FIELDS + ") " +
+           "FROM Matriz m WHERE m.nome > :nome OR (m.nome = :nome AND m.id > :id) ORDER BY m.nome, m.id")
+    List<MatrizDTO> findDtoPage(@Param("nome") String nome, @Param("id") Long id, Pageable pageable);
 
-    @Query("SELECT m FROM Matriz m LEFT JOIN FETCH m.filiais WHERE m.id = :id")
-    Matriz findByIdWithFiliais(@Param("id") Long id);
+    @Query("SELECT new com.energia.dashboard.matriz.MatrizDTO(" + MATRIZ_DTO_FIELDS + ") " +
+           "FROM Matriz m WHERE m.id = :id")
+    Optional<MatrizDTO> findDtoById(@Param("id") Long id);
 
-    @Query("SELECT m FROM Matriz m LEFT JOIN FETCH m.filiais")
-    List<Matriz> findAllWithFiliais();
-}
\ No newline at end of file
+    @Query("SELECT new com.energia.dashboard.matriz.MatrizDTO(" + MATRIZ_DTO_FIELDS + ") " +
+           "FROM Matriz m WHERE m.id IN :ids")
+    List<MatrizDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,76 @@
+package com.energia.dashboard.matriz;
+
+import java.math.BigDecimal;
+
+/**
+ * Resumo da distribuição de energia de uma matriz: porcentagens e kW da
+ * matriz, das filiais e ainda disponíveis. Imutável, pode ficar em cache.
+ */
+public class MatrizResumo {
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private final MatrizInfo matriz;
+    private final BigDecimal porcentagemTotalFiliais;
+    private final BigDecimal porcentagemDisponivel;
+    private final int quantidadeFiliais;
+    private final BigDecimal geracaoMatrizKw;
+    private final BigDecimal geracaoFiliaisKw;
+    private final BigDecimal geracaoDisponivelKw;
+
+    public MatrizResumo(Long id, String nome, String endereco, String responsavel, String telefone,
+                        BigDecimal geracaoKw, BigDecimal porcentagemMatriz,
+                        BigDecimal porcentagemTotalFiliais, int quantidadeFiliais) {
+        this.matriz = new MatrizInfo(id, nome, endereco, responsavel, telefone, geracaoKw, porcentagemMatriz);
+        this.porcentagemTotalFiliais = porcentagemTotalFiliais;
+        this.porcentagemDisponivel = CEM.subtract(porcentagemMatriz).subtract(porcentagemTotalFiliais);
+        this.quantidadeFiliais = quantidadeFiliais;
+        long geracao = AlocacaoEnergia.centesimos(geracaoKw);
+        this.geracaoMatrizKw = kw(geracao, porcentagemMatriz);
+        this.geracaoFiliaisKw = kw(geracao, porcentagemTotalFiliais);
+        this.geracaoDisponivelKw = kw(geracao, porcentagemDisponivel);
+    }
+
+    private static BigDecimal kw(long geracaoCentesimos, BigDecimal porcentagem) {
+        return AlocacaoEnergia.kwArredondado(
+                AlocacaoEnergia.miliwatts(geracaoCentesimos, AlocacaoEnergia.centesimos(porcentagem)));
+    }
+
+    public MatrizInfo getMatriz() { return matriz; }
+    public BigDecimal getPorcentagemTotalFiliais() { return porcentagemTotalFiliais; }
+    public BigDecimal getPorcentagemDisponivel() { return porcentagemDisponivel; }
+    public int getQuantidadeFiliais() { return quantidadeFiliais; }
+    public BigDecimal getGeracaoMatrizKw() { return geracaoMatrizKw; }
+    public BigDecimal getGeracaoFiliaisKw() { return geracaoFiliaisKw; }
+    public BigDecimal getGeracaoDisponivelKw() { return geracaoDisponivelKw; }
+
+    // Campos da matriz, sem as filiais
+    public static class MatrizInfo {
+        private final Long id;
+        private final String nome;
+        private final String endereco;
+        private final String responsavel;
+        private final String telefone;
+        private final BigDecimal geracaoKw;
+        private final BigDecimal porcentagemMatriz;
+
+        MatrizInfo(Long id, String nome, String endereco, String responsavel, String telefone,
+                   BigDecimal geracaoKw, BigDecimal porcentagemMatriz) {
+            this.id = id;
+            this.nome = nome;
+            this.endereco = endereco;
+            this.responsavel = responsavel;
+            this.telefone = telefone;
+            this.geracaoKw = geracaoKw;
+            this.porcentagemMatriz = porcentagemMatriz;
+        }
+
+        public Long getId() { return id; }
+        public String getNome() { return nome; }
+        public String getEndereco() { return endereco; }
+        public String getResponsavel() { return responsavel; }
+        public String getTelefone() { return telefone; }
+        public BigDecimal getGeracaoKw() { return geracaoKw; }
+        public BigDecimal getPorcentagemMatriz() { return porcentagemMatriz; }
+    }
+}
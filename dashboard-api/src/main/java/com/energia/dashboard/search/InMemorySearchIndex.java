@@ -0,0 +1,307 @@
+package com.energia.dashboard.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória, para bancos sem pg_trgm (H2 em desenvolvimento).
+ * <p>
+ * Os textos são normalizados por {@link TextNormalizer} e divididos em termos.
+ * Cada termo da busca precisa casar com algum termo do registro: termo igual
+ * vale 1, prefixo 0,75 e trecho no meio (a partir de 3 letras) 0,5; a
+ * relevância é a média entre os termos da busca. Os arquivos também são
+ * indexados pelo texto do PDF ({@code invoice_text}).
+ * <p>
+ * O índice é carregado do banco na primeira busca e atualizado depois de
+ * cada commit por {@link SearchIndexListener}.
+ */
+public class InMemorySearchIndex implements SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemorySearchIndex.class);
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.75;
+    private static final double INFIX = 0.5;
+    private static final int MIN_INFIX_LENGTH = 3;
+
+    private static final String USER_SQL =
+            "SELECT u.id, u.full_name, u.cpf_cnpj, u.email FROM users u";
+    private static final String FILE_SQL =
+            "SELECT f.id, f.original_filename, u.full_name, u.cpf_cnpj, t.content FROM uploaded_files f "
+            + "JOIN users u ON u.id = f.user_id LEFT JOIN invoice_text t ON t.uploaded_file_id = f.id";
+    private static final String MATRIZ_SQL =
+            "SELECT m.id, m.nome, m.responsavel, m.endereco FROM matrizes m";
+    private static final String FILIAL_SQL =
+            "SELECT fi.id, fi.nome, fi.responsavel, fi.endereco, m.nome AS matriz_nome FROM filiais fi JOIN matrizes m ON m.id = fi.matriz_id";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guardados pelo lock
+    private final Map<DocKey, Doc> docs = new HashMap<>();
+    private final NavigableMap<String, Set<DocKey>> postings = new TreeMap<>();
+    private volatile boolean loaded;
+
+    public InMemorySearchIndex(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<SearchHit> search(String query, Set<SearchType> types, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokens(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+
+        List<SearchHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<DocKey, Double> scores = null;
+            for (String term : terms) {
+                Map<DocKey, Double> termScores = match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Todos os termos precisam casar
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<DocKey, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return hits;
+                }
+            }
+            for (Map.Entry<DocKey, Double> entry : scores.entrySet()) {
+                DocKey key = entry.getKey();
+                if (types == null || types.isEmpty() || types.contains(key.type)) {
+                    Doc doc = docs.get(key);
+                    hits.add(new SearchHit(key.type, key.id, doc.title, doc.subtitle, entry.getValue() / terms.size()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getTitle, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(SearchHit::getId, Comparator.reverseOrder()));
+        int from = Math.min(Math.max(0, offset), hits.size());
+        return new ArrayList<>(hits.subList(from, Math.min(hits.size(), from + limit)));
+    }
+
+    // Maior pontuação do termo em cada registro
+    private Map<DocKey, Double> match(String term) {
+        Map<DocKey, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Set<DocKey>> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            double score = entry.getKey().equals(term) ? EXACT : PREFIX;
+            for (DocKey key : entry.getValue()) {
+                scores.merge(key, score, Math::max);
+            }
+        }
+        if (term.length() >= MIN_INFIX_LENGTH) {
+            for (Map.Entry<String, Set<DocKey>> entry : postings.entrySet()) {
+                if (!entry.getKey().startsWith(term) && entry.getKey().contains(term)) {
+                    for (DocKey key : entry.getValue()) {
+                        scores.merge(key, INFIX, Math::max);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    @Override
+    public void refresh(SearchType type, Collection<Long> ids) {
+        if (ids.isEmpty() || !isLoaded()) {
+            return;
+        }
+        List<Doc> fresh = load(type, ids);
+        if (type == SearchType.USER) {
+            // Nome e CPF/CNPJ do usuário também identificam os seus arquivos
+            fresh.addAll(query(SearchType.FILE, FILE_SQL + " WHERE f.user_id IN (:ids)", ids));
+        } else if (type == SearchType.MATRIZ) {
+            // O nome da matriz é subtítulo e termo de busca das suas filiais
+            fresh.addAll(query(SearchType.FILIAL, FILIAL_SQL + " WHERE fi.matriz_id IN (:ids)", ids));
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                unindex(new DocKey(type, id));
+            }
+            for (Doc doc : fresh) {
+                unindex(doc.key);
+                index(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(SearchType type, Long id) {
+        if (!isLoaded()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(new DocKey(type, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Espera uma carga em andamento terminar. Antes da carga inicial não há o
+     * que atualizar: ela lê o estado já confirmado.
+     */
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            List<Doc> all = new ArrayList<>();
+            for (SearchType type : SearchType.values()) {
+                all.addAll(load(type, null));
+            }
+            lock.writeLock().lock();
+            try {
+                docs.clear();
+                postings.clear();
+                all.forEach(this::index);
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Índice de busca em memória carregado: {} registros, {} termos", all.size(), postings.size());
+        }
+    }
+
+    private List<Doc> load(SearchType type, Collection<Long> ids) {
+        switch (type) {
+            case USER:
+                return query(type, USER_SQL + (ids == null ? "" : " WHERE u.id IN (:ids)"), ids);
+            case FILE:
+                return query(type, FILE_SQL + (ids == null ? "" : " WHERE f.id IN (:ids)"), ids);
+            case MATRIZ:
+                return query(type, MATRIZ_SQL + (ids == null ? "" : " WHERE m.id IN (:ids)"), ids);
+            case FILIAL:
+                return query(type, FILIAL_SQL + (ids == null ? "" : " WHERE fi.id IN (:ids)"), ids);
+            default:
+                throw new IllegalArgumentException("Tipo sem índice: " + type);
+        }
+    }
+
+    private List<Doc> query(SearchType type, String sql, Collection<Long> ids) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        return jdbc.query(sql, params, (rs, rowNum) -> {
+            long id = rs.getLong(1);
+            switch (type) {
+                case USER:
+                    return new Doc(type, id, rs.getString("full_name"), rs.getString("cpf_cnpj"),
+                            rs.getString("full_name"), rs.getString("cpf_cnpj"), digits(rs.getString("cpf_cnpj")),
+                            rs.getString("email"));
+                case FILE:
+                    return new Doc(type, id, rs.getString("original_filename"), rs.getString("full_name"),
+                            rs.getString("original_filename"), rs.getString("full_name"), rs.getString("cpf_cnpj"),
+                            digits(rs.getString("cpf_cnpj")), rs.getString("content"));
+                case MATRIZ:
+                    return new Doc(type, id, rs.getString("nome"), rs.getString("responsavel"),
+                            rs.getString("nome"), rs.getString("responsavel"), rs.getString("endereco"));
+                default:
+                    return new Doc(type, id, rs.getString("nome"), rs.getString("matriz_nome"),
+                            rs.getString("nome"), rs.getString("responsavel"), rs.getString("endereco"),
+                            rs.getString("matriz_nome"));
+            }
+        });
+    }
+
+    private static String digits(String value) {
+        return value == null ? null : value.replaceAll("\\D", "");
+    }
+
+    private void index(Doc doc) {
+        docs.put(doc.key, doc);
+        for (String term : doc.terms) {
+            postings.computeIfAbsent(term, t -> new HashSet<>()).add(doc.key);
+        }
+    }
+
+    private void unindex(DocKey key) {
+        Doc doc = docs.remove(key);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Set<DocKey> keys = postings.get(term);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static final class DocKey {
+        final SearchType type;
+        final Long id;
+
+        DocKey(SearchType type, Long id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DocKey)) {
+                return false;
+            }
+            DocKey other = (DocKey) o;
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+
+    private static final class Doc {
+        final DocKey key;
+        final String title;
+        final String subtitle;
+        final Set<String> terms = new HashSet<>();
+
+        Doc(SearchType type, Long id, String title, String subtitle, String... fields) {
+            this.key = new DocKey(type, id);
+            this.title = title;
+            this.subtitle = subtitle;
+            for (String field : fields) {
+                terms.addAll(TextNormalizer.tokens(field));
+            }
+        }
+    }
+}
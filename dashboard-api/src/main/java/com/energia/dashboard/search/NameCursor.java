@@ -0,0 +1,66 @@
+package com.energia.dashboard.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Posição nas listagens de usuários, matrizes e filiais ordenadas por
+ * {@code (nome, id)}, usadas pela busca sem {@code q}. Como o
+ * {@link com.energia.dashboard.file.FileCursor}, a página seguinte começa
+ * logo depois do último item da anterior.
+ * <p>
+ * Para o cliente o cursor é um texto opaco (base64url).
+ */
+public final class NameCursor {
+
+    // Antes do primeiro item: os nomes são obrigatórios e não vazios
+    private static final NameCursor START = new NameCursor("", 0L);
+
+    private final String nome;
+    private final Long id;
+
+    private NameCursor(String nome, Long id) {
+        this.nome = nome;
+        this.id = id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param cursor valor recebido do cliente, ou null para a primeira página
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static NameCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new NameCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Cursor da página seguinte, ou null se {@code page} é a última
+     * (a consulta busca {@code limit + 1} itens para saber se há mais)
+     */
+    public static <T> String next(List<T> page, int limit, Function<T, String> nomeOf, Function<T, Long> idOf) {
+        if (page.size() <= limit) {
+            return null;
+        }
+        T last = page.get(limit - 1);
+        String raw = idOf.apply(last) + ":" + nomeOf.apply(last);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,154 @@
+package com.energia.dashboard.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Busca por similaridade de trigramas (pg_trgm) sobre o texto sem acentos
+ * (unaccent). Cada tabela tem um índice GIN na mesma expressão usada na
+ * consulta, então {@code <%} e {@code LIKE '%termo%'} não varrem a tabela.
+ * A ordem é pela maior {@code word_similarity} entre o termo e o texto.
+ * <p>
+ * O texto dos PDFs ({@code invoice_text}) usa busca por palavras inteiras
+ * ({@code tsvector} em coluna gerada, com índice GIN): números de instalação
+ * e de fatura, endereço.
+ * <p>
+ * Os índices são mantidos pelo próprio banco: {@link #refresh} e
+ * {@link #remove} não fazem nada.
+ */
+public class PostgresSearchIndex implements SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSearchIndex.class);
+
+    // Texto indexado de cada tabela; %1$s é o alias. Precisa ser idêntico ao dos índices.
+    private static final String USER_DOC = "lower(f_unaccent(%1$s.full_name || ' ' || %1$s.cpf_cnpj || ' ' "
+            + "|| regexp_replace(%1$s.cpf_cnpj, '\\D', '', 'g') || ' ' || %1$s.email))";
+    private static final String FILE_DOC = "lower(f_unaccent(%1$s.original_filename))";
+    private static final String UNIDADE_DOC = "lower(f_unaccent(%1$s.nome || ' ' || %1$s.responsavel || ' ' || %1$s.endereco))";
+
+    private static final String CONTENT_QUERY = "plainto_tsquery('simple', :term)";
+
+    // Arquivos encontrados pelo nome do usuário ficam um pouco abaixo dos encontrados pelo próprio nome
+    private static final double FILE_BY_USER_WEIGHT = 0.9;
+    // Encontrados pelo conteúdo do PDF: 0,6 a 1 conforme a densidade dos termos no texto
+    private static final double CONTENT_BASE = 0.6;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public PostgresSearchIndex(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Cria as extensões, a função {@code f_unaccent} (imutável, para poder
+     * ser usada em índices) e os índices de trigramas.
+     *
+     * @return false se o banco não permitir (extensões indisponíveis ou sem
+     *         privilégio); nesse caso a busca fica com o índice em memória
+     */
+    public static boolean install(JdbcTemplate jdbc) {
+        try {
+            jdbc.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbc.execute("CREATE EXTENSION IF NOT EXISTS unaccent");
+            jdbc.execute("CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text AS "
+                    + "$$ SELECT public.unaccent('public.unaccent', $1) $$ "
+                    + "LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT");
+            createIndex(jdbc, "idx_users_search", "users", String.format(USER_DOC, "users"));
+            createIndex(jdbc, "idx_uploaded_files_search", "uploaded_files", String.format(FILE_DOC, "uploaded_files"));
+            createIndex(jdbc, "idx_matrizes_search", "matrizes", String.format(UNIDADE_DOC, "matrizes"));
+            createIndex(jdbc, "idx_filiais_search", "filiais", String.format(UNIDADE_DOC, "filiais"));
+            // Coluna gerada (PostgreSQL 12+): o JPA não a conhece e o banco a mantém a cada gravação
+            jdbc.execute("ALTER TABLE invoice_text ADD COLUMN IF NOT EXISTS content_tsv tsvector "
+                    + "GENERATED ALWAYS AS (to_tsvector('simple', f_unaccent(content))) STORED");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_invoice_text_search ON invoice_text USING gin (content_tsv)");
+            return true;
+        } catch (DataAccessException e) {
+            logger.warn("Índices de busca (pg_trgm/unaccent) indisponíveis; usando índice em memória: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void createIndex(JdbcTemplate jdbc, String name, String table, String expression) {
+        jdbc.execute("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " USING gin ((" + expression + ") gin_trgm_ops)");
+    }
+
+    @Override
+    public List<SearchHit> search(String query, Set<SearchType> types, int offset, int limit) {
+        String term = TextNormalizer.normalize(query).trim();
+        if (term.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<String> parts = new ArrayList<>();
+        if (includes(types, SearchType.FILE)) {
+            String fileDoc = String.format(FILE_DOC, "f");
+            String userDoc = String.format(USER_DOC, "u");
+            parts.add("SELECT 'FILE' AS type, f.id, f.original_filename AS title, u.full_name AS subtitle, "
+                    + "greatest(word_similarity(:term, " + fileDoc + "), "
+                    + FILE_BY_USER_WEIGHT + " * word_similarity(:term, " + userDoc + "), "
+                    + "CASE WHEN t.content_tsv @@ " + CONTENT_QUERY + " THEN " + CONTENT_BASE + " + "
+                    + (1 - CONTENT_BASE) + " * ts_rank_cd(t.content_tsv, " + CONTENT_QUERY + ", 32) ELSE 0 END) AS score "
+                    + "FROM uploaded_files f JOIN users u ON u.id = f.user_id "
+                    + "LEFT JOIN invoice_text t ON t.uploaded_file_id = f.id "
+                    + "WHERE f.id IN (SELECT f2.id FROM uploaded_files f2 WHERE " + matches(String.format(FILE_DOC, "f2")) + ") "
+                    + "OR f.user_id IN (SELECT u2.id FROM users u2 WHERE " + matches(String.format(USER_DOC, "u2")) + ") "
+                    + "OR f.id IN (SELECT t2.uploaded_file_id FROM invoice_text t2 WHERE t2.content_tsv @@ " + CONTENT_QUERY + ")");
+        }
+        if (includes(types, SearchType.USER)) {
+            String doc = String.format(USER_DOC, "u");
+            parts.add("SELECT 'USER' AS type, u.id, u.full_name AS title, u.cpf_cnpj AS subtitle, "
+                    + "word_similarity(:term, " + doc + ") AS score FROM users u WHERE " + matches(doc));
+        }
+        if (includes(types, SearchType.MATRIZ)) {
+            String doc = String.format(UNIDADE_DOC, "m");
+            parts.add("SELECT 'MATRIZ' AS type, m.id, m.nome AS title, m.responsavel AS subtitle, "
+                    + "word_similarity(:term, " + doc + ") AS score FROM matrizes m WHERE " + matches(doc));
+        }
+        if (includes(types, SearchType.FILIAL)) {
+            String doc = String.format(UNIDADE_DOC, "fi");
+            parts.add("SELECT 'FILIAL' AS type, fi.id, fi.nome AS title, m.nome AS subtitle, "
+                    + "word_similarity(:term, " + doc + ") AS score "
+                    + "FROM filiais fi JOIN matrizes m ON m.id = fi.matriz_id WHERE " + matches(doc));
+        }
+
+        String sql = String.join(" UNION ALL ", parts)
+                + " ORDER BY score DESC, title, id DESC OFFSET :offset LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("pattern", "%" + escapeLike(term) + "%")
+                .addValue("offset", Math.max(0, offset))
+                .addValue("limit", limit);
+        return jdbc.query(sql, params, (rs, rowNum) -> new SearchHit(
+                SearchType.valueOf(rs.getString("type")), rs.getLong("id"),
+                rs.getString("title"), rs.getString("subtitle"), rs.getDouble("score")));
+    }
+
+    private static String matches(String doc) {
+        // <% cobre erros de digitação; LIKE garante trechos curtos ou no meio de palavras
+        return "(:term <% " + doc + " OR " + doc + " LIKE :pattern)";
+    }
+
+    private static boolean includes(Set<SearchType> types, SearchType type) {
+        return types == null || types.isEmpty() || types.contains(type);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public void refresh(SearchType type, Collection<Long> ids) {
+    }
+
+    @Override
+    public void remove(SearchType type, Long id) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.energia.dashboard.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+@Configuration
+public class SearchConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchConfig.class);
+
+    /**
+     * Índices de trigramas no PostgreSQL; índice em memória nos demais bancos.
+     * Criado depois do JPA, que cria as tabelas a indexar.
+     */
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public SearchIndex searchIndex(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                   NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        if (isPostgres(dataSource) && PostgresSearchIndex.install(jdbcTemplate)) {
+            logger.info("Busca pelos índices pg_trgm do PostgreSQL");
+            return new PostgresSearchIndex(namedParameterJdbcTemplate);
+        }
+        logger.info("Busca pelo índice em memória");
+        return new InMemorySearchIndex(namedParameterJdbcTemplate);
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            logger.warn("Não foi possível identificar o banco: {}", e.getMessage());
+            return false;
+        }
+    }
+}
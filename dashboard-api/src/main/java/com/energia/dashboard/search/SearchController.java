@@ -0,0 +1,60 @@
+package com.energia.dashboard.search;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final SearchIndex searchIndex;
+
+    public SearchController(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Busca em arquivos, usuários, matrizes e filiais ao mesmo tempo, do mais
+     * relevante para o menos relevante. {@code types} restringe os tipos
+     * (ex.: {@code types=matriz,filial}). Paginação como nas listagens de
+     * arquivos: cabeçalho {@code X-Next-Cursor} e parâmetro {@code cursor}.
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q,
+                                                  @RequestParam(required = false) List<String> types,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        int offset = SearchCursor.parse(cursor);
+        int size = SearchCursor.clampLimit(limit, SearchCursor.DEFAULT_LIMIT, SearchCursor.MAX_LIMIT);
+        List<SearchHit> hits = searchIndex.search(q, parseTypes(types), offset, size + 1);
+
+        String next = SearchCursor.next(hits, offset, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(hits.size() > size ? hits.subList(0, size) : hits);
+    }
+
+    private static Set<SearchType> parseTypes(List<String> types) {
+        Set<SearchType> parsed = EnumSet.noneOf(SearchType.class);
+        if (types != null) {
+            for (String type : types) {
+                try {
+                    parsed.add(SearchType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Tipo de busca inválido: " + type);
+                }
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,92 @@
+package com.energia.dashboard.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Posição numa lista de resultados de busca. A ordem é por relevância, que
+ * não serve de chave para continuar a lista, então o cursor guarda quantos
+ * resultados já foram entregues. Para o cliente é um texto opaco, como o
+ * cursor das listagens de arquivos.
+ */
+public final class SearchCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private SearchCursor() {
+    }
+
+    /**
+     * @return resultados a pular (0 sem cursor)
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static int parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new IllegalArgumentException();
+            }
+            return offset;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public static int clampLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        return Math.max(1, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * Cursor da página seguinte, ou null se {@code hits} é a última
+     * (a busca pede {@code limit + 1} resultados para saber se há mais)
+     */
+    public static String next(List<SearchHit> hits, int offset, int limit) {
+        if (hits.size() <= limit) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(offset + limit).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static List<Long> ids(List<SearchHit> hits, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, hits.size()); i++) {
+            ids.add(hits.get(i).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Registros carregados por id, na ordem de relevância da busca. Registros
+     * excluídos entre a busca e a carga ficam de fora.
+     */
+    public static <T> List<T> inHitOrder(List<Long> ids, Collection<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,27 @@
+package com.energia.dashboard.search;
+
+/**
+ * Resultado da busca, do mais relevante para o menos relevante
+ */
+public class SearchHit {
+
+    private final SearchType type;
+    private final Long id;
+    private final String title;
+    private final String subtitle;
+    private final double score;
+
+    public SearchHit(SearchType type, Long id, String title, String subtitle, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.score = score;
+    }
+
+    public SearchType getType() { return type; }
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getSubtitle() { return subtitle; }
+    public double getScore() { return score; }
+}
@@ -0,0 +1,30 @@
+package com.energia.dashboard.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Busca textual em arquivos, usuários, matrizes e filiais, sem distinção de
+ * maiúsculas nem de acentos, com resultados ordenados por relevância.
+ * <p>
+ * Em PostgreSQL a busca usa índices de trigramas ({@link PostgresSearchIndex});
+ * nos demais bancos (H2 em desenvolvimento), um índice invertido em memória
+ * ({@link InMemorySearchIndex}).
+ */
+public interface SearchIndex {
+
+    /**
+     * @param types  tipos procurados (vazio: todos)
+     * @param offset resultados a pular, para paginação
+     */
+    List<SearchHit> search(String query, Set<SearchType> types, int offset, int limit);
+
+    /**
+     * Reindexa os registros após inclusão ou alteração. Índices mantidos pelo
+     * próprio banco ignoram a chamada.
+     */
+    void refresh(SearchType type, Collection<Long> ids);
+
+    void remove(SearchType type, Long id);
+}
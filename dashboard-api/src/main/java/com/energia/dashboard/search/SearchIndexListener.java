@@ -0,0 +1,130 @@
+package com.energia.dashboard.search;
+
+import com.energia.dashboard.file.UploadedFile;
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantém o {@link SearchIndex} em dia com as entidades pesquisáveis
+ * ({@code @EntityListeners} nas entidades). As atualizações só são aplicadas
+ * depois do commit, para o índice não mostrar dados de uma transação
+ * desfeita.
+ */
+@Component
+public class SearchIndexListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexListener.class);
+
+    // Resolvido só no uso: o índice depende do EntityManagerFactory, que cria este listener
+    private final ObjectProvider<SearchIndex> searchIndex;
+
+    public SearchIndexListener(ObjectProvider<SearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        SearchType type = typeOf(entity);
+        Long id = idOf(entity);
+        if (type != null && id != null) {
+            refreshAfterCommit(type, Collections.singletonList(id));
+        }
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        SearchType type = typeOf(entity);
+        Long id = idOf(entity);
+        if (type != null && id != null) {
+            afterCommit(() -> searchIndex.getObject().remove(type, id));
+        }
+    }
+
+    /**
+     * Para registros gravados sem passar pelo JPA (inserção em lote via JDBC).
+     * Os ids da mesma transação são reunidos num único refresh por tipo.
+     */
+    public void refreshAfterCommit(SearchType type, Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            run(() -> searchIndex.getObject().refresh(type, ids));
+            return;
+        }
+        PendingRefresh pending = (PendingRefresh) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRefresh();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.ids.computeIfAbsent(type, t -> new LinkedHashSet<>()).addAll(ids);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    run(action);
+                }
+            });
+        } else {
+            run(action);
+        }
+    }
+
+    private static void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            // O registro já foi gravado; a busca só fica defasada até a próxima alteração
+            logger.warn("Falha ao atualizar o índice de busca: {}", e.getMessage());
+        }
+    }
+
+    private final class PendingRefresh implements TransactionSynchronization {
+        final Map<SearchType, Set<Long>> ids = new EnumMap<>(SearchType.class);
+
+        @Override
+        public void afterCommit() {
+            ids.forEach((type, typeIds) -> run(() -> searchIndex.getObject().refresh(type, typeIds)));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SearchIndexListener.this);
+        }
+    }
+
+    private static SearchType typeOf(Object entity) {
+        if (entity instanceof UploadedFile) return SearchType.FILE;
+        if (entity instanceof User) return SearchType.USER;
+        if (entity instanceof Matriz) return SearchType.MATRIZ;
+        if (entity instanceof Filial) return SearchType.FILIAL;
+        return null;
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity instanceof UploadedFile) return ((UploadedFile) entity).getId();
+        if (entity instanceof User) return ((User) entity).getId();
+        if (entity instanceof Matriz) return ((Matriz) entity).getId();
+        if (entity instanceof Filial) return ((Filial) entity).getId();
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.energia.dashboard.search;
+
+public enum SearchType {
+    FILE,
+    USER,
+    MATRIZ,
+    FILIAL
+}
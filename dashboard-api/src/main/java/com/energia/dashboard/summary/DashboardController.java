@@ -0,0 +1,26 @@
+package com.energia.dashboard.summary;
+
+import com.energia.dashboard.config.QueryBudget;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardSummaryService summaryService;
+
+    public DashboardController(DashboardSummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    /**
+     * Totais da página inicial, servidos do cache enquanto nada mudar
+     */
+    @GetMapping("/summary")
+    @QueryBudget(2)
+    public DashboardSummary summary() {
+        return summaryService.getSummary();
+    }
+}
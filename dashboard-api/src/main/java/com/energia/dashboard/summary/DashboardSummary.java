@@ -0,0 +1,61 @@
+package com.energia.dashboard.summary;
+
+import com.energia.dashboard.file.FileInfoDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Totais da página inicial do dashboard. Imutável, pode ficar em cache.
+ */
+public class DashboardSummary {
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private final long totalMatrizes;
+    private final long totalFiliais;
+    private final long totalUsers;
+    private final long totalFiles;
+    private final long storageBytes;
+    private final BigDecimal geracaoTotalKw;
+    private final BigDecimal geracaoMatrizesKw;
+    private final BigDecimal geracaoFiliaisKw;
+    private final BigDecimal geracaoDisponivelKw;
+    private final BigDecimal porcentagemAlocada;
+    private final List<FileInfoDTO> recentUploads;
+    private final OffsetDateTime generatedAt;
+
+    public DashboardSummary(long totalMatrizes, long totalFiliais, long totalUsers, long totalFiles, long storageBytes,
+                            BigDecimal geracaoTotalKw, BigDecimal geracaoMatrizesKw, BigDecimal geracaoFiliaisKw,
+                            List<FileInfoDTO> recentUploads) {
+        this.totalMatrizes = totalMatrizes;
+        this.totalFiliais = totalFiliais;
+        this.totalUsers = totalUsers;
+        this.totalFiles = totalFiles;
+        this.storageBytes = storageBytes;
+        this.geracaoTotalKw = geracaoTotalKw.setScale(2, RoundingMode.HALF_UP);
+        this.geracaoMatrizesKw = geracaoMatrizesKw.setScale(2, RoundingMode.HALF_UP);
+        this.geracaoFiliaisKw = geracaoFiliaisKw.setScale(2, RoundingMode.HALF_UP);
+        this.geracaoDisponivelKw = this.geracaoTotalKw.subtract(this.geracaoMatrizesKw).subtract(this.geracaoFiliaisKw);
+        // Porcentagem da geração total já distribuída entre matrizes e filiais
+        this.porcentagemAlocada = geracaoTotalKw.signum() == 0 ? BigDecimal.ZERO.setScale(2)
+                : geracaoMatrizesKw.add(geracaoFiliaisKw).multiply(CEM).divide(geracaoTotalKw, 2, RoundingMode.HALF_UP);
+        this.recentUploads = recentUploads;
+        this.generatedAt = OffsetDateTime.now();
+    }
+
+    public long getTotalMatrizes() { return totalMatrizes; }
+    public long getTotalFiliais() { return totalFiliais; }
+    public long getTotalUsers() { return totalUsers; }
+    public long getTotalFiles() { return totalFiles; }
+    public long getStorageBytes() { return storageBytes; }
+    public BigDecimal getGeracaoTotalKw() { return geracaoTotalKw; }
+    public BigDecimal getGeracaoMatrizesKw() { return geracaoMatrizesKw; }
+    public BigDecimal getGeracaoFiliaisKw() { return geracaoFiliaisKw; }
+    public BigDecimal getGeracaoDisponivelKw() { return geracaoDisponivelKw; }
+    public BigDecimal getPorcentagemAlocada() { return porcentagemAlocada; }
+    public List<FileInfoDTO> getRecentUploads() { return recentUploads; }
+    public OffsetDateTime getGeneratedAt() { return generatedAt; }
+}
@@ -0,0 +1,30 @@
+package com.energia.dashboard.summary;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Descarta o resumo do dashboard quando uma entidade contada nele muda
+ * ({@code @EntityListeners} em matrizes, filiais, usuários e arquivos)
+ */
+@Component
+public class DashboardSummaryListener {
+
+    // Resolvido só no uso: o serviço depende de repositórios criados junto com este listener
+    private final ObjectProvider<DashboardSummaryService> summaryService;
+
+    public DashboardSummaryListener(ObjectProvider<DashboardSummaryService> summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        summaryService.getObject().invalidarAposCommit();
+    }
+}
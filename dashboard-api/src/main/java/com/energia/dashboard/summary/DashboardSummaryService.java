@@ -0,0 +1,131 @@
+package com.energia.dashboard.summary;
+
+import com.energia.dashboard.file.FileCursor;
+import com.energia.dashboard.file.FileInfoDTO;
+import com.energia.dashboard.file.UploadedFileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calcula o {@link DashboardSummary} com consultas agregadas e mantém o
+ * último resultado em memória.
+ * <p>
+ * O resumo é descartado após o commit de qualquer alteração em matrizes,
+ * filiais, usuários ou arquivos ({@link DashboardSummaryListener}) e, de
+ * qualquer forma, expira após {@code dashboard.summary.ttl-seconds}, o que
+ * cobre alterações feitas fora da aplicação. Os kW das filiais vêm dos
+ * totais já mantidos em {@code matriz_alocacoes}, sem somar as filiais.
+ */
+@Service
+public class DashboardSummaryService {
+
+    static final int RECENT_UPLOADS = 5;
+
+    private static final String TOTALS_SQL =
+            "SELECT " +
+            "(SELECT COUNT(*) FROM matrizes), " +
+            "(SELECT COUNT(*) FROM filiais), " +
+            "(SELECT COUNT(*) FROM users), " +
+            "(SELECT COUNT(*) FROM uploaded_files), " +
+            "(SELECT COALESCE(SUM(size_bytes), 0) FROM uploaded_files), " +
+            "(SELECT COALESCE(SUM(geracao_kw), 0) FROM matrizes), " +
+            "(SELECT COALESCE(SUM(geracao_kw * porcentagem_matriz), 0) / 100 FROM matrizes), " +
+            "(SELECT COALESCE(SUM(m.geracao_kw * a.porcentagem_filiais), 0) / 100 " +
+            "   FROM matriz_alocacoes a JOIN matrizes m ON m.id = a.matriz_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UploadedFileRepository uploadedFileRepository;
+    private final long ttlNanos;
+
+    // Incrementada a cada alteração: um cálculo iniciado antes dela não é guardado
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public DashboardSummaryService(JdbcTemplate jdbcTemplate, UploadedFileRepository uploadedFileRepository,
+                                   @Value("${dashboard.summary.ttl-seconds:30}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.uploadedFileRepository = uploadedFileRepository;
+        this.ttlNanos = Duration.ofSeconds(Math.max(0, ttlSeconds)).toNanos();
+    }
+
+    public DashboardSummary getSummary() {
+        Snapshot current = snapshot;
+        if (current != null && current.isValid()) {
+            return current.summary;
+        }
+        synchronized (this) {
+            // Várias aberturas simultâneas após a expiração calculam o resumo uma única vez
+            current = snapshot;
+            if (current != null && current.isValid()) {
+                return current.summary;
+            }
+            long started = version.get();
+            DashboardSummary summary = calcular();
+            if (version.get() == started) {
+                snapshot = new Snapshot(summary, System.nanoTime() + ttlNanos);
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Descarta o resumo após o commit da transação atual (ou imediatamente,
+     * fora de transação)
+     */
+    public void invalidarAposCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar();
+                }
+            });
+        } else {
+            invalidar();
+        }
+    }
+
+    public void invalidar() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    // Duas consultas: os totais (subconsultas escalares) e os envios mais recentes
+    private DashboardSummary calcular() {
+        FileCursor start = FileCursor.parse(null);
+        List<FileInfoDTO> recent = Collections.unmodifiableList(uploadedFileRepository.findPage(
+                start.getCreatedAt(), start.getId(), PageRequest.of(0, RECENT_UPLOADS)));
+        return jdbcTemplate.queryForObject(TOTALS_SQL, (rs, rowNum) -> new DashboardSummary(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                decimal(rs.getBigDecimal(6)), decimal(rs.getBigDecimal(7)), decimal(rs.getBigDecimal(8)),
+                recent));
+    }
+
+    private static BigDecimal decimal(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    private static final class Snapshot {
+        final DashboardSummary summary;
+        final long expiresAt;
+
+        Snapshot(DashboardSummary summary, long expiresAt) {
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
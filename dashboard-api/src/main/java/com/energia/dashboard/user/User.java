@@ -1,5 +1,8 @@
 package com.energia.dashboard.user;
 
+import com.energia.dashboard.search.SearchIndexListener;
+import com.energia.dashboard.summary.DashboardSummaryListener;
+
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
@@ -7,9 +10,11 @@ import javax.validation.constraints.Size;
 import java.time.OffsetDateTime;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, DashboardSummaryListener.class})
 @Table(name = "users", indexes = {
         @Index(name = "idx_users_cpf_cnpj", columnList = "cpf_cnpj", unique = true),
-        @Index(name = "idx_users_email", columnList = "email", unique = true)
+        @Index(name = "idx_users_email", columnList = "email", unique = true),
+        @Index(name = "idx_users_full_name", columnList = "full_name")
 })
 public class User {
 
@@ -1,19 +1,32 @@
 package com.energia.dashboard.user;
 
+import com.energia.dashboard.file.FileBatchService;
 import com.energia.dashboard.file.FileStorageService;
+import com.energia.dashboard.file.FileTooLargeException;
 import com.energia.dashboard.file.UploadedFile;
 import com.energia.dashboard.file.UploadedFileRepository;
+import com.energia.dashboard.invoice.InvoiceParsingService;
+import com.energia.dashboard.search.NameCursor;
+import com.energia.dashboard.search.SearchCursor;
+import com.energia.dashboard.search.SearchHit;
+import com.energia.dashboard.search.SearchIndex;
+import com.energia.dashboard.search.SearchType;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -21,16 +34,27 @@ import java.util.Optional;
 @Validated
 public class UserController {
 
+    private static final int SEARCH_LIMIT = 50;
+
     private final UserRepository userRepository;
     private final UploadedFileRepository uploadedFileRepository;
     private final FileStorageService fileStorageService;
+    private final FileBatchService fileBatchService;
+    private final InvoiceParsingService invoiceParsingService;
+    private final SearchIndex searchIndex;
 
     public UserController(UserRepository userRepository,
                           UploadedFileRepository uploadedFileRepository,
-                          FileStorageService fileStorageService) {
+                          FileStorageService fileStorageService,
+                          FileBatchService fileBatchService,
+                          InvoiceParsingService invoiceParsingService,
+                          SearchIndex searchIndex) {
         this.userRepository = userRepository;
         this.uploadedFileRepository = uploadedFileRepository;
         this.fileStorageService = fileStorageService;
+        this.fileBatchService = fileBatchService;
+        this.invoiceParsingService = invoiceParsingService;
+        this.searchIndex = searchIndex;
     }
 
     @GetMapping
@@ -45,6 +69,51 @@ public class UserController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Busca por nome, CPF/CNPJ (com ou sem formatação) ou email, sem
+     * distinção de acentos, do mais relevante para o menos relevante. Sem
+     * {@code q}, lista por nome, uma página por vez.
+     * Paginação pelo cabeçalho {@code X-Next-Cursor} e parâmetro {@code cursor}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<User>> search(@RequestParam(required = false) String q,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
+        if (q == null || q.trim().isEmpty()) {
+            NameCursor position = NameCursor.parse(cursor);
+            int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+            List<User> rows = userRepository.findPage(position.getNome(), position.getId(), PageRequest.of(0, size + 1));
+            return page(rows, size, NameCursor.next(rows, size, User::getFullName, User::getId));
+        }
+        int offset = SearchCursor.parse(cursor);
+        int size = SearchCursor.clampLimit(limit, SEARCH_LIMIT, SearchCursor.MAX_LIMIT);
+        List<SearchHit> hits = searchIndex.search(q, EnumSet.of(SearchType.USER), offset, size + 1);
+        List<Long> ids = SearchCursor.ids(hits, size);
+
+        String next = SearchCursor.next(hits, offset, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(SearchCursor.inHitOrder(ids, userRepository.findAllById(ids), User::getId));
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> rows, int size, String next) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(SearchCursor.NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(rows.size() > size ? rows.subList(0, size) : rows);
+    }
+
+    // Parâmetro de consulta, não de caminho: CNPJ formatado contém "/"
+    @GetMapping("/cpf")
+    public ResponseEntity<User> getByCpfCnpj(@RequestParam String cpfCnpj) {
+        return userRepository.findByCpfCnpj(cpfCnpj)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<User> create(@Valid @RequestBody User user) {
         if (user.getId() != null) {
@@ -90,17 +159,96 @@ public class UserController {
         }
 
         FileStorageService.StoredFileInfo info = fileStorageService.store(file);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saveUpload(userOpt.get(), info));
+    }
 
+    /**
+     * Upload com o arquivo no corpo da requisição (sem multipart): o conteúdo
+     * vai direto para o armazenamento, sem passar pelo arquivo temporário do
+     * Tomcat. Limite em {@code file.upload.max-stream-size}.
+     * <pre>curl -X POST --data-binary @conta.pdf -H "Content-Type: application/pdf" \
+     *     ".../api/users/1/upload/stream?filename=conta.pdf"</pre>
+     */
+    @PostMapping(path = "/{id}/upload/stream")
+    public ResponseEntity<UploadedFile> uploadStream(@PathVariable Long id,
+                                                     @RequestParam(required = false) String filename,
+                                                     HttpServletRequest request) throws IOException {
+        Optional<User> userOpt = userRepository.findById(id);
+        if (!userOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        long limit = fileStorageService.getMaxStreamBytes();
+        if (request.getContentLengthLong() > limit) {
+            // Recusa antes de ler o corpo
+            throw new FileTooLargeException(limit);
+        }
+
+        // Sem transação durante a leitura do corpo: só o registro é gravado numa transação curta
+        UploadedFile saved = fileStorageService.storeAndRegister(
+                request.getInputStream(), filename, request.getContentType(), limit, info -> {
+                    if (info.getSizeBytes() == 0) {
+                        // Desfaz a transação, e com ela o arquivo gravado
+                        throw new IllegalArgumentException("Arquivo vazio");
+                    }
+                    return saveUpload(userOpt.get(), info);
+                });
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    /**
+     * Registra para o usuário um arquivo cujo conteúdo já está armazenado,
+     * sem reenviá-lo. Responde 404 se o SHA-256 não for conhecido; nesse caso
+     * o cliente faz o upload normal.
+     */
+    @PostMapping("/{id}/upload/sha256/{sha256}")
+    @Transactional
+    public ResponseEntity<UploadedFile> uploadExisting(@PathVariable Long id, @PathVariable String sha256,
+                                                       @RequestParam(required = false) String filename) throws IOException {
+        Optional<User> userOpt = userRepository.findById(id);
+        String hash = sha256.toLowerCase(Locale.ROOT);
+        Optional<UploadedFile> existing = uploadedFileRepository.findFirstBySha256(hash);
+        // reuseExisting garante o arquivo até o commit do novo registro
+        if (!userOpt.isPresent() || !existing.isPresent() || fileStorageService.reuseExisting(hash) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        UploadedFile source = existing.get();
+        FileStorageService.StoredFileInfo info = new FileStorageService.StoredFileInfo();
+        info.setOriginalFilename(filename == null || filename.isBlank()
+                ? source.getOriginalFilename() : StringUtils.cleanPath(filename));
+        info.setStoredFilename(source.getStoredFilename());
+        info.setStoragePath(source.getStoragePath());
+        info.setSizeBytes(source.getSizeBytes());
+        info.setContentType(source.getContentType());
+        info.setSha256(hash);
+        info.setDeduplicated(true);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saveUpload(userOpt.get(), info));
+    }
+
+    private UploadedFile saveUpload(User user, FileStorageService.StoredFileInfo info) {
         UploadedFile uf = new UploadedFile();
-        uf.setUser(userOpt.get());
+        uf.setUser(user);
         uf.setOriginalFilename(info.getOriginalFilename());
         uf.setStoredFilename(info.getStoredFilename());
         uf.setStoragePath(info.getStoragePath());
         uf.setSizeBytes(info.getSizeBytes());
         uf.setContentType(info.getContentType());
+        uf.setSha256(info.getSha256());
 
         UploadedFile saved = uploadedFileRepository.save(uf);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        invoiceParsingService.submitAfterCommit(saved.getId());
+        return saved;
+    }
+
+    @PostMapping(path = "/{id}/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<FileStorageService.StoredFileInfo>> uploadPdfBatch(@PathVariable Long id,
+                                                                               @RequestParam("files") List<MultipartFile> files) throws IOException {
+        if (!userRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(fileBatchService.uploadForUser(id, files));
     }
 
     @GetMapping("/{id}/files")
@@ -1,12 +1,23 @@
 package com.energia.dashboard.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByCpfCnpj(String cpfCnpj);
     Optional<User> findByEmail(String email);
+    List<User> findByCpfCnpjIn(Collection<String> cpfCnpjs);
+
+    // Página seguinte a (nome, id), em ordem alfabética
+    @Query("SELECT u FROM User u WHERE u.fullName > :nome OR (u.fullName = :nome AND u.id > :id) " +
+           "ORDER BY u.fullName, u.id")
+    List<User> findPage(@Param("nome") String nome, @Param("id") Long id, Pageable pageable);
 }
 
 
@@ -0,0 +1,109 @@
+package com.energia.dashboard.config;
+
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.filial.FilialRepository;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listagens de matrizes e filiais: o número de comandos SQL por requisição
+ * (contado pelo {@link QueryCounter}, Hibernate e JdbcTemplate) fica dentro
+ * do {@link QueryBudget} e não muda com a quantidade de linhas.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "file.storage.location=target/test-uploads"
+})
+@AutoConfigureMockMvc
+class QueryBudgetTest {
+
+    private static final int FILIAIS_POR_MATRIZ = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MatrizRepository matrizRepository;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    private int matrizes;
+
+    @Test
+    void listagensExecutamNumeroConstanteDeConsultas() throws Exception {
+        Long primeira = criarMatrizes(5);
+        Map<String, Integer> poucas = contarConsultas(primeira);
+
+        criarMatrizes(45);
+        Map<String, Integer> muitas = contarConsultas(primeira);
+
+        assertEquals(poucas, muitas, "Consultas com 5 e com 50 matrizes");
+    }
+
+    private Map<String, Integer> contarConsultas(Long matrizId) throws Exception {
+        Map<String, Integer> resultado = new LinkedHashMap<>();
+        resultado.put("/api/matrizes", consultas("/api/matrizes", 1));
+        resultado.put("/api/matrizes/with-filiais", consultas("/api/matrizes/with-filiais", 2));
+        resultado.put("/api/matrizes/{id}/with-filiais", consultas("/api/matrizes/" + matrizId + "/with-filiais", 2));
+        resultado.put("/api/filiais", consultas("/api/filiais", 1));
+        resultado.put("/api/filiais/with-matriz", consultas("/api/filiais/with-matriz", 1));
+        resultado.put("/api/filiais/by-matriz/{id}", consultas("/api/filiais/by-matriz/" + matrizId, 2));
+        // Primeira leitura depois das inclusões: o resumo é recalculado, não vem do cache
+        resultado.put("/api/dashboard/summary", consultas("/api/dashboard/summary", 2));
+        return resultado;
+    }
+
+    // O QueryBudgetInterceptor zera o contador no início da requisição, na mesma thread
+    private int consultas(String uri, int orcamento) throws Exception {
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        int executadas = QueryCounter.get();
+        assertTrue(executadas <= orcamento, uri + " executou " + executadas + " consultas (limite " + orcamento + ")");
+        return executadas;
+    }
+
+    /**
+     * @return id da primeira matriz criada
+     */
+    private Long criarMatrizes(int quantidade) {
+        Long primeira = null;
+        for (int i = 0; i < quantidade; i++) {
+            matrizes++;
+            Matriz matriz = new Matriz();
+            matriz.setNome("Matriz " + matrizes);
+            matriz.setEndereco("Rua das Flores, " + matrizes);
+            matriz.setResponsavel("Maria Silva");
+            matriz.setGeracaoKw(new BigDecimal("1000.00"));
+            matriz.setPorcentagemMatriz(new BigDecimal("40.00"));
+            matriz = matrizRepository.save(matriz);
+            if (primeira == null) {
+                primeira = matriz.getId();
+            }
+            for (int f = 1; f <= FILIAIS_POR_MATRIZ; f++) {
+                Filial filial = new Filial();
+                filial.setMatriz(matriz);
+                filial.setNome("Filial " + matrizes + "-" + f);
+                filial.setEndereco("Avenida Brasil, " + f);
+                filial.setResponsavel("João Santos");
+                filial.setPorcentagemEnergia(new BigDecimal("10.00"));
+                filialRepository.save(filial);
+            }
+        }
+        return primeira;
+    }
+}
@@ -0,0 +1,119 @@
+package com.energia.dashboard.file;
+
+import com.energia.dashboard.user.User;
+import com.energia.dashboard.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Upload em streaming: o corpo é lido fora de transação, o registro é gravado
+ * numa transação curta e o arquivo novo é removido se o registro não for gravado.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stream-upload;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "file.storage.location=target/test-uploads-stream"
+})
+@AutoConfigureMockMvc
+class StreamUploadTest {
+
+    private static final Path ROOT = Paths.get("target/test-uploads-stream").toAbsolutePath().normalize();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private UploadedFileRepository uploadedFileRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void uploadGravaOArquivoEORegistro() throws Exception {
+        Long userId = criarUsuario("stream-ok");
+        byte[] conteudo = "%PDF-1.4 conta stream".getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/users/" + userId + "/upload/stream").param("filename", "conta.pdf")
+                        .contentType("application/pdf").content(conteudo))
+                .andExpect(status().isCreated());
+
+        String sha256 = sha256(conteudo);
+        assertEquals(1, uploadedFileRepository.countBySha256(sha256));
+        assertTrue(Files.exists(blob(sha256)));
+    }
+
+    @Test
+    void corpoVazioNaoGravaRegistro() throws Exception {
+        Long userId = criarUsuario("stream-vazio");
+
+        mockMvc.perform(post("/api/users/" + userId + "/upload/stream").contentType("application/pdf").content(new byte[0]))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, uploadedFileRepository.countBySha256(sha256(new byte[0])));
+    }
+
+    @Test
+    void leituraForaDeTransacaoEArquivoRemovidoSeORegistroFalhar() throws Exception {
+        byte[] conteudo = "%PDF-1.4 registro que falha".getBytes(StandardCharsets.UTF_8);
+        InputStream corpo = new FilterInputStream(new ByteArrayInputStream(conteudo)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                assertFalse(TransactionSynchronizationManager.isActualTransactionActive(), "Leitura dentro de transação");
+                return super.read(b, off, len);
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> fileStorageService.storeAndRegister(
+                corpo, "conta.pdf", "application/pdf", Long.MAX_VALUE, info -> {
+                    assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+                    assertTrue(Files.exists(blob(info.getSha256())));
+                    throw new IllegalStateException("falha ao gravar o registro");
+                }));
+
+        assertFalse(Files.exists(blob(sha256(conteudo))), "Arquivo sem registro não foi removido");
+    }
+
+    private Long criarUsuario(String nome) {
+        User user = new User();
+        user.setFullName("Usuário " + nome);
+        user.setCpfCnpj(nome);
+        user.setEmail(nome + "@example.com");
+        return userRepository.save(user).getId();
+    }
+
+    private static Path blob(String sha256) {
+        return ROOT.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static String sha256(byte[] conteudo) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(conteudo)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.energia.dashboard.filial;
+
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizController;
+import com.energia.dashboard.matriz.MatrizDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inclusões e alterações de filiais em paralelo na mesma matriz: a soma da
+ * porcentagem da matriz com as das filiais nunca passa de 100% e o total
+ * mantido em {@code matriz_alocacoes} continua igual à soma das filiais.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:filial-concorrencia;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false",
+        "file.storage.location=target/test-uploads"
+})
+class FilialAlocacaoConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES = 40;
+
+    private static final String TOTAIS_SQL =
+            "SELECT m.porcentagem_matriz AS matriz, a.porcentagem_matriz AS copia, a.porcentagem_filiais AS contador, "
+            + "(SELECT COALESCE(SUM(f.porcentagem_energia), 0) FROM filiais f WHERE f.matriz_id = m.id) AS soma "
+            + "FROM matrizes m JOIN matriz_alocacoes a ON a.matriz_id = m.id WHERE m.id = ?";
+
+    @Autowired
+    private MatrizController matrizController;
+
+    @Autowired
+    private FilialController filialController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void inclusoesEAlteracoesConcorrentesRespeitamOLimite() throws Exception {
+        Long matrizId = criarMatriz(new BigDecimal("40.00"));
+        List<Long> filiais = new CopyOnWriteArrayList<>();
+        List<String> violacoes = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger recusadas = new AtomicInteger();
+        AtomicBoolean rodando = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            // Lê os valores confirmados enquanto as escritas acontecem
+            Future<?> monitor = pool.submit(() -> {
+                while (rodando.get()) {
+                    Map<String, Object> totais = totais(matrizId);
+                    BigDecimal matriz = (BigDecimal) totais.get("matriz");
+                    BigDecimal soma = (BigDecimal) totais.get("soma");
+                    if (matriz.add(soma).compareTo(BigDecimal.valueOf(100)) > 0) {
+                        violacoes.add("matriz " + matriz + " + filiais " + soma);
+                    }
+                }
+            });
+
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                tarefas.add(pool.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < OPERACOES; i++) {
+                        // Entre 0,01% e 15,00%
+                        BigDecimal porcentagem = BigDecimal.valueOf(1 + random.nextInt(1_500), 2);
+                        try {
+                            ResponseEntity<?> response;
+                            if (filiais.isEmpty() || random.nextBoolean()) {
+                                response = filialController.create(filial(matrizId, porcentagem));
+                                if (response.getStatusCode() == HttpStatus.CREATED) {
+                                    filiais.add(((FilialDTO) response.getBody()).getId());
+                                }
+                            } else {
+                                Long id = filiais.get(random.nextInt(filiais.size()));
+                                response = filialController.update(id, filial(matrizId, porcentagem));
+                            }
+                            if (response.getStatusCode() == HttpStatus.BAD_REQUEST) {
+                                recusadas.incrementAndGet();
+                            }
+                        } catch (ConcurrencyFailureException e) {
+                            // Transação desfeita por timeout de lock: não altera nada
+                            recusadas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(2, TimeUnit.MINUTES);
+            }
+            rodando.set(false);
+            monitor.get(10, TimeUnit.SECONDS);
+        } finally {
+            rodando.set(false);
+            pool.shutdownNow();
+        }
+
+        assertTrue(violacoes.isEmpty(), "Limite de 100% ultrapassado: " + violacoes);
+        // Com 8 × 40 operações de até 15% sobre 60% livres, parte delas tem de ser recusada
+        assertTrue(recusadas.get() > 0, "Nenhuma operação recusada");
+
+        Map<String, Object> totais = totais(matrizId);
+        BigDecimal matriz = (BigDecimal) totais.get("matriz");
+        BigDecimal copia = (BigDecimal) totais.get("copia");
+        BigDecimal contador = (BigDecimal) totais.get("contador");
+        BigDecimal soma = (BigDecimal) totais.get("soma");
+        assertEquals(0, matriz.compareTo(copia), "Cópia da porcentagem da matriz: " + copia + " != " + matriz);
+        assertEquals(0, contador.compareTo(soma), "Contador " + contador + " != soma das filiais " + soma);
+        assertTrue(matriz.add(soma).compareTo(BigDecimal.valueOf(100)) <= 0, "Total final: " + matriz.add(soma));
+        assertEquals(filiais.size(), jdbcTemplate.queryForObject(
+                "SELECT quantidade_filiais FROM matriz_alocacoes WHERE matriz_id = ?", Integer.class, matrizId));
+    }
+
+    private Long criarMatriz(BigDecimal porcentagem) {
+        Matriz matriz = new Matriz();
+        matriz.setNome("Matriz Concorrência");
+        matriz.setEndereco("Rua das Flores, 100");
+        matriz.setResponsavel("Maria Silva");
+        matriz.setGeracaoKw(new BigDecimal("1000.00"));
+        matriz.setPorcentagemMatriz(porcentagem);
+        ResponseEntity<?> response = matrizController.create(matriz);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        return ((MatrizDTO) response.getBody()).getId();
+    }
+
+    private static Filial filial(Long matrizId, BigDecimal porcentagem) {
+        Matriz matriz = new Matriz();
+        matriz.setId(matrizId);
+        Filial filial = new Filial();
+        filial.setMatriz(matriz);
+        filial.setNome("Filial " + porcentagem);
+        filial.setEndereco("Avenida Brasil, 200");
+        filial.setResponsavel("João Santos");
+        filial.setPorcentagemEnergia(porcentagem);
+        return filial;
+    }
+
+    private Map<String, Object> totais(Long matrizId) {
+        return jdbcTemplate.queryForMap(TOTAIS_SQL, matrizId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.energia.dashboard.search;
+
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.filial.FilialRepository;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Renomear uma matriz atualiza no índice as filiais dela, que usam o nome da
+ * matriz como subtítulo e termo de busca.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search-rename;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "file.storage.location=target/test-uploads"
+})
+class SearchIndexRenameTest {
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private MatrizRepository matrizRepository;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Test
+    void filiaisAcompanhamONovoNomeDaMatriz() {
+        Matriz matriz = new Matriz();
+        matriz.setNome("Usina Aurora");
+        matriz.setEndereco("Rua das Flores, 100");
+        matriz.setResponsavel("Maria Silva");
+        matriz.setGeracaoKw(new BigDecimal("1000.00"));
+        matriz.setPorcentagemMatriz(new BigDecimal("40.00"));
+        matriz = matrizRepository.save(matriz);
+
+        Filial filial = new Filial();
+        filial.setMatriz(matriz);
+        filial.setNome("Filial Centro");
+        filial.setEndereco("Avenida Brasil, 200");
+        filial.setResponsavel("João Santos");
+        filial.setPorcentagemEnergia(new BigDecimal("10.00"));
+        Long filialId = filialRepository.save(filial).getId();
+
+        // Carrega o índice antes da alteração
+        assertEquals(1, filiais("aurora").size());
+
+        matriz.setNome("Usina Horizonte");
+        matrizRepository.save(matriz);
+
+        List<SearchHit> hits = filiais("horizonte");
+        assertEquals(1, hits.size());
+        assertEquals(filialId, hits.get(0).getId());
+        assertEquals("Usina Horizonte", hits.get(0).getSubtitle());
+        assertTrue(filiais("aurora").isEmpty(), "Filial ainda encontrada pelo nome antigo da matriz");
+    }
+
+    private List<SearchHit> filiais(String query) {
+        return searchIndex.search(query, EnumSet.of(SearchType.FILIAL), 0, 10);
+    }
+}
@@ -0,0 +1,151 @@
+package com.energia.dashboard.benchmarks;
+
+import com.energia.dashboard.matriz.AlocacaoEnergia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Energia alocada a uma carteira de matrizes e filiais: o cálculo anterior,
+ * com {@code BigDecimal.multiply(...).divide(100)} por linha, contra o
+ * {@link AlocacaoEnergia} em ponto fixo.
+ * <p>
+ * {@code pontoFixo} calcula só os arrays primitivos; {@code pontoFixoComBigDecimal}
+ * inclui a conversão de cada resultado para BigDecimal, como na serialização
+ * da resposta. Rodar com {@code -prof gc} para comparar a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    // Filiais por carteira; 4 filiais por matriz em média
+    @Param({"100", "10000"})
+    public int filiais;
+
+    private BigDecimal[] geracaoKw;
+    private BigDecimal[] porcentagemMatriz;
+    private BigDecimal[] porcentagemFilialDecimal;
+
+    private long[] geracao;
+    private int[] porcentagemMatrizCentesimos;
+    private int[] matrizDaFilial;
+    private int[] porcentagemFilial;
+    private long[] energiaMatriz;
+    private long[] energiaFiliais;
+    private long[] energiaFilial;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int matrizes = Math.max(1, filiais / 4);
+        Random random = new Random(42);
+
+        geracaoKw = new BigDecimal[matrizes];
+        porcentagemMatriz = new BigDecimal[matrizes];
+        geracao = new long[matrizes];
+        porcentagemMatrizCentesimos = new int[matrizes];
+        for (int m = 0; m < matrizes; m++) {
+            geracao[m] = 1_000 + random.nextInt(100_000_000);
+            porcentagemMatrizCentesimos[m] = 1_000 + random.nextInt(4_000);
+            geracaoKw[m] = BigDecimal.valueOf(geracao[m], 2);
+            porcentagemMatriz[m] = BigDecimal.valueOf(porcentagemMatrizCentesimos[m], 2);
+        }
+
+        matrizDaFilial = new int[filiais];
+        porcentagemFilial = new int[filiais];
+        porcentagemFilialDecimal = new BigDecimal[filiais];
+        for (int f = 0; f < filiais; f++) {
+            matrizDaFilial[f] = random.nextInt(matrizes);
+            porcentagemFilial[f] = 1 + random.nextInt(1_000);
+            porcentagemFilialDecimal[f] = BigDecimal.valueOf(porcentagemFilial[f], 2);
+        }
+
+        energiaMatriz = new long[matrizes];
+        energiaFiliais = new long[matrizes];
+        energiaFilial = new long[filiais];
+        verificar();
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        BigDecimal[] filiaisKw = new BigDecimal[geracaoKw.length];
+        for (int m = 0; m < geracaoKw.length; m++) {
+            filiaisKw[m] = BigDecimal.ZERO;
+            bh.consume(geracaoKw[m].multiply(porcentagemMatriz[m]).divide(CEM));
+        }
+        for (int f = 0; f < matrizDaFilial.length; f++) {
+            int m = matrizDaFilial[f];
+            BigDecimal kw = geracaoKw[m].multiply(porcentagemFilialDecimal[f]).divide(CEM);
+            filiaisKw[m] = filiaisKw[m].add(kw);
+            bh.consume(kw);
+        }
+        bh.consume(filiaisKw);
+    }
+
+    @Benchmark
+    public void pontoFixo(Blackhole bh) {
+        AlocacaoEnergia.alocar(geracao, porcentagemMatrizCentesimos, matrizDaFilial, porcentagemFilial,
+                energiaMatriz, energiaFiliais, energiaFilial);
+        bh.consume(energiaMatriz);
+        bh.consume(energiaFiliais);
+        bh.consume(energiaFilial);
+    }
+
+    @Benchmark
+    public void pontoFixoComBigDecimal(Blackhole bh) {
+        AlocacaoEnergia.alocar(geracao, porcentagemMatrizCentesimos, matrizDaFilial, porcentagemFilial,
+                energiaMatriz, energiaFiliais, energiaFilial);
+        for (int m = 0; m < energiaMatriz.length; m++) {
+            bh.consume(AlocacaoEnergia.kw(energiaMatriz[m]));
+            bh.consume(AlocacaoEnergia.kw(energiaFiliais[m]));
+        }
+        for (int f = 0; f < energiaFilial.length; f++) {
+            bh.consume(AlocacaoEnergia.kw(energiaFilial[f]));
+        }
+    }
+
+    // Os dois caminhos precisam dar exatamente o mesmo resultado
+    private void verificar() {
+        AlocacaoEnergia.alocar(geracao, porcentagemMatrizCentesimos, matrizDaFilial, porcentagemFilial,
+                energiaMatriz, energiaFiliais, energiaFilial);
+        BigDecimal[] filiaisKw = new BigDecimal[geracaoKw.length];
+        for (int m = 0; m < geracaoKw.length; m++) {
+            filiaisKw[m] = BigDecimal.ZERO;
+            check(geracaoKw[m].multiply(porcentagemMatriz[m]).divide(CEM), energiaMatriz[m]);
+        }
+        for (int f = 0; f < matrizDaFilial.length; f++) {
+            int m = matrizDaFilial[f];
+            BigDecimal kw = geracaoKw[m].multiply(porcentagemFilialDecimal[f]).divide(CEM);
+            filiaisKw[m] = filiaisKw[m].add(kw);
+            check(kw, energiaFilial[f]);
+        }
+        for (int m = 0; m < geracaoKw.length; m++) {
+            check(filiaisKw[m], energiaFiliais[m]);
+        }
+    }
+
+    private static void check(BigDecimal esperado, long miliwatts) {
+        if (esperado.compareTo(AlocacaoEnergia.kw(miliwatts)) != 0) {
+            throw new IllegalStateException("Resultado diferente: " + esperado + " != " + AlocacaoEnergia.kw(miliwatts));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.energia.dashboard.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Banco H2 em memória com as tabelas lidas pelos benchmarks (só as colunas
+ * usadas) e um volume parecido com o de produção. Os dados são gerados com
+ * semente fixa: todas as execuções medem exatamente o mesmo conteúdo.
+ */
+final class BenchmarkDatabase {
+
+    static final int USERS = 2_000;
+    static final int MATRIZES = 500;
+    static final int FILIAIS = 2_000;
+    static final int FILES = 20_000;
+    // Arquivos com o texto do PDF extraído
+    static final int INVOICE_TEXTS = 10_000;
+
+    private static final String[] NOMES = {
+        "João", "Maria", "José", "Ana", "Antônio", "Francisca", "Carlos", "Luíza", "Paulo", "Conceição",
+        "Pedro", "Adriana", "Lucas", "Juliana", "Marcos", "Márcia", "Luiz", "Fernanda", "Gabriel", "Patrícia"
+    };
+    private static final String[] SOBRENOMES = {
+        "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+        "Ribeiro", "Carvalho", "Araújo", "Melo", "Barbosa", "Cardoso", "Rocha", "Dias", "Nascimento", "Conceição"
+    };
+    private static final String[] RUAS = {
+        "Rua das Flores", "Avenida Brasil", "Rua São João", "Avenida Paulista", "Rua XV de Novembro",
+        "Rua Sete de Setembro", "Avenida Getúlio Vargas", "Rua Tiradentes", "Rua da Matriz", "Avenida Beira Mar"
+    };
+    private static final String[] CIDADES = {
+        "São Paulo", "Belo Horizonte", "Goiânia", "Brasília", "Uberlândia", "Campinas", "Ribeirão Preto",
+        "Florianópolis", "Curitiba", "Salvador"
+    };
+    private static final String[] UNIDADES = {"Centro", "Norte", "Sul", "Leste", "Oeste", "Industrial", "Shopping"};
+    private static final String[] MESES = {
+        "janeiro", "fevereiro", "março", "abril", "maio", "junho", "julho", "agosto", "setembro", "outubro",
+        "novembro", "dezembro"
+    };
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Cria e popula um banco novo (um por trial do JMH)
+     */
+    static DataSource create() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark" + SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        createSchema(jdbc);
+        seed(jdbc, new Random(42));
+        return dataSource;
+    }
+
+    static void drop(DataSource dataSource) {
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+    }
+
+    private static void createSchema(JdbcTemplate jdbc) {
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, full_name VARCHAR(150) NOT NULL, "
+                + "cpf_cnpj VARCHAR(20) NOT NULL, email VARCHAR(150) NOT NULL)");
+        jdbc.execute("CREATE TABLE matrizes (id BIGINT PRIMARY KEY, nome VARCHAR(150) NOT NULL, "
+                + "endereco VARCHAR(200) NOT NULL, responsavel VARCHAR(150) NOT NULL, telefone VARCHAR(20), "
+                + "geracao_kw NUMERIC(12,2) NOT NULL, porcentagem_matriz NUMERIC(5,2) NOT NULL, "
+                + "created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL, "
+                + "updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE TABLE filiais (id BIGINT PRIMARY KEY, matriz_id BIGINT NOT NULL, "
+                + "nome VARCHAR(150) NOT NULL, endereco VARCHAR(200) NOT NULL, responsavel VARCHAR(150) NOT NULL, "
+                + "telefone VARCHAR(20), porcentagem_energia NUMERIC(5,2) NOT NULL, "
+                + "created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL, "
+                + "updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE INDEX idx_filiais_matriz ON filiais (matriz_id)");
+        jdbc.execute("CREATE TABLE uploaded_files (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                + "original_filename VARCHAR(255) NOT NULL, size_bytes BIGINT NOT NULL, created_at TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE INDEX idx_uploaded_files_user ON uploaded_files (user_id)");
+        jdbc.execute("CREATE TABLE invoice_text (uploaded_file_id BIGINT PRIMARY KEY, content CLOB NOT NULL)");
+    }
+
+    private static void seed(JdbcTemplate jdbc, Random random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= USERS; id++) {
+            String nome = nome(random);
+            rows.add(new Object[] {id, nome, cpf(random), email(nome, id)});
+        }
+        jdbc.batchUpdate("INSERT INTO users VALUES (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= MATRIZES; id++) {
+            rows.add(new Object[] {id, "Matriz " + pick(random, CIDADES) + " " + pick(random, UNIDADES) + " " + id,
+                endereco(random), nome(random), telefone(random),
+                BigDecimal.valueOf(10_000 + random.nextInt(5_000_000), 2),
+                BigDecimal.valueOf(1_000 + random.nextInt(3_000), 2)});
+        }
+        jdbc.batchUpdate("INSERT INTO matrizes (id, nome, endereco, responsavel, telefone, geracao_kw, "
+                + "porcentagem_matriz) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= FILIAIS; id++) {
+            // 4 filiais por matriz em média, no máximo 60% para as filiais de cada matriz
+            long matrizId = 1 + (id - 1) % MATRIZES;
+            rows.add(new Object[] {id, matrizId, "Filial " + pick(random, UNIDADES) + " " + pick(random, CIDADES),
+                endereco(random), nome(random), telefone(random), BigDecimal.valueOf(100 + random.nextInt(1_400), 2)});
+        }
+        jdbc.batchUpdate("INSERT INTO filiais (id, matriz_id, nome, endereco, responsavel, telefone, "
+                + "porcentagem_energia) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        Instant start = Instant.parse("2023-01-01T00:00:00Z");
+        for (long id = 1; id <= FILES; id++) {
+            int mes = random.nextInt(MESES.length);
+            rows.add(new Object[] {id, 1 + random.nextInt(USERS),
+                "fatura_" + MESES[mes] + "_" + (2023 + random.nextInt(2)) + "_" + id + ".pdf",
+                100_000 + random.nextInt(4_000_000),
+                Timestamp.from(start.plusSeconds(id * 1_500))});
+        }
+        jdbc.batchUpdate("INSERT INTO uploaded_files VALUES (?, ?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (long id = 1; id <= INVOICE_TEXTS; id++) {
+            rows.add(new Object[] {id * (FILES / INVOICE_TEXTS), invoiceText(random)});
+        }
+        jdbc.batchUpdate("INSERT INTO invoice_text VALUES (?, ?)", rows);
+    }
+
+    // Texto de uma conta de energia, com o vocabulário e o tamanho (~1,5KB) de uma extração real
+    private static String invoiceText(Random random) {
+        StringBuilder text = new StringBuilder(1_600);
+        text.append("CONTA DE ENERGIA ELÉTRICA Nota Fiscal/Conta de Energia Elétrica nº ")
+            .append(100_000 + random.nextInt(900_000)).append('\n')
+            .append(nome(random).toUpperCase()).append('\n')
+            .append(endereco(random).toUpperCase()).append('\n')
+            .append("CPF/CNPJ ").append(cpf(random)).append('\n')
+            .append("Referência ").append(pick(random, MESES)).append("/2024 Vencimento ")
+            .append(1 + random.nextInt(28)).append("/0").append(1 + random.nextInt(9)).append("/2024\n")
+            .append("Bandeira tarifária ").append(random.nextBoolean() ? "verde" : "amarela").append('\n');
+        for (int i = 0; i < 12; i++) {
+            text.append("Consumo ").append(pick(random, MESES)).append(' ').append(100 + random.nextInt(900))
+                .append(" kWh Energia injetada ").append(random.nextInt(500)).append(" kWh compensada ")
+                .append(random.nextInt(500)).append(" kWh\n");
+        }
+        text.append("Total a pagar R$ ").append(50 + random.nextInt(2_000)).append(',')
+            .append(10 + random.nextInt(89)).append('\n');
+        return text.toString();
+    }
+
+    private static String nome(Random random) {
+        return pick(random, NOMES) + " " + pick(random, SOBRENOMES) + " " + pick(random, SOBRENOMES);
+    }
+
+    private static String endereco(Random random) {
+        return pick(random, RUAS) + ", " + (1 + random.nextInt(3_000)) + " - " + pick(random, CIDADES);
+    }
+
+    private static String cpf(Random random) {
+        return String.format("%03d.%03d.%03d-%02d", random.nextInt(1_000), random.nextInt(1_000),
+            random.nextInt(1_000), random.nextInt(100));
+    }
+
+    private static String telefone(Random random) {
+        return String.format("(%02d) 9%04d-%04d", 11 + random.nextInt(80), random.nextInt(10_000), random.nextInt(10_000));
+    }
+
+    private static String email(String nome, long id) {
+        return nome.toLowerCase().replace(' ', '.') + id + "@exemplo.com.br";
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
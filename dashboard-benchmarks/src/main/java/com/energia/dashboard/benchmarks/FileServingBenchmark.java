@@ -0,0 +1,133 @@
+package com.energia.dashboard.benchmarks;
+
+import com.energia.dashboard.file.FileSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envio de um PDF armazenado para um socket local: o caminho anterior do
+ * {@code FileController} (FileSystemResource escrito pelo
+ * ResourceHttpMessageConverter, cópia por buffers da heap) contra o
+ * {@link FileSender} usado agora.
+ * <p>
+ * {@code transferToSocket} ({@link FileSender#transfer}) é o equivalente ao
+ * sendfile do Tomcat; {@code copyToStream} ({@link FileSender#copy}) é o
+ * caminho alternativo, para containers sem sendfile. Rodar com {@code -prof gc} para comparar a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileServingBenchmark {
+
+    // 256KB: conta típica; 4MB: conta com muitas páginas/imagens
+    @Param({"262144", "4194304"})
+    public int fileSize;
+
+    private Path file;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private OutputStream clientStream;
+    private Thread drain;
+    private ResourceHttpMessageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("benchmark-", ".pdf");
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        Files.write(file, content);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        // Descarta tudo o que chega, como um cliente HTTP lendo a resposta
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            try {
+                while (accepted.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // Socket fechado no tearDown
+            }
+        }, "benchmark-drain");
+        drain.setDaemon(true);
+        drain.start();
+
+        clientStream = Channels.newOutputStream(client);
+        converter = new ResourceHttpMessageConverter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        server.close();
+        drain.join(TimeUnit.SECONDS.toMillis(5));
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void resourceConverter() throws IOException {
+        converter.write(new FileSystemResource(file), MediaType.APPLICATION_PDF, new HttpOutputMessage() {
+            private final HttpHeaders headers = new HttpHeaders();
+
+            @Override
+            public OutputStream getBody() {
+                return clientStream;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+    }
+
+    @Benchmark
+    public long transferToSocket() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return FileSender.transfer(channel, 0, channel.size(), client);
+        }
+    }
+
+    @Benchmark
+    public long copyToStream() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return FileSender.copy(channel, 0, channel.size(), clientStream);
+        }
+    }
+}
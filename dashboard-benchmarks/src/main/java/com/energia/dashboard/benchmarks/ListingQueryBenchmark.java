@@ -0,0 +1,164 @@
+package com.energia.dashboard.benchmarks;
+
+import com.energia.dashboard.filial.FilialDTO;
+import com.energia.dashboard.matriz.MatrizDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listagem de matrizes com filiais ({@code GET /api/matrizes/with-filiais})
+ * sobre o banco de {@link BenchmarkDatabase}, montando os mesmos DTOs da API:
+ * <ul>
+ *   <li>{@code duasConsultas}: matrizes e depois filiais, agrupadas em memória (a API atual);</li>
+ *   <li>{@code umaConsultaPorMatriz}: coleção lazy carregada por matriz (N+1);</li>
+ *   <li>{@code joinUnico}: JOIN FETCH, com a matriz repetida em cada linha de filial.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingQueryBenchmark {
+
+    private static final String MATRIZ_COLUMNS =
+            "m.id, m.nome, m.endereco, m.responsavel, m.telefone, m.geracao_kw, m.porcentagem_matriz, "
+            + "m.created_at, m.updated_at";
+    private static final String FILIAL_COLUMNS =
+            "f.id AS f_id, f.matriz_id, m.nome AS m_nome, m.geracao_kw AS m_geracao_kw, "
+            + "m.porcentagem_matriz AS m_porcentagem_matriz, f.nome AS f_nome, f.endereco AS f_endereco, "
+            + "f.responsavel AS f_responsavel, f.telefone AS f_telefone, f.porcentagem_energia, "
+            + "f.created_at AS f_created_at, f.updated_at AS f_updated_at";
+
+    private static final String MATRIZES_SQL = "SELECT " + MATRIZ_COLUMNS + " FROM matrizes m ORDER BY m.nome, m.id";
+    private static final String FILIAIS_SQL = "SELECT " + FILIAL_COLUMNS
+            + " FROM filiais f JOIN matrizes m ON m.id = f.matriz_id ORDER BY f.nome, f.id";
+    private static final String FILIAIS_DA_MATRIZ_SQL = "SELECT " + FILIAL_COLUMNS
+            + " FROM filiais f JOIN matrizes m ON m.id = f.matriz_id WHERE f.matriz_id = ? ORDER BY f.nome, f.id";
+    private static final String JOIN_SQL = "SELECT " + MATRIZ_COLUMNS + ", " + FILIAL_COLUMNS
+            + " FROM matrizes m LEFT JOIN filiais f ON f.matriz_id = m.id ORDER BY m.nome, m.id, f.nome, f.id";
+
+    private static final RowMapper<MatrizDTO> MATRIZ = (rs, row) -> matriz(rs);
+    private static final RowMapper<FilialDTO> FILIAL = (rs, row) -> filial(rs);
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = BenchmarkDatabase.create();
+        jdbc = new JdbcTemplate(dataSource);
+        verificar();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.drop(dataSource);
+    }
+
+    @Benchmark
+    public List<MatrizDTO> duasConsultas() {
+        List<MatrizDTO> matrizes = jdbc.query(MATRIZES_SQL, MATRIZ);
+        Map<Long, List<FilialDTO>> porMatriz = new HashMap<>();
+        for (FilialDTO filial : jdbc.query(FILIAIS_SQL, FILIAL)) {
+            porMatriz.computeIfAbsent(filial.getMatrizId(), id -> new ArrayList<>()).add(filial);
+        }
+        for (MatrizDTO matriz : matrizes) {
+            matriz.setFiliais(porMatriz.getOrDefault(matriz.getId(), new ArrayList<>()));
+        }
+        return matrizes;
+    }
+
+    @Benchmark
+    public List<MatrizDTO> umaConsultaPorMatriz() {
+        List<MatrizDTO> matrizes = jdbc.query(MATRIZES_SQL, MATRIZ);
+        for (MatrizDTO matriz : matrizes) {
+            matriz.setFiliais(jdbc.query(FILIAIS_DA_MATRIZ_SQL, FILIAL, matriz.getId()));
+        }
+        return matrizes;
+    }
+
+    @Benchmark
+    public List<MatrizDTO> joinUnico() {
+        return jdbc.query(JOIN_SQL, rs -> {
+            Map<Long, MatrizDTO> matrizes = new LinkedHashMap<>();
+            while (rs.next()) {
+                MatrizDTO matriz = matrizes.get(rs.getLong("id"));
+                if (matriz == null) {
+                    matriz = matriz(rs);
+                    matriz.setFiliais(new ArrayList<>());
+                    matrizes.put(matriz.getId(), matriz);
+                }
+                rs.getLong("f_id");
+                if (!rs.wasNull()) {
+                    matriz.getFiliais().add(filial(rs));
+                }
+            }
+            return new ArrayList<>(matrizes.values());
+        });
+    }
+
+    // As três formas precisam devolver as mesmas matrizes com as mesmas filiais
+    private void verificar() {
+        List<MatrizDTO> esperado = duasConsultas();
+        check(esperado, umaConsultaPorMatriz());
+        check(esperado, joinUnico());
+    }
+
+    private static void check(List<MatrizDTO> esperado, List<MatrizDTO> atual) {
+        if (esperado.size() != atual.size()) {
+            throw new IllegalStateException("Matrizes diferentes: " + esperado.size() + " != " + atual.size());
+        }
+        for (int i = 0; i < esperado.size(); i++) {
+            List<FilialDTO> a = esperado.get(i).getFiliais();
+            List<FilialDTO> b = atual.get(i).getFiliais();
+            if (!esperado.get(i).getId().equals(atual.get(i).getId()) || a.size() != b.size()) {
+                throw new IllegalStateException("Matriz " + esperado.get(i).getId() + " diferente");
+            }
+            for (int j = 0; j < a.size(); j++) {
+                if (!a.get(j).getId().equals(b.get(j).getId())) {
+                    throw new IllegalStateException("Filiais da matriz " + esperado.get(i).getId() + " diferentes");
+                }
+            }
+        }
+    }
+
+    private static MatrizDTO matriz(ResultSet rs) throws SQLException {
+        return new MatrizDTO(rs.getLong("id"), rs.getString("nome"), rs.getString("endereco"),
+                rs.getString("responsavel"), rs.getString("telefone"), rs.getBigDecimal("geracao_kw"),
+                rs.getBigDecimal("porcentagem_matriz"), rs.getObject("created_at", OffsetDateTime.class),
+                rs.getObject("updated_at", OffsetDateTime.class));
+    }
+
+    private static FilialDTO filial(ResultSet rs) throws SQLException {
+        return new FilialDTO(rs.getLong("f_id"), rs.getLong("matriz_id"), rs.getString("m_nome"),
+                rs.getBigDecimal("m_geracao_kw"), rs.getBigDecimal("m_porcentagem_matriz"), rs.getString("f_nome"),
+                rs.getString("f_endereco"), rs.getString("f_responsavel"), rs.getString("f_telefone"),
+                rs.getBigDecimal("porcentagem_energia"), rs.getObject("f_created_at", OffsetDateTime.class),
+                rs.getObject("f_updated_at", OffsetDateTime.class));
+    }
+}
@@ -0,0 +1,92 @@
+package com.energia.dashboard.benchmarks;
+
+import com.energia.dashboard.search.InMemorySearchIndex;
+import com.energia.dashboard.search.SearchType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca em arquivos, usuários, matrizes e filiais sobre o banco de
+ * {@link BenchmarkDatabase}: o {@link InMemorySearchIndex} (usado fora do
+ * PostgreSQL) contra a busca anterior, com {@code LOWER(...) LIKE '%termo%'}
+ * em cada tabela.
+ * <p>
+ * A busca anterior não olhava o texto dos PDFs nem ignorava acentos; a
+ * comparação mede o custo por consulta, não a qualidade dos resultados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final Set<SearchType> ALL_TYPES = EnumSet.allOf(SearchType.class);
+    private static final int LIMIT = 20;
+
+    private static final String LIKE_SQL =
+            "SELECT 'FILE' AS type, f.id FROM uploaded_files f JOIN users u ON u.id = f.user_id "
+            + "WHERE LOWER(f.original_filename) LIKE :pattern OR LOWER(u.full_name) LIKE :pattern "
+            + "OR LOWER(u.cpf_cnpj) LIKE :pattern "
+            + "UNION ALL SELECT 'USER', u.id FROM users u "
+            + "WHERE LOWER(u.full_name) LIKE :pattern OR LOWER(u.cpf_cnpj) LIKE :pattern OR LOWER(u.email) LIKE :pattern "
+            + "UNION ALL SELECT 'MATRIZ', m.id FROM matrizes m "
+            + "WHERE LOWER(m.nome) LIKE :pattern OR LOWER(m.responsavel) LIKE :pattern OR LOWER(m.endereco) LIKE :pattern "
+            + "UNION ALL SELECT 'FILIAL', fi.id FROM filiais fi "
+            + "WHERE LOWER(fi.nome) LIKE :pattern OR LOWER(fi.responsavel) LIKE :pattern OR LOWER(fi.endereco) LIKE :pattern "
+            + "LIMIT " + LIMIT;
+
+    // Nome comum, nome com acento, termo que só aparece no texto das contas, prefixo de CPF
+    @Param({"silva", "conceição", "injetada", "123"})
+    public String query;
+
+    private DataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private InMemorySearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = BenchmarkDatabase.create();
+        jdbc = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+        index = new InMemorySearchIndex(jdbc);
+        // Carga inicial fora da medição, como depois da primeira busca na API
+        index.search(query, ALL_TYPES, 0, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.drop(dataSource);
+    }
+
+    @Benchmark
+    public List<?> indiceEmMemoria() {
+        return index.search(query, ALL_TYPES, 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likeNoBanco() {
+        return jdbc.queryForList(LIKE_SQL, Collections.singletonMap("pattern", "%" + query.toLowerCase() + "%"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.energia.dashboard.benchmarks;
+
+import com.energia.dashboard.filial.Filial;
+import com.energia.dashboard.filial.FilialDTO;
+import com.energia.dashboard.matriz.Matriz;
+import com.energia.dashboard.matriz.MatrizDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON das listagens com o {@link ObjectMapper} configurado como
+ * no Spring Boot: os DTOs lidos por projeção contra as entidades que a API
+ * devolvia antes (filial com a matriz inteira embutida).
+ * <p>
+ * Os dados vêm de {@link BenchmarkDatabase}, lidos uma vez no setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private List<MatrizDTO> matrizes;
+    private List<FilialDTO> filiais;
+    private List<Filial> filiaisEntidade;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        ListingQueryBenchmark listagem = new ListingQueryBenchmark();
+        listagem.setUp();
+        try {
+            matrizes = listagem.duasConsultas();
+        } finally {
+            listagem.tearDown();
+        }
+
+        filiais = new ArrayList<>();
+        filiaisEntidade = new ArrayList<>();
+        for (MatrizDTO dto : matrizes) {
+            Matriz matriz = entidade(dto);
+            for (FilialDTO filial : dto.getFiliais()) {
+                filiais.add(filial);
+                filiaisEntidade.add(entidade(filial, matriz));
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] filiaisDto() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(filiais);
+    }
+
+    @Benchmark
+    public byte[] filiaisEntidade() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(filiaisEntidade);
+    }
+
+    @Benchmark
+    public byte[] matrizesComFiliais() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(matrizes);
+    }
+
+    // Sem as filiais na coleção da matriz, como a entidade saía com a coleção lazy fora da sessão
+    private static Matriz entidade(MatrizDTO dto) {
+        Matriz matriz = new Matriz();
+        matriz.setId(dto.getId());
+        matriz.setNome(dto.getNome());
+        matriz.setEndereco(dto.getEndereco());
+        matriz.setResponsavel(dto.getResponsavel());
+        matriz.setTelefone(dto.getTelefone());
+        matriz.setGeracaoKw(dto.getGeracaoKw());
+        matriz.setPorcentagemMatriz(dto.getPorcentagemMatriz());
+        matriz.setCreatedAt(dto.getCreatedAt());
+        matriz.setUpdatedAt(dto.getUpdatedAt());
+        return matriz;
+    }
+
+    private static Filial entidade(FilialDTO dto, Matriz matriz) {
+        Filial filial = new Filial();
+        filial.setId(dto.getId());
+        filial.setMatriz(matriz);
+        filial.setNome(dto.getNome());
+        filial.setEndereco(dto.getEndereco());
+        filial.setResponsavel(dto.getResponsavel());
+        filial.setTelefone(dto.getTelefone());
+        filial.setPorcentagemEnergia(dto.getPorcentagemEnergia());
+        filial.setCreatedAt(dto.getCreatedAt());
+        filial.setUpdatedAt(dto.getUpdatedAt());
+        return filial;
+    }
+}
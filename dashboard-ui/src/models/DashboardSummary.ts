@@ -0,0 +1,25 @@
+export interface RecentUpload {
+  id: number;
+  originalFilename: string;
+  contentType: string;
+  sizeBytes: number;
+  createdAt: string;
+  userId: number;
+  userName: string;
+  userCpfCnpj: string;
+}
+
+export interface DashboardSummary {
+  totalMatrizes: number;
+  totalFiliais: number;
+  totalUsers: number;
+  totalFiles: number;
+  storageBytes: number;
+  geracaoTotalKw: number;
+  geracaoMatrizesKw: number;
+  geracaoFiliaisKw: number;
+  geracaoDisponivelKw: number;
+  porcentagemAlocada: number;
+  recentUploads: RecentUpload[];
+  generatedAt: string;
+}
@@ -31,6 +31,11 @@ export interface UpdateFilialRequest {
   matrizId?: number;
 }
 
+export interface FilialPorcentagem {
+  filialId: number;
+  porcentagemEnergia: number;
+}
+
 export interface FilialEnergiaInfo {
   filial: Filial;
   energiaRecebidaKw: number;
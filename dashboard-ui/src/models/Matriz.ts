@@ -32,9 +32,11 @@ export interface UpdateMatrizRequest {
 }
 
 export interface MatrizResumo {
-  matriz: Matriz;
-  totalFiliais: number;
-  porcentagemTotalUtilizada: number;
+  matriz: Omit<Matriz, 'filiais' | 'createdAt' | 'updatedAt'>;
+  porcentagemTotalFiliais: number;
   porcentagemDisponivel: number;
-  energiaDisponivelKw: number;
+  quantidadeFiliais: number;
+  geracaoMatrizKw: number;
+  geracaoFiliaisKw: number;
+  geracaoDisponivelKw: number;
 }
\ No newline at end of file
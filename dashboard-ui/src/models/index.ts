@@ -3,4 +3,5 @@ export * from './User';
 export * from './Matriz';
 export * from './Filial';
 export * from './FileInfo';
+export * from './DashboardSummary';
 export * from './AuthState';
\ No newline at end of file
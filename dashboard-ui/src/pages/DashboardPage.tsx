@@ -1,42 +1,20 @@
 import React, { useState, useEffect } from 'react';
 import { Row, Col, Card, Table } from 'react-bootstrap';
-import { MatrizService, FilialService, UserService, FileService } from '../services';
-
-interface DashboardStats {
-  totalMatrizes: number;
-  totalFiliais: number;
-  totalUsers: number;
-  totalFiles: number;
-}
+import { DashboardService } from '../services';
+import { DashboardSummary } from '../models';
 
 const DashboardPage: React.FC = () => {
-  const [stats, setStats] = useState<DashboardStats>({
-    totalMatrizes: 0,
-    totalFiliais: 0,
-    totalUsers: 0,
-    totalFiles: 0
-  });
+  const [summary, setSummary] = useState<DashboardSummary | null>(null);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
     loadDashboardData();
   }, []);
 
+  // Totais calculados no servidor: a página não baixa as listagens completas
   const loadDashboardData = async () => {
     try {
-      const [matrizes, filiais, users, files] = await Promise.all([
-        MatrizService.getAll(),
-        FilialService.getAll(),
-        UserService.getAll(),
-        FileService.getAll()
-      ]);
-
-      setStats({
-        totalMatrizes: matrizes.length,
-        totalFiliais: filiais.length,
-        totalUsers: users.length,
-        totalFiles: files.length
-      });
+      setSummary(await DashboardService.getSummary());
     } catch (error) {
       console.error('Erro ao carregar dados do dashboard:', error);
     } finally {
@@ -44,9 +22,21 @@ const DashboardPage: React.FC = () => {
     }
   };
 
+  const formatFileSize = (bytes: number): string => {
+    if (bytes === 0) return '0 Bytes';
+    const k = 1024;
+    const sizes = ['Bytes', 'KB', 'MB', 'GB', 'TB'];
+    const i = Math.floor(Math.log(bytes) / Math.log(k));
+    return parseFloat((bytes / Math.pow(k, i)).toFixed(2)) + ' ' + sizes[i];
+  };
+
+  const formatDate = (dateString: string): string => {
+    return new Date(dateString).toLocaleString('pt-BR');
+  };
+
   const StatCard: React.FC<{
     title: string;
-    value: number;
+    value: number | string;
     icon: string;
     color: string;
   }> = ({ title, value, icon, color }) => (
@@ -79,30 +69,99 @@ const DashboardPage: React.FC = () => {
       <Row>
         <StatCard
           title="Total de Matrizes"
-          value={stats.totalMatrizes}
+          value={summary?.totalMatrizes ?? 0}
           icon="fas fa-building"
           color="text-primary"
         />
         <StatCard
           title="Total de Filiais"
-          value={stats.totalFiliais}
+          value={summary?.totalFiliais ?? 0}
           icon="fas fa-store"
           color="text-success"
         />
         <StatCard
           title="Total de Usuários"
-          value={stats.totalUsers}
+          value={summary?.totalUsers ?? 0}
           icon="fas fa-users"
           color="text-info"
         />
         <StatCard
           title="Total de Arquivos"
-          value={stats.totalFiles}
+          value={summary?.totalFiles ?? 0}
           icon="fas fa-file-alt"
           color="text-warning"
         />
       </Row>
 
+      <Row>
+        <StatCard
+          title="Geração Total"
+          value={`${(summary?.geracaoTotalKw ?? 0).toLocaleString('pt-BR')} kW`}
+          icon="fas fa-solar-panel"
+          color="text-primary"
+        />
+        <StatCard
+          title="Energia Alocada"
+          value={`${(summary?.porcentagemAlocada ?? 0).toLocaleString('pt-BR')}%`}
+          icon="fas fa-percentage"
+          color="text-success"
+        />
+        <StatCard
+          title="Energia Disponível"
+          value={`${(summary?.geracaoDisponivelKw ?? 0).toLocaleString('pt-BR')} kW`}
+          icon="fas fa-bolt"
+          color="text-info"
+        />
+        <StatCard
+          title="Armazenamento"
+          value={formatFileSize(summary?.storageBytes ?? 0)}
+          icon="fas fa-hdd"
+          color="text-warning"
+        />
+      </Row>
+
+      {/* Últimos envios */}
+      <Row className="mb-4">
+        <Col>
+          <Card className="dashboard-card">
+            <Card.Header className="bg-success text-white">
+              <h5 className="mb-0">
+                <i className="fas fa-upload me-2"></i>
+                Últimos Envios
+              </h5>
+            </Card.Header>
+            <Card.Body>
+              {loading ? (
+                <p className="text-muted mb-0">Carregando...</p>
+              ) : !summary || summary.recentUploads.length === 0 ? (
+                <p className="text-muted mb-0">Nenhum arquivo enviado</p>
+              ) : (
+                <Table responsive hover className="mb-0">
+                  <thead>
+                    <tr>
+                      <th>Arquivo</th>
+                      <th>Usuário</th>
+                      <th>Tamanho</th>
+                      <th>Enviado em</th>
+                    </tr>
+                  </thead>
+                  <tbody>
+                    {summary.recentUploads.map((file) => (
+                      <tr key={file.id}>
+                        <td>{file.originalFilename}</td>
+                        <td>{file.userName}</td>
+                        <td>{formatFileSize(file.sizeBytes)}</td>
+                        <td>{formatDate(file.createdAt)}</td>
+                      </tr>
+                    ))}
+                  </tbody>
+                </Table>
+              )}
+            </Card.Body>
+          </Card>
+        </Col>
+      </Row>
+
       {/* Resumo do Sistema */}
       <Row>
         <Col lg={8}>
@@ -13,6 +13,8 @@ const FilesPage: React.FC = () => {
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
   const [uploading, setUploading] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | undefined>();
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     loadData();
@@ -20,11 +22,12 @@ const FilesPage: React.FC = () => {
 
   const loadData = async () => {
     try {
-      const [filesData, usersData] = await Promise.all([
-        FileService.getAll(),
+      const [filesPage, usersData] = await Promise.all([
+        FileService.getPage(),
         UserService.getAll()
       ]);
-      setFiles(filesData);
+      setFiles(filesPage.items);
+      setNextCursor(filesPage.nextCursor);
       setUsers(usersData);
     } catch (error) {
       setError('Erro ao carregar dados');
@@ -33,6 +36,20 @@ const FilesPage: React.FC = () => {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const page = await FileService.getPage(nextCursor);
+      setFiles((current) => [...current, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      setError('Erro ao carregar mais arquivos');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleFileSelect = (e: React.ChangeEvent<HTMLInputElement>) => {
     const file = e.target.files?.[0];
     if (file) {
@@ -202,6 +219,13 @@ const FilesPage: React.FC = () => {
               </tbody>
             </Table>
           )}
+          {!loading && nextCursor && (
+            <div className="text-center">
+              <Button variant="outline-primary" onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? 'Carregando...' : 'Carregar mais'}
+              </Button>
+            </div>
+          )}
         </Card.Body>
       </Card>
 
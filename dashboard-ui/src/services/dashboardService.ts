@@ -0,0 +1,13 @@
+import { api } from './api';
+import { DashboardSummary } from '../models';
+
+export class DashboardService {
+  private static readonly BASE_PATH = '/dashboard';
+
+  static async getSummary(): Promise<DashboardSummary> {
+    const response = await api.get<DashboardSummary>(`${this.BASE_PATH}/summary`);
+    return response.data;
+  }
+}
+
+export default DashboardService;
@@ -1,12 +1,30 @@
 import { api } from './api';
 import { FileInfo, UploadFileRequest } from '../models';
 
+export interface FilePage {
+  items: FileInfo[];
+  // Cursor da próxima página; ausente na última
+  nextCursor?: string;
+}
+
 export class FileService {
   private static readonly BASE_PATH = '/files';
 
+  // Primeira página (mais recentes)
   static async getAll(): Promise<FileInfo[]> {
-    const response = await api.get<FileInfo[]>(this.BASE_PATH);
-    return response.data;
+    return (await this.getPage()).items;
+  }
+
+  static async getPage(cursor?: string, limit?: number): Promise<FilePage> {
+    const response = await api.get<FileInfo[]>(this.BASE_PATH, {
+      params: { cursor, limit }
+    });
+    return { items: response.data, nextCursor: response.headers['x-next-cursor'] };
+  }
+
+  static async count(): Promise<number> {
+    const response = await api.get<{ count: number }>(`${this.BASE_PATH}/count`);
+    return response.data.count;
   }
 
   static async getById(id: number): Promise<FileInfo> {
@@ -1,5 +1,5 @@
 import { api } from './api';
-import { Filial, CreateFilialRequest, UpdateFilialRequest, FilialEnergiaInfo } from '../models';
+import { Filial, CreateFilialRequest, UpdateFilialRequest, FilialEnergiaInfo, FilialPorcentagem } from '../models';
 
 export class FilialService {
   private static readonly BASE_PATH = '/filiais';
@@ -44,6 +44,12 @@ export class FilialService {
     return response.data;
   }
 
+  // Porcentagens de todas as filiais da matriz numa única requisição
+  static async rebalancear(matrizId: number, porcentagens: FilialPorcentagem[]): Promise<Filial[]> {
+    const response = await api.put<Filial[]>(`${this.BASE_PATH}/by-matriz/${matrizId}/porcentagens`, porcentagens);
+    return response.data;
+  }
+
   static async delete(id: number): Promise<void> {
     await api.delete(`${this.BASE_PATH}/${id}`);
   }
@@ -2,5 +2,6 @@ export { UserService } from './userService';
 export { MatrizService } from './matrizService';
 export { FilialService } from './filialService';
 export { FileService } from './fileService';
+export { DashboardService } from './dashboardService';
 export { AuthService } from './authService';
 export { api } from './api';
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.energia;
 
+import com.energia.cli.HeadlessRunner;
 import com.energia.gui.MainWindow;
-import com.energia.service.EnergiaService;
 import com.energia.util.ConfigManager;
 
 import javax.swing.*;
@@ -13,6 +13,15 @@ import java.awt.*;
 public class Main {
     
     public static void main(String[] args) {
+        if (HeadlessRunner.isHeadless(args)) {
+            // Modo linha de comando: não inicializa AWT nem exige display
+            System.setProperty("java.awt.headless", "true");
+            System.exit(new HeadlessRunner().run(args));
+        }
+        startGui();
+    }
+    
+    private static void startGui() {
         // Configurar look and feel do sistema
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
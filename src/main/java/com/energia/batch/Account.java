@@ -0,0 +1,59 @@
+package com.energia.batch;
+
+/**
+ * Credenciais de uma unidade consumidora (matriz ou filial) a ser processada em lote
+ */
+public class Account {
+
+    private final String label;
+    private final String siteUrl;
+    private final String email;
+    private final String cpf;
+    private final String birthDate;
+    private final Integer billingDay;
+
+    public Account(String label, String siteUrl, String email, String cpf, String birthDate) {
+        this(label, siteUrl, email, cpf, birthDate, null);
+    }
+
+    public Account(String label, String siteUrl, String email, String cpf, String birthDate, Integer billingDay) {
+        this.label = label;
+        this.siteUrl = siteUrl;
+        this.email = email;
+        this.cpf = cpf;
+        this.birthDate = birthDate;
+        this.billingDay = billingDay;
+    }
+
+    public String getLabel() {
+        return label == null || label.isEmpty() ? cpf : label;
+    }
+
+    public String getSiteUrl() {
+        return siteUrl;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getCpf() {
+        return cpf;
+    }
+
+    public String getBirthDate() {
+        return birthDate;
+    }
+
+    /**
+     * Dia do mês em que a distribuidora emite a conta, ou null se não informado
+     */
+    public Integer getBillingDay() {
+        return billingDay;
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
@@ -0,0 +1,62 @@
+package com.energia.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê a lista de contas de um arquivo texto separado por ponto e vírgula:
+ * <pre>
+ * descricao;url;email;cpf;dataNascimento[;diaFaturamento]
+ * </pre>
+ * Linhas em branco e iniciadas por '#' são ignoradas. Quando a URL estiver
+ * vazia, é usada a URL padrão informada.
+ */
+public class AccountFileReader {
+
+    private AccountFileReader() {
+    }
+
+    public static List<Account> read(Path file, String defaultSiteUrl) throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] cols = trimmed.split(";", -1);
+                if (lineNumber == 1 && cols[0].trim().equalsIgnoreCase("descricao")) {
+                    continue;
+                }
+                if (cols.length < 5) {
+                    throw new IOException("Linha " + lineNumber + " inválida: esperado descricao;url;email;cpf;dataNascimento");
+                }
+                String url = cols[1].trim().isEmpty() ? defaultSiteUrl : cols[1].trim();
+                if (url == null || url.isEmpty() || cols[3].trim().isEmpty()) {
+                    throw new IOException("Linha " + lineNumber + " inválida: URL e CPF/CNPJ são obrigatórios");
+                }
+                Integer billingDay = null;
+                if (cols.length > 5 && !cols[5].trim().isEmpty()) {
+                    try {
+                        billingDay = Integer.valueOf(cols[5].trim());
+                    } catch (NumberFormatException e) {
+                        billingDay = 0;
+                    }
+                    if (billingDay < 1 || billingDay > 31) {
+                        throw new IOException("Linha " + lineNumber + " inválida: dia de faturamento deve estar entre 1 e 31");
+                    }
+                }
+                accounts.add(new Account(cols[0].trim(), url, cols[2].trim(), cols[3].trim(), cols[4].trim(), billingDay));
+            }
+        }
+        return accounts;
+    }
+}
@@ -0,0 +1,72 @@
+package com.energia.batch;
+
+import com.energia.service.DownloadedFile;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado do processamento de uma conta dentro de um lote
+ */
+public class AccountResult {
+
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        CANCELLED
+    }
+
+    private final Account account;
+    private final Status status;
+    private final Instant startedAt;
+    private final Duration duration;
+    private final String message;
+    private final List<DownloadedFile> files;
+
+    public AccountResult(Account account, Status status, Instant startedAt, Duration duration, String message) {
+        this(account, status, startedAt, duration, message, Collections.emptyList());
+    }
+
+    public AccountResult(Account account, Status status, Instant startedAt, Duration duration, String message,
+                         List<DownloadedFile> files) {
+        this.account = account;
+        this.status = status;
+        this.startedAt = startedAt;
+        this.duration = duration;
+        this.message = message;
+        this.files = files;
+    }
+
+    public static AccountResult cancelled(Account account) {
+        return new AccountResult(account, Status.CANCELLED, Instant.now(), Duration.ZERO, "Lote interrompido");
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Arquivos baixados, quando o status é SUCCESS
+     */
+    public List<DownloadedFile> getFiles() {
+        return files;
+    }
+}
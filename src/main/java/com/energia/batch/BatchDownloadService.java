@@ -0,0 +1,217 @@
+package com.energia.batch;
+
+import com.energia.service.DashboardUploader;
+import com.energia.service.DownloadedFile;
+import com.energia.service.EnergiaService;
+import com.energia.service.ProgressListener;
+import com.energia.service.WebDriverFactory;
+import com.energia.service.WebDriverPool;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executa o download de várias contas em paralelo sobre um pool limitado de
+ * sessões do navegador, consolidando o resultado de cada conta em um relatório.
+ */
+public class BatchDownloadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchDownloadService.class);
+
+    private final ProgressListener listener;
+    private final int concurrency;
+    private final boolean headless;
+    private final boolean forceIncremental;
+    private final Set<EnergiaService> activeServices = ConcurrentHashMap.newKeySet();
+    private volatile boolean shouldStop = false;
+
+    public BatchDownloadService(ProgressListener listener, int concurrency, boolean headless) {
+        this(listener, concurrency, headless, false);
+    }
+
+    /**
+     * @param forceIncremental baixar só as contas que faltam no ledger, mesmo com
+     *                         {@code download.sync=latest} (usado pelo agendamento)
+     */
+    public BatchDownloadService(ProgressListener listener, int concurrency, boolean headless, boolean forceIncremental) {
+        this.listener = listener;
+        this.concurrency = Math.max(1, concurrency);
+        this.headless = headless;
+        this.forceIncremental = forceIncremental;
+    }
+
+    public BatchReport run(List<Account> accounts) {
+        Instant startedAt = Instant.now();
+        int workers = Math.min(concurrency, Math.max(1, accounts.size()));
+        AtomicInteger completed = new AtomicInteger();
+
+        listener.logMessage("Iniciando lote com " + accounts.size() + " contas (concorrência " + workers + ")");
+        listener.updateProgress("Processando lote...", 0);
+
+        WebDriverFactory factory = new WebDriverFactory(EnergiaService.defaultDownloadDirectory(), headless);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new BatchThreadFactory());
+        List<AccountResult> results = new ArrayList<>(accounts.size());
+
+        try (WebDriverPool pool = new WebDriverPool(factory, workers)) {
+            List<Future<AccountResult>> futures = new ArrayList<>(accounts.size());
+            for (Account account : accounts) {
+                futures.add(executor.submit(() -> {
+                    AccountResult result = process(pool, account);
+                    int done = completed.incrementAndGet();
+                    listener.updateProgress("Contas processadas: " + done + "/" + accounts.size(),
+                            done * 100 / accounts.size());
+                    return result;
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(awaitResult(futures.get(i), accounts.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BatchReport report = new BatchReport(startedAt, Instant.now(), workers, results);
+        listener.logMessage(report.toSummaryText());
+        uploadToDashboard(results);
+        return report;
+    }
+
+    public void stop() {
+        shouldStop = true;
+        listener.logMessage("Solicitação de parada do lote recebida...");
+        for (EnergiaService service : activeServices) {
+            service.stop();
+        }
+    }
+
+    /**
+     * Processa uma conta numa sessão emprestada do pool. Usado também pelo
+     * {@link BillingScheduler}, que mantém o próprio pool entre execuções.
+     */
+    AccountResult process(WebDriverPool pool, Account account) {
+        if (shouldStop) {
+            return AccountResult.cancelled(account);
+        }
+
+        WebDriver driver;
+        try {
+            driver = pool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AccountResult.cancelled(account);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao criar sessão do navegador para {}", account, e);
+            return new AccountResult(account, AccountResult.Status.FAILED, Instant.now(), Duration.ZERO,
+                    "Falha ao configurar WebDriver: " + e.getMessage());
+        }
+
+        Instant startedAt = Instant.now();
+        EnergiaService service = new EnergiaService(listener, driver, "[" + account.getLabel() + "] ");
+        if (forceIncremental) {
+            service.setIncrementalSync(true);
+        }
+        activeServices.add(service);
+        boolean healthy = true;
+        try {
+            if (shouldStop) {
+                return AccountResult.cancelled(account);
+            }
+            List<DownloadedFile> files = service.downloadLatestBill(
+                    account.getSiteUrl(), account.getEmail(), account.getCpf(), account.getBirthDate());
+            if (service.isStopped()) {
+                healthy = false;
+                return new AccountResult(account, AccountResult.Status.CANCELLED, startedAt,
+                        Duration.between(startedAt, Instant.now()), "Lote interrompido");
+            }
+            return new AccountResult(account, AccountResult.Status.SUCCESS, startedAt,
+                    Duration.between(startedAt, Instant.now()), describe(files), files);
+        } catch (RuntimeException e) {
+            healthy = !service.isStopped() && !(rootCause(e) instanceof WebDriverException);
+            return new AccountResult(account, service.isStopped() ? AccountResult.Status.CANCELLED : AccountResult.Status.FAILED,
+                    startedAt, Duration.between(startedAt, Instant.now()), rootCause(e).getMessage());
+        } finally {
+            activeServices.remove(service);
+            if (healthy) {
+                pool.release(driver);
+            } else {
+                pool.invalidate(driver);
+            }
+        }
+    }
+
+    /**
+     * Envia ao dashboard, em poucas requisições, todos os arquivos baixados no lote
+     */
+    private void uploadToDashboard(List<AccountResult> results) {
+        DashboardUploader uploader = DashboardUploader.fromConfig();
+        if (uploader == null || shouldStop) {
+            return;
+        }
+        List<DownloadedFile> files = new ArrayList<>();
+        for (AccountResult result : results) {
+            files.addAll(result.getFiles());
+        }
+        if (!files.isEmpty()) {
+            listener.updateProgress("Enviando arquivos ao dashboard...", -1);
+            uploader.upload(files, listener);
+            listener.updateProgress("Lote concluído", 100);
+        }
+    }
+
+    private AccountResult awaitResult(Future<AccountResult> future, Account account) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AccountResult.cancelled(account);
+        } catch (ExecutionException e) {
+            logger.error("Erro inesperado ao processar {}", account, e.getCause());
+            return new AccountResult(account, AccountResult.Status.FAILED, Instant.now(), Duration.ZERO,
+                    e.getCause().getMessage());
+        }
+    }
+
+    private static String describe(List<DownloadedFile> files) {
+        if (files.isEmpty()) {
+            return "Nenhuma conta nova";
+        }
+        if (files.size() == 1) {
+            return files.get(0).toString();
+        }
+        return files.size() + " arquivos";
+    }
+
+    private static Throwable rootCause(Throwable t) {
+        Throwable cause = t;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "energia-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.energia.batch;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Relatório agregado de uma execução em lote
+ */
+public class BatchReport {
+
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final int concurrency;
+    private final List<AccountResult> results;
+
+    public BatchReport(Instant startedAt, Instant finishedAt, int concurrency, List<AccountResult> results) {
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.concurrency = concurrency;
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Duration getElapsed() {
+        return Duration.between(startedAt, finishedAt);
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public List<AccountResult> getResults() {
+        return results;
+    }
+
+    public int getTotal() {
+        return results.size();
+    }
+
+    public int count(AccountResult.Status status) {
+        int count = 0;
+        for (AccountResult result : results) {
+            if (result.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isAllSuccessful() {
+        return count(AccountResult.Status.SUCCESS) == results.size();
+    }
+
+    /**
+     * Resumo legível para o log de atividades
+     */
+    public String toSummaryText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Lote finalizado em ").append(formatDuration(getElapsed()))
+          .append(" (concorrência ").append(concurrency).append(")\n");
+        sb.append("Total: ").append(getTotal())
+          .append(" | Sucesso: ").append(count(AccountResult.Status.SUCCESS))
+          .append(" | Falha: ").append(count(AccountResult.Status.FAILED))
+          .append(" | Cancelado: ").append(count(AccountResult.Status.CANCELLED));
+        for (AccountResult result : results) {
+            sb.append("\n  - ").append(result.getAccount().getLabel())
+              .append(": ").append(result.getStatus())
+              .append(" em ").append(formatDuration(result.getDuration()));
+            if (result.getMessage() != null) {
+                sb.append(" (").append(result.getMessage()).append(")");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String formatDuration(Duration duration) {
+        long seconds = duration.getSeconds();
+        return String.format("%dm%02ds", seconds / 60, seconds % 60);
+    }
+}
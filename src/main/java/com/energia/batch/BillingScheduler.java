@@ -0,0 +1,201 @@
+package com.energia.batch;
+
+import com.energia.service.DashboardUploader;
+import com.energia.service.EnergiaService;
+import com.energia.service.ProgressListener;
+import com.energia.service.WebDriverFactory;
+import com.energia.service.WebDriverPool;
+import com.energia.util.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agenda o download de cada conta de acordo com o seu ciclo de faturamento.
+ * <p>
+ * A cada verificação, uma conta fica pendente quando a conta do ciclo atual
+ * (dia de faturamento + dias até a conta ficar disponível no portal) ainda
+ * não foi baixada com sucesso. As contas pendentes são disparadas com um
+ * atraso aleatório (jitter) para espalhar a carga, e cada login passa por um
+ * limite de acessos por portal. O último sucesso de cada conta é persistido,
+ * então reinícios não repetem downloads do mesmo ciclo.
+ */
+public class BillingScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingScheduler.class);
+
+    private final ProgressListener listener;
+    private final Callable<List<Account>> accountSource;
+    private final ScheduleState state;
+    private final RateLimiter rateLimiter;
+    private final BatchDownloadService downloader;
+    private final WebDriverPool pool;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final DashboardUploader uploader = DashboardUploader.fromConfig();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final long checkMinutes = Math.max(1, ConfigManager.getIntProperty("schedule.checkMinutes", 30));
+    private final long jitterMinutes = Math.max(0, ConfigManager.getIntProperty("schedule.jitterMinutes", 20));
+    private final long retryMinutes = Math.max(1, ConfigManager.getIntProperty("schedule.retryMinutes", 60));
+    private final int defaultBillingDay = ConfigManager.getIntProperty("schedule.defaultBillingDay", 1);
+    private final int availabilityDays = ConfigManager.getIntProperty("schedule.availabilityDays", 0);
+
+    // Contas já agendadas ou em execução, e o próximo horário permitido após uma falha
+    private final Map<String, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Instant> retryAfter = new ConcurrentHashMap<>();
+
+    private List<Account> accounts = Collections.emptyList();
+
+    public BillingScheduler(ProgressListener listener, Callable<List<Account>> accountSource,
+                            ScheduleState state, int concurrency) {
+        this.listener = listener;
+        this.accountSource = accountSource;
+        this.state = state;
+        this.rateLimiter = new RateLimiter(
+            ConfigManager.getIntProperty("schedule.rate.perMinute", 4),
+            ConfigManager.getIntProperty("schedule.rate.burst", 2));
+        int workerCount = Math.max(1, concurrency);
+        // Sempre incremental: no modo latest a conta do mês anterior seria dada como a do ciclo
+        this.downloader = new BatchDownloadService(listener, workerCount, true, true);
+        this.pool = new WebDriverPool(new WebDriverFactory(EnergiaService.defaultDownloadDirectory(), true), workerCount);
+        AtomicInteger counter = new AtomicInteger();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "energia-schedule-timer"));
+        this.workers = Executors.newFixedThreadPool(workerCount,
+            r -> daemon(r, "energia-schedule-" + counter.incrementAndGet()));
+    }
+
+    public void start() {
+        listener.logMessage("Agendamento iniciado: verificação a cada " + checkMinutes + " min, jitter até "
+            + jitterMinutes + " min");
+        timer.scheduleWithFixedDelay(this::check, 0, checkMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Início do ciclo de faturamento vigente em {@code today}: dia de
+     * faturamento do mês (limitado ao último dia) somado aos dias até a conta
+     * aparecer no portal; antes dessa data, vale o ciclo do mês anterior.
+     */
+    static LocalDate cycleStart(LocalDate today, int billingDay, int availabilityDays) {
+        LocalDate current = billingDate(YearMonth.from(today), billingDay).plusDays(availabilityDays);
+        if (today.isBefore(current)) {
+            return billingDate(YearMonth.from(today).minusMonths(1), billingDay).plusDays(availabilityDays);
+        }
+        return current;
+    }
+
+    private static LocalDate billingDate(YearMonth month, int billingDay) {
+        return month.atDay(Math.min(Math.max(1, billingDay), month.lengthOfMonth()));
+    }
+
+    private void check() {
+        try {
+            accounts = accountSource.call();
+        } catch (Exception e) {
+            // Mantém a última lista conhecida: uma falha do dashboard não para o agendamento
+            logger.warn("Não foi possível atualizar a lista de contas: {}", e.getMessage());
+        }
+
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now(zone);
+        for (Account account : accounts) {
+            String key = account.getCpf();
+            if (inFlight.containsKey(key) || !isDue(account, today, now)) {
+                continue;
+            }
+            inFlight.put(key, Boolean.TRUE);
+            long delaySeconds = jitterMinutes == 0 ? 0
+                : ThreadLocalRandom.current().nextLong(TimeUnit.MINUTES.toSeconds(jitterMinutes) + 1);
+            listener.logMessage("[" + account.getLabel() + "] Conta pendente; download em " + delaySeconds + "s");
+            timer.schedule(() -> workers.submit(() -> runJob(account)), delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean isDue(Account account, LocalDate today, Instant now) {
+        Instant retry = retryAfter.get(account.getCpf());
+        if (retry != null && now.isBefore(retry)) {
+            return false;
+        }
+        int billingDay = account.getBillingDay() != null ? account.getBillingDay() : defaultBillingDay;
+        Instant cycle = cycleStart(today, billingDay, availabilityDays).atStartOfDay(zone).toInstant();
+        Instant lastSuccess = state.getLastSuccess(account);
+        return lastSuccess == null || lastSuccess.isBefore(cycle);
+    }
+
+    private void runJob(Account account) {
+        String key = account.getCpf();
+        try {
+            rateLimiter.acquire(host(account.getSiteUrl()));
+            AccountResult result = downloader.process(pool, account);
+            if (result.getStatus() == AccountResult.Status.SUCCESS && result.getFiles().isEmpty()) {
+                // Nenhuma conta nova no ledger: a do ciclo ainda não saiu no portal
+                retryAfter.put(key, Instant.now().plusSeconds(TimeUnit.MINUTES.toSeconds(retryMinutes)));
+                listener.logMessage("[" + account.getLabel() + "] Conta do ciclo ainda não disponível; nova verificação em "
+                    + retryMinutes + " min");
+            } else if (result.getStatus() == AccountResult.Status.SUCCESS) {
+                retryAfter.remove(key);
+                state.recordSuccess(account, Instant.now());
+                if (uploader != null) {
+                    uploader.upload(result.getFiles(), listener);
+                }
+                listener.logMessage("[" + account.getLabel() + "] Download agendado concluído: " + result.getMessage());
+            } else {
+                retryAfter.put(key, Instant.now().plusSeconds(TimeUnit.MINUTES.toSeconds(retryMinutes)));
+                listener.logMessage("[" + account.getLabel() + "] Download agendado falhou (" + result.getMessage()
+                    + "); nova tentativa em " + retryMinutes + " min");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Não foi possível gravar o estado do agendamento", e);
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private static String host(String siteUrl) {
+        try {
+            String host = URI.create(siteUrl).getHost();
+            return host == null ? siteUrl : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return siteUrl;
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        downloader.stop();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.energia.batch;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lê a lista de contas dos usuários cadastrados no dashboard
+ * ({@code GET /api/users}). O cadastro não tem data de nascimento nem URL do
+ * portal: as contas usam a URL padrão e o login por email.
+ */
+public class DashboardAccountReader {
+
+    private DashboardAccountReader() {
+    }
+
+    public static List<Account> read(String apiUrl, String defaultSiteUrl) throws IOException {
+        if (defaultSiteUrl == null || defaultSiteUrl.isEmpty()) {
+            throw new IOException("URL do portal (site.url) é obrigatória para contas do dashboard");
+        }
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(stripSlash(apiUrl) + "/api/users"))
+            .timeout(Duration.ofSeconds(30))
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Consulta ao dashboard interrompida", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Dashboard respondeu HTTP " + response.statusCode() + " em /api/users");
+        }
+
+        List<Map<String, Object>> users;
+        try {
+            users = new Json().toType(response.body(), Json.LIST_OF_MAPS_TYPE);
+        } catch (JsonException e) {
+            throw new IOException("Resposta inválida do dashboard: " + e.getMessage(), e);
+        }
+
+        List<Account> accounts = new ArrayList<>(users.size());
+        for (Map<String, Object> user : users) {
+            String cpf = text(user.get("cpfCnpj"));
+            if (cpf.isEmpty()) {
+                continue;
+            }
+            accounts.add(new Account(text(user.get("fullName")), defaultSiteUrl, text(user.get("email")), cpf, ""));
+        }
+        return accounts;
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString().trim();
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,51 @@
+package com.energia.batch;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de acessos por portal (host), em balde de fichas: permite uma rajada
+ * de {@code burst} acessos e depois repõe {@code perMinute} fichas por minuto.
+ */
+public class RateLimiter {
+
+    private final int burst;
+    private final double tokensPerNano;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(int perMinute, int burst) {
+        this.burst = Math.max(1, burst);
+        this.tokensPerNano = Math.max(1, perMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+
+    /**
+     * Bloqueia até haver uma ficha disponível para o host
+     */
+    public void acquire(String host) throws InterruptedException {
+        Bucket bucket = buckets.computeIfAbsent(host == null ? "" : host, h -> new Bucket());
+        long waitNanos;
+        while ((waitNanos = bucket.tryTake()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private class Bucket {
+        private double tokens = burst;
+        private long refilledAt = System.nanoTime();
+
+        /**
+         * Consome uma ficha e retorna 0, ou retorna quanto esperar pela próxima
+         */
+        synchronized long tryTake() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.energia.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+
+/**
+ * Último download bem-sucedido de cada conta, persistido em arquivo para que
+ * o agendamento sobreviva a reinícios e não baixe de novo uma conta do mesmo
+ * ciclo de faturamento.
+ */
+public class ScheduleState {
+
+    private static final String LAST_SUCCESS_PREFIX = "lastSuccess.";
+
+    private final Path file;
+    private final Properties properties = new Properties();
+
+    public ScheduleState(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+    }
+
+    public synchronized Instant getLastSuccess(Account account) {
+        String value = properties.getProperty(LAST_SUCCESS_PREFIX + key(account));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public synchronized void recordSuccess(Account account, Instant when) throws IOException {
+        properties.setProperty(LAST_SUCCESS_PREFIX + key(account), when.toString());
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, ".energia-state", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Estado do agendamento de downloads");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(Account account) {
+        String digits = account.getCpf().replaceAll("[^0-9A-Za-z]", "");
+        return digits.isEmpty() ? account.getLabel() : digits;
+    }
+}
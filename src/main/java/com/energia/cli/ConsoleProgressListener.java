@@ -0,0 +1,28 @@
+package com.energia.cli;
+
+import com.energia.service.ProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Envia o log da automação para o logback (stderr e arquivo), deixando a
+ * saída padrão livre para o resumo em JSON.
+ */
+public class ConsoleProgressListener implements ProgressListener {
+
+    private static final Logger logger = LoggerFactory.getLogger("com.energia.cli");
+
+    @Override
+    public void logMessage(String message) {
+        logger.info(message);
+    }
+
+    @Override
+    public void updateProgress(String message, int progress) {
+        if (progress >= 0) {
+            logger.debug("{} ({}%)", message, progress);
+        } else {
+            logger.debug(message);
+        }
+    }
+}
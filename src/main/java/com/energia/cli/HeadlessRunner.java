@@ -0,0 +1,231 @@
+package com.energia.cli;
+
+import com.energia.batch.Account;
+import com.energia.batch.AccountFileReader;
+import com.energia.batch.AccountResult;
+import com.energia.batch.BatchDownloadService;
+import com.energia.batch.BatchReport;
+import com.energia.batch.BillingScheduler;
+import com.energia.batch.DashboardAccountReader;
+import com.energia.batch.ScheduleState;
+import com.energia.service.DownloadedFile;
+import com.energia.util.ConfigManager;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Execução sem interface gráfica, para cron e containers. Lê as contas de um
+ * arquivo ({@code --batch}), do dashboard ({@code --api}) ou da configuração
+ * salva, baixa tudo com o Chrome em modo headless e imprime um resumo em JSON
+ * na saída padrão. Com {@code --daemon}, fica em execução e baixa cada
+ * conta conforme o ciclo de faturamento ({@link BillingScheduler}).
+ * <p>
+ * Códigos de saída: 0 todas as contas com sucesso, 2 sucesso parcial,
+ * 1 nenhuma conta baixada ou erro de configuração.
+ */
+public class HeadlessRunner {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FATAL = 1;
+    public static final int EXIT_PARTIAL = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessRunner.class);
+
+    private String batchFile;
+    private String apiUrl;
+    private boolean daemon;
+    private int concurrency = ConfigManager.getIntProperty("batch.concurrency", 3);
+
+    /**
+     * Indica se os argumentos pedem a execução sem interface gráfica
+     */
+    public static boolean isHeadless(String[] args) {
+        for (String arg : args) {
+            if ("--headless".equals(arg) || "--batch".equals(arg) || "--api".equals(arg) || "--daemon".equals(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int run(String[] args) {
+        List<Account> accounts;
+        try {
+            parse(args);
+            accounts = loadAccounts();
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error(e.getMessage());
+            printSummary(fatal(e.getMessage()));
+            return EXIT_FATAL;
+        }
+        if (accounts.isEmpty() && !daemon) {
+            printSummary(fatal("Nenhuma conta para processar"));
+            return EXIT_FATAL;
+        }
+        if (daemon) {
+            return runDaemon();
+        }
+
+        BatchDownloadService service = new BatchDownloadService(new ConsoleProgressListener(), concurrency, true);
+        Thread shutdownHook = new Thread(service::stop, "energia-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        BatchReport report;
+        try {
+            report = service.run(accounts);
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM já está encerrando: o hook faz a parada
+            }
+        }
+
+        printSummary(summary(report));
+        if (report.isAllSuccessful()) {
+            return EXIT_OK;
+        }
+        return report.count(AccountResult.Status.SUCCESS) > 0 ? EXIT_PARTIAL : EXIT_FATAL;
+    }
+
+    /**
+     * Mantém o agendamento ativo até o processo receber um sinal de parada.
+     * A lista de contas é relida a cada verificação.
+     */
+    private int runDaemon() {
+        BillingScheduler scheduler;
+        try {
+            ScheduleState state = new ScheduleState(
+                Paths.get(ConfigManager.getProperty("schedule.stateFile", "energia-state.properties")));
+            scheduler = new BillingScheduler(new ConsoleProgressListener(), this::loadAccounts, state, concurrency);
+        } catch (IOException e) {
+            logger.error("Não foi possível ler o estado do agendamento", e);
+            return EXIT_FATAL;
+        }
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.close();
+            stopped.countDown();
+        }, "energia-shutdown"));
+        scheduler.start();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return EXIT_OK;
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--headless":
+                    break;
+                case "--daemon":
+                    daemon = true;
+                    break;
+                case "--batch":
+                    batchFile = value(args, ++i, "--batch");
+                    break;
+                case "--api":
+                    apiUrl = value(args, ++i, "--api");
+                    break;
+                case "--concurrency":
+                    try {
+                        concurrency = Integer.parseInt(value(args, ++i, "--concurrency"));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Valor inválido para --concurrency: " + args[i]);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        if (batchFile != null && apiUrl != null) {
+            throw new IllegalArgumentException("Use --batch ou --api, não ambos");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length || args[index].startsWith("--")) {
+            throw new IllegalArgumentException("Valor ausente para " + option);
+        }
+        return args[index];
+    }
+
+    private List<Account> loadAccounts() throws IOException {
+        String siteUrl = ConfigManager.getProperty("site.url");
+        if (batchFile != null) {
+            return AccountFileReader.read(Paths.get(batchFile), siteUrl);
+        }
+        if (apiUrl != null) {
+            return DashboardAccountReader.read(apiUrl, siteUrl);
+        }
+        // Sem lista de contas: usa a conta salva pela interface gráfica
+        String cpf = ConfigManager.getProperty("user.cpf");
+        if (siteUrl == null || siteUrl.isEmpty() || cpf == null || cpf.isEmpty()) {
+            throw new IllegalArgumentException("Informe --batch <arquivo>, --api <url> ou configure site.url e user.cpf");
+        }
+        return Collections.singletonList(new Account("", siteUrl,
+            ConfigManager.getProperty("user.email", ""), cpf, ConfigManager.getProperty("user.birthDate", "")));
+    }
+
+    private static Map<String, Object> summary(BatchReport report) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", report.isAllSuccessful() ? "ok"
+            : report.count(AccountResult.Status.SUCCESS) > 0 ? "partial" : "failed");
+        summary.put("startedAt", report.getStartedAt().toString());
+        summary.put("elapsedMs", report.getElapsed().toMillis());
+        summary.put("concurrency", report.getConcurrency());
+        summary.put("total", report.getTotal());
+        summary.put("success", report.count(AccountResult.Status.SUCCESS));
+        summary.put("failed", report.count(AccountResult.Status.FAILED));
+        summary.put("cancelled", report.count(AccountResult.Status.CANCELLED));
+
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (AccountResult result : report.getResults()) {
+            Map<String, Object> account = new LinkedHashMap<>();
+            account.put("label", result.getAccount().getLabel());
+            account.put("status", result.getStatus().name());
+            account.put("durationMs", result.getDuration().toMillis());
+            if (result.getMessage() != null) {
+                account.put("message", result.getMessage());
+            }
+            List<Map<String, Object>> files = new ArrayList<>();
+            for (DownloadedFile file : result.getFiles()) {
+                Map<String, Object> f = new LinkedHashMap<>();
+                f.put("path", file.getPath().toString());
+                f.put("sizeBytes", file.getSizeBytes());
+                if (file.getInvoice() != null) {
+                    f.put("invoice", file.getInvoice().toMap());
+                }
+                files.add(f);
+            }
+            account.put("files", files);
+            accounts.add(account);
+        }
+        summary.put("accounts", accounts);
+        return summary;
+    }
+
+    private static Map<String, Object> fatal(String message) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", "error");
+        summary.put("message", message);
+        return summary;
+    }
+
+    private static void printSummary(Map<String, Object> summary) {
+        System.out.println(new Json().toJson(summary));
+        System.out.flush();
+    }
+}
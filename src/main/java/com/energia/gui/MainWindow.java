@@ -1,6 +1,14 @@
 package com.energia.gui;
 
+import com.energia.batch.Account;
+import com.energia.batch.AccountFileReader;
+import com.energia.batch.AccountResult;
+import com.energia.batch.BatchDownloadService;
+import com.energia.batch.BatchReport;
+import com.energia.service.DashboardUploader;
+import com.energia.service.DownloadedFile;
 import com.energia.service.EnergiaService;
+import com.energia.service.ProgressListener;
 import com.energia.util.ConfigManager;
 
 import javax.swing.*;
@@ -9,11 +17,12 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.List;
 
 /**
  * Janela principal da aplicação
  */
-public class MainWindow extends JFrame {
+public class MainWindow extends JFrame implements ProgressListener {
     
     private JTextField emailField;
     private JTextField cpfField;
@@ -21,11 +30,13 @@ public class MainWindow extends JFrame {
     private JTextField urlField;
     private JTextArea logArea;
     private JButton startButton;
+    private JButton batchButton;
     private JButton stopButton;
     private JButton configButton;
     private JProgressBar progressBar;
     
     private EnergiaService energiaService;
+    private BatchDownloadService batchService;
     private boolean isRunning = false;
     
     public MainWindow() {
@@ -47,6 +58,7 @@ public class MainWindow extends JFrame {
         urlField = new JTextField(30);
         logArea = new JTextArea(15, 60);
         startButton = new JButton("Iniciar Download");
+        batchButton = new JButton("Download em Lote");
         stopButton = new JButton("Parar");
         configButton = new JButton("Configurações");
         progressBar = new JProgressBar();
@@ -135,6 +147,7 @@ public class MainWindow extends JFrame {
         // Painel de botões
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         buttonPanel.add(startButton);
+        buttonPanel.add(batchButton);
         buttonPanel.add(stopButton);
         buttonPanel.add(configButton);
         
@@ -168,6 +181,13 @@ public class MainWindow extends JFrame {
             }
         });
         
+        batchButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startBatchDownload();
+            }
+        });
+        
         stopButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -205,6 +225,7 @@ public class MainWindow extends JFrame {
         // Iniciar processo
         isRunning = true;
         startButton.setEnabled(false);
+        batchButton.setEnabled(false);
         stopButton.setEnabled(true);
         progressBar.setString("Iniciando...");
         progressBar.setIndeterminate(true);
@@ -216,12 +237,16 @@ public class MainWindow extends JFrame {
         new Thread(() -> {
             try {
                 energiaService = new EnergiaService(this);
-                energiaService.downloadLatestBill(
+                List<DownloadedFile> files = energiaService.downloadLatestBill(
                     urlField.getText().trim(),
                     emailField.getText().trim(),
                     cpfField.getText().trim(),
                     birthDateField.getText().trim()
                 );
+                DashboardUploader uploader = DashboardUploader.fromConfig();
+                if (uploader != null && !files.isEmpty()) {
+                    uploader.upload(files, this);
+                }
             } catch (Exception e) {
                 logMessage("ERRO: " + e.getMessage());
                 SwingUtilities.invokeLater(() -> {
@@ -233,6 +258,7 @@ public class MainWindow extends JFrame {
                 SwingUtilities.invokeLater(() -> {
                     isRunning = false;
                     startButton.setEnabled(true);
+                    batchButton.setEnabled(true);
                     stopButton.setEnabled(false);
                     progressBar.setIndeterminate(false);
                     progressBar.setString("Concluído");
@@ -241,12 +267,89 @@ public class MainWindow extends JFrame {
         }).start();
     }
     
+    private void startBatchDownload() {
+        if (isRunning) {
+            return;
+        }
+        
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Selecione o arquivo de contas (descricao;url;email;cpf;dataNascimento)");
+        String lastFile = ConfigManager.getProperty("batch.accountsFile");
+        if (lastFile != null) {
+            chooser.setSelectedFile(new File(lastFile));
+        }
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        File accountsFile = chooser.getSelectedFile();
+        List<Account> accounts;
+        try {
+            accounts = AccountFileReader.read(accountsFile.toPath(), urlField.getText().trim());
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                "Erro ao ler arquivo de contas: " + e.getMessage(),
+                "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (accounts.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Nenhuma conta encontrada no arquivo selecionado.",
+                "Validação", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        ConfigManager.setProperty("batch.accountsFile", accountsFile.getAbsolutePath());
+        ConfigManager.saveConfig();
+        
+        int concurrency = ConfigManager.getIntProperty("batch.concurrency", 3);
+        boolean headless = ConfigManager.getBooleanProperty("headless.mode", true);
+        
+        isRunning = true;
+        startButton.setEnabled(false);
+        batchButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(0);
+        progressBar.setString("Iniciando lote...");
+        logArea.setText("");
+        
+        batchService = new BatchDownloadService(this, concurrency, headless);
+        new Thread(() -> {
+            try {
+                BatchReport report = batchService.run(accounts);
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(MainWindow.this,
+                        "Lote finalizado: " + report.count(AccountResult.Status.SUCCESS) + " de "
+                            + report.getTotal() + " contas baixadas com sucesso.",
+                        "Download em Lote",
+                        report.isAllSuccessful() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                });
+            } catch (Exception e) {
+                logMessage("ERRO no lote: " + e.getMessage());
+            } finally {
+                SwingUtilities.invokeLater(() -> {
+                    isRunning = false;
+                    batchService = null;
+                    startButton.setEnabled(true);
+                    batchButton.setEnabled(true);
+                    stopButton.setEnabled(false);
+                    progressBar.setString("Lote concluído");
+                });
+            }
+        }, "energia-batch-coordinator").start();
+    }
+    
     private void stopDownload() {
         if (energiaService != null) {
             energiaService.stop();
         }
+        if (batchService != null) {
+            batchService.stop();
+        }
         isRunning = false;
         startButton.setEnabled(true);
+        batchButton.setEnabled(true);
         stopButton.setEnabled(false);
         progressBar.setIndeterminate(false);
         progressBar.setString("Interrompido");
@@ -281,6 +384,7 @@ public class MainWindow extends JFrame {
     }
     
     // Métodos públicos para comunicação com o serviço
+    @Override
     public void logMessage(String message) {
         SwingUtilities.invokeLater(() -> {
             logArea.append("[" + java.time.LocalTime.now().toString() + "] " + message + "\n");
@@ -288,6 +392,7 @@ public class MainWindow extends JFrame {
         });
     }
     
+    @Override
     public void updateProgress(String message, int progress) {
         SwingUtilities.invokeLater(() -> {
             progressBar.setString(message);
@@ -0,0 +1,90 @@
+package com.energia.service;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remove do navegador o estado da conta anterior: cookies de todos os
+ * domínios e o armazenamento (localStorage, sessionStorage, IndexedDB, cache)
+ * das origens por onde a sessão passou, para que nada dela chegue à próxima
+ * conta nem ao {@link SessionCache}.
+ */
+final class BrowserState {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserState.class);
+
+    private static final String CLEAR_STORAGE_SCRIPT =
+        "try { localStorage.clear(); sessionStorage.clear(); } catch (e) {}";
+
+    private BrowserState() {
+    }
+
+    static void clear(WebDriver driver) {
+        if (driver instanceof ChromeDriver) {
+            ChromeDriver chrome = (ChromeDriver) driver;
+            // O armazenamento é por origem: as origens vêm da página atual e dos domínios dos cookies (SSO incluído)
+            for (String origin : origins(chrome)) {
+                try {
+                    chrome.executeCdpCommand("Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"));
+                } catch (Exception e) {
+                    logger.debug("Armazenamento de {} não foi limpo: {}", origin, e.getMessage());
+                }
+            }
+            chrome.executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+            return;
+        }
+        // Sem CDP, só é possível limpar o armazenamento da origem carregada
+        if (origin(driver.getCurrentUrl()) != null) {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+        }
+        driver.manage().deleteAllCookies();
+    }
+
+    private static Set<String> origins(ChromeDriver chrome) {
+        Set<String> origins = new LinkedHashSet<>();
+        String current = origin(chrome.getCurrentUrl());
+        if (current != null) {
+            origins.add(current);
+        }
+        Map<String, Object> result = chrome.executeCdpCommand("Network.getAllCookies", Collections.emptyMap());
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> cookies = (List<Map<String, Object>>) result.get("cookies");
+        for (Map<String, Object> cookie : cookies) {
+            String domain = (String) cookie.get("domain");
+            if (domain == null || domain.isEmpty()) {
+                continue;
+            }
+            String host = domain.startsWith(".") ? domain.substring(1) : domain;
+            origins.add("https://" + host);
+            if (!Boolean.TRUE.equals(cookie.get("secure"))) {
+                origins.add("http://" + host);
+            }
+        }
+        return origins;
+    }
+
+    private static String origin(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = URI.create(url);
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+                return null;
+            }
+            return uri.getScheme() + "://" + uri.getRawAuthority();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.energia.service;
+
+import com.energia.util.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envia os PDFs baixados ao dashboard ({@code POST /api/files/batch}), vários
+ * arquivos por requisição. Cada arquivo vai para o usuário do dashboard com o
+ * mesmo CPF/CNPJ da conta; contas sem usuário cadastrado são ignoradas.
+ * <p>
+ * Falhas de envio são registradas no log e não afetam o resultado do download.
+ */
+public class DashboardUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardUploader.class);
+
+    // Abaixo do limite de requisição multipart da API (200MB)
+    private static final long MAX_REQUEST_BYTES = 180L * 1024 * 1024;
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    // CPF/CNPJ -> cadastrado no dashboard, consultado uma vez por processo
+    private static final Map<String, Boolean> REGISTERED = new ConcurrentHashMap<>();
+
+    private final String baseUrl;
+    private final int batchSize;
+
+    public DashboardUploader(String baseUrl, int batchSize) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Envio configurado em {@code dashboard.upload.enabled} e {@code dashboard.url}
+     *
+     * @return o uploader, ou null se o envio automático estiver desativado
+     */
+    public static DashboardUploader fromConfig() {
+        String url = ConfigManager.getProperty("dashboard.url", "");
+        if (!ConfigManager.getBooleanProperty("dashboard.upload.enabled", false) || url.trim().isEmpty()) {
+            return null;
+        }
+        return new DashboardUploader(url.trim(), ConfigManager.getIntProperty("dashboard.upload.batchSize", 50));
+    }
+
+    /**
+     * Envia os arquivos em lotes de até {@code batchSize} arquivos
+     *
+     * @return quantidade de arquivos aceitos pelo dashboard
+     */
+    public int upload(List<DownloadedFile> files, ProgressListener listener) {
+        List<DownloadedFile> pending = new ArrayList<>();
+        for (DownloadedFile file : files) {
+            if (isRegistered(file.getAccountKey())) {
+                pending.add(file);
+            } else {
+                listener.logMessage("Dashboard: CPF/CNPJ " + file.getAccountKey()
+                    + " sem usuário cadastrado; " + file.getPath().getFileName() + " não enviado");
+            }
+        }
+
+        int uploaded = 0;
+        List<DownloadedFile> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        for (DownloadedFile file : pending) {
+            if (!chunk.isEmpty() && (chunk.size() >= batchSize || chunkBytes + file.getSizeBytes() > MAX_REQUEST_BYTES)) {
+                uploaded += send(chunk, listener);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(file);
+            chunkBytes += file.getSizeBytes();
+        }
+        if (!chunk.isEmpty()) {
+            uploaded += send(chunk, listener);
+        }
+        if (!files.isEmpty()) {
+            listener.logMessage("Dashboard: " + uploaded + " de " + files.size() + " arquivo(s) enviados");
+        }
+        return uploaded;
+    }
+
+    private int send(List<DownloadedFile> chunk, ProgressListener listener) {
+        String boundary = "----energia" + UUID.randomUUID().toString().replace("-", "");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/files/batch"))
+            .timeout(Duration.ofMinutes(5))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofInputStream(() -> multipartBody(boundary, chunk)))
+            .build();
+        try {
+            HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 201) {
+                return chunk.size();
+            }
+            listener.logMessage("AVISO: dashboard recusou o envio de " + chunk.size() + " arquivo(s): HTTP "
+                + response.statusCode() + " " + response.body());
+        } catch (IOException | UncheckedIOException e) {
+            listener.logMessage("AVISO: falha ao enviar arquivos ao dashboard: " + e.getMessage());
+            logger.warn("Falha no envio ao dashboard", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    /**
+     * Corpo multipart lido sob demanda: cada PDF só é aberto quando o envio chega nele
+     */
+    private static InputStream multipartBody(String boundary, List<DownloadedFile> files) {
+        List<Callable<InputStream>> parts = new ArrayList<>();
+        for (DownloadedFile file : files) {
+            parts.add(() -> text("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"cpfCnpj\"\r\n\r\n"
+                + file.getAccountKey() + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\""
+                + file.getPath().getFileName().toString().replace("\"", "_") + "\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n"));
+            parts.add(() -> Files.newInputStream(file.getPath()));
+            parts.add(() -> text("\r\n"));
+        }
+        parts.add(() -> text("--" + boundary + "--\r\n"));
+
+        Iterator<Callable<InputStream>> it = parts.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return it.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return it.next().call();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private static InputStream text(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isRegistered(String cpfCnpj) {
+        Boolean registered = REGISTERED.get(cpfCnpj);
+        if (registered != null) {
+            return registered;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/cpf?cpfCnpj="
+                + URLEncoder.encode(cpfCnpj, StandardCharsets.UTF_8)))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        try {
+            registered = CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            REGISTERED.put(cpfCnpj, registered);
+            return registered;
+        } catch (IOException e) {
+            // Dashboard fora do ar: tenta enviar (sem guardar a resposta) e deixa o erro aparecer no envio
+            logger.debug("Consulta de usuário no dashboard falhou: {}", e.getMessage());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+}
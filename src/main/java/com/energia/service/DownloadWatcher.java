@@ -0,0 +1,437 @@
+package com.energia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Observa o diretório de download com {@link WatchService} e associa cada
+ * arquivo baixado pelo Chrome à conta que disparou o download.
+ * <p>
+ * Várias sessões podem compartilhar o mesmo diretório: apenas o instante do
+ * disparo é serializado (até o Chrome criar o arquivo {@code .crdownload}),
+ * a transferência em si continua em paralelo. Quando o Chrome renomeia o
+ * arquivo parcial para o nome final, o conteúdo é verificado (tamanho e
+ * cabeçalho PDF), o arquivo recebe o prefixo da conta e o future é concluído.
+ */
+public class DownloadWatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadWatcher.class);
+
+    private static final String PARTIAL_SUFFIX = ".crdownload";
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final long RENAME_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+    // Arquivo gravado sem .crdownload: tamanho inalterado por este tempo = escrita concluída.
+    // A espera vai no máximo até o prazo de expect(), depois do qual ninguém aguarda o arquivo
+    private static final long STABLE_MILLIS = 500;
+    private static final long STABLE_POLL_MILLIS = 100;
+    private static final Map<Path, DownloadWatcher> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final ReentrantLock triggerLock = new ReentrantLock(true);
+    // Espera a escrita de arquivos sem .crdownload terminar, fora da thread do WatchService
+    private final ExecutorService stabilityExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread t = new Thread(runnable, "energia-download-stability");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Estado protegido por synchronized(this)
+    private Pending claiming;
+    private final Map<String, Pending> inProgress = new HashMap<>();
+    private final Deque<Pending> renamed = new ArrayDeque<>();
+    private final Set<String> ownRenames = new HashSet<>();
+
+    private volatile boolean closed = false;
+
+    private DownloadWatcher(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watchLoop, "energia-download-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Retorna o observador compartilhado do diretório, criando-o se necessário
+     */
+    public static DownloadWatcher forDirectory(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        try {
+            return INSTANCES.computeIfAbsent(key, dir -> {
+                try {
+                    return new DownloadWatcher(dir);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executa o disparo do download e retorna um future concluído quando o
+     * arquivo correspondente estiver completo e verificado.
+     *
+     * @param accountKey   identificador da conta (usado como prefixo do arquivo)
+     * @param trigger      ação que inicia o download no navegador
+     * @param startTimeout tempo máximo para o Chrome começar a gravar o arquivo
+     */
+    public CompletableFuture<DownloadedFile> expect(String accountKey, Runnable trigger, Duration startTimeout)
+            throws InterruptedException, TimeoutException {
+        if (closed) {
+            throw new IllegalStateException("Observador de downloads encerrado");
+        }
+        Pending pending = new Pending(accountKey);
+        pending.future.whenComplete((file, error) -> forget(pending));
+
+        triggerLock.lockInterruptibly();
+        try {
+            synchronized (this) {
+                claiming = pending;
+            }
+            pending.startedAt = System.nanoTime();
+            pending.claimDeadline = pending.startedAt + startTimeout.toNanos();
+            try {
+                trigger.run();
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+                throw e;
+            }
+            if (!pending.claimed.await(startTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                TimeoutException timeout = new TimeoutException(
+                    "Download não iniciou em " + startTimeout.getSeconds() + "s");
+                pending.future.completeExceptionally(timeout);
+                throw timeout;
+            }
+        } finally {
+            synchronized (this) {
+                if (claiming == pending) {
+                    claiming = null;
+                }
+            }
+            triggerLock.unlock();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Incorpora ao diretório um arquivo baixado fora do navegador (gravado
+     * num arquivo oculto do próprio diretório), aplicando a mesma verificação
+     * e o mesmo prefixo de conta, sem que ele seja confundido com um download
+     * do Chrome em andamento.
+     */
+    public DownloadedFile adopt(String accountKey, Path source, String fileName, Duration latency) throws IOException {
+        try {
+            long size = verifyPdf(source);
+            Path target = accountPrefixed(accountKey, source, fileName);
+            return new DownloadedFile(accountKey, target, size, latency);
+        } catch (IOException e) {
+            Files.deleteIfExists(source);
+            throw e;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        INSTANCES.remove(directory, this);
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Erro ao encerrar WatchService: {}", e.getMessage());
+        }
+        stabilityExecutor.shutdownNow();
+        List<Pending> outstanding = new ArrayList<>();
+        synchronized (this) {
+            outstanding.addAll(inProgress.values());
+            outstanding.addAll(renamed);
+        }
+        for (Pending pending : outstanding) {
+            pending.future.cancel(false);
+        }
+    }
+
+    private void watchLoop() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    logger.warn("Eventos de arquivo perdidos em {}; downloads em andamento podem expirar", directory);
+                    continue;
+                }
+                Path name = (Path) event.context();
+                try {
+                    onEvent(event.kind(), name.toString());
+                } catch (RuntimeException e) {
+                    logger.error("Erro ao processar evento {} de {}", event.kind().name(), name, e);
+                }
+            }
+            if (!key.reset()) {
+                logger.error("Diretório de download não está mais acessível: {}", directory);
+                return;
+            }
+        }
+    }
+
+    private void onEvent(WatchEvent.Kind<?> kind, String name) {
+        Pending completed = null;
+        Pending candidate = null;
+        synchronized (this) {
+            boolean partial = name.endsWith(PARTIAL_SUFFIX);
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                // Rename do arquivo parcial chega como DELETE seguido de CREATE
+                Pending pending = partial ? inProgress.remove(name) : null;
+                if (pending != null) {
+                    pending.vanishedAt = System.nanoTime();
+                    renamed.addLast(pending);
+                }
+                return;
+            }
+            if (kind != StandardWatchEventKinds.ENTRY_CREATE || name.startsWith(".")) {
+                return;
+            }
+            if (ownRenames.remove(name)) {
+                return;
+            }
+            if (partial) {
+                // Um parcial que acabou de sumir tem prioridade: é o mesmo download trocando de nome
+                Pending pending = pollRenamed();
+                if (pending == null) {
+                    pending = claiming;
+                }
+                if (pending != null) {
+                    inProgress.put(name, pending);
+                    if (pending == claiming) {
+                        claiming = null;
+                        pending.claimed.countDown();
+                    }
+                }
+                return;
+            }
+
+            completed = inProgress.remove(name + PARTIAL_SUFFIX);
+            if (completed == null) {
+                completed = pollRenamed();
+            }
+            if (completed == null) {
+                completed = takeVanishedPartial();
+            }
+            if (completed == null && claiming != null) {
+                // Arquivos pequenos podem ser gravados sem passar por .crdownload; o
+                // CREATE chega antes do fim da escrita e pode ser de outro arquivo
+                candidate = claiming;
+            }
+        }
+        if (completed != null) {
+            finish(completed, directory.resolve(name));
+        } else if (candidate != null) {
+            Pending pending = candidate;
+            stabilityExecutor.execute(() -> claimWhenComplete(pending, directory.resolve(name)));
+        }
+    }
+
+    /**
+     * Associa ao download em disparo um arquivo gravado sem .crdownload depois
+     * que o tamanho dele parar de mudar, se for um PDF. Um arquivo qualquer
+     * colocado no diretório é ignorado e o download continua aguardando; um
+     * arquivo ainda em gravação no fim do prazo de {@link #expect} também.
+     */
+    private void claimWhenComplete(Pending pending, Path file) {
+        long size;
+        try {
+            size = waitForStableSize(file, pending.claimDeadline);
+            verifyPdf(file);
+        } catch (IOException e) {
+            logger.debug("Arquivo {} ignorado para a conta {}: {}", file.getFileName(), pending.accountKey, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (this) {
+            if (claiming != pending) {
+                // Já associado a um .crdownload ou expirado
+                return;
+            }
+            claiming = null;
+            pending.claimed.countDown();
+        }
+        logger.debug("Download sem arquivo parcial: {} ({} bytes)", file.getFileName(), size);
+        finish(pending, file);
+    }
+
+    private static long waitForStableSize(Path file, long deadlineNanos) throws IOException, InterruptedException {
+        long size = Files.size(file);
+        long stableSince = System.nanoTime();
+        while (System.nanoTime() - stableSince < TimeUnit.MILLISECONDS.toNanos(STABLE_MILLIS)) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IOException("Arquivo ainda em gravação no fim do prazo do download");
+            }
+            Thread.sleep(Math.min(STABLE_POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            long current = Files.size(file);
+            if (current != size) {
+                size = current;
+                stableSince = System.nanoTime();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Próximo parcial renomeado ainda sem par; descarta os que sumiram há mais
+     * tempo que a janela de rename (download cancelado pelo navegador).
+     */
+    private Pending pollRenamed() {
+        long now = System.nanoTime();
+        Pending pending;
+        while ((pending = renamed.pollFirst()) != null) {
+            if (now - pending.vanishedAt <= RENAME_WINDOW_NANOS) {
+                return pending;
+            }
+            pending.future.completeExceptionally(
+                new IOException("Download cancelado pelo navegador para " + pending.accountKey));
+        }
+        return null;
+    }
+
+    /**
+     * Parcial cujo arquivo já não existe, para quando o CREATE do nome final
+     * chega antes do DELETE do .crdownload.
+     */
+    private Pending takeVanishedPartial() {
+        Iterator<Map.Entry<String, Pending>> it = inProgress.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Pending> entry = it.next();
+            if (!Files.exists(directory.resolve(entry.getKey()))) {
+                it.remove();
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void finish(Pending pending, Path file) {
+        try {
+            long size = verifyPdf(file);
+            Path target = accountPrefixed(pending.accountKey, file, file.getFileName().toString());
+            Duration latency = Duration.ofNanos(System.nanoTime() - pending.startedAt);
+            pending.future.complete(new DownloadedFile(pending.accountKey, target, size, latency));
+        } catch (IOException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static long verifyPdf(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size <= PDF_MAGIC.length) {
+            throw new IOException("Arquivo baixado vazio ou incompleto: " + file.getFileName());
+        }
+        byte[] header = new byte[PDF_MAGIC.length];
+        try (InputStream in = Files.newInputStream(file)) {
+            if (in.readNBytes(header, 0, header.length) != header.length
+                    || !Arrays.equals(header, PDF_MAGIC)) {
+                throw new IOException("Arquivo baixado não é um PDF válido: " + file.getFileName());
+            }
+        }
+        return size;
+    }
+
+    private Path accountPrefixed(String accountKey, Path file, String name) throws IOException {
+        String prefix = sanitize(accountKey) + "_";
+        if (name.startsWith(prefix) && file.getFileName().toString().equals(name)) {
+            return file;
+        }
+        String targetName = prefix + name;
+        int counter = 1;
+        while (Files.exists(directory.resolve(targetName))) {
+            int dot = name.lastIndexOf('.');
+            String base = dot > 0 ? name.substring(0, dot) : name;
+            String ext = dot > 0 ? name.substring(dot) : "";
+            targetName = prefix + base + " (" + counter++ + ")" + ext;
+        }
+        synchronized (this) {
+            ownRenames.add(targetName);
+        }
+        return Files.move(file, directory.resolve(targetName), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String sanitize(String accountKey) {
+        String digits = accountKey.replaceAll("[^0-9A-Za-z]", "");
+        return digits.isEmpty() ? "conta" : digits;
+    }
+
+    private synchronized void forget(Pending pending) {
+        if (claiming == pending) {
+            claiming = null;
+        }
+        inProgress.values().remove(pending);
+        renamed.remove(pending);
+    }
+
+    private static class Pending {
+        final String accountKey;
+        final CompletableFuture<DownloadedFile> future = new CompletableFuture<>();
+        final CountDownLatch claimed = new CountDownLatch(1);
+        volatile long startedAt;
+        // Fim do prazo de expect() para o download começar (System.nanoTime)
+        volatile long claimDeadline;
+        long vanishedAt;
+
+        Pending(String accountKey) {
+            this.accountKey = accountKey;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.energia.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Arquivo de conta baixado e verificado, associado à conta que o originou
+ */
+public class DownloadedFile {
+
+    private final String accountKey;
+    private final Path path;
+    private final long sizeBytes;
+    private final Duration latency;
+    private final InvoiceSummary invoice;
+
+    public DownloadedFile(String accountKey, Path path, long sizeBytes, Duration latency) {
+        this(accountKey, path, sizeBytes, latency, null);
+    }
+
+    private DownloadedFile(String accountKey, Path path, long sizeBytes, Duration latency, InvoiceSummary invoice) {
+        this.accountKey = accountKey;
+        this.path = path;
+        this.sizeBytes = sizeBytes;
+        this.latency = latency;
+        this.invoice = invoice;
+    }
+
+    /**
+     * Cópia com os dados extraídos do PDF
+     */
+    public DownloadedFile withInvoice(InvoiceSummary invoice) {
+        return new DownloadedFile(accountKey, path, sizeBytes, latency, invoice);
+    }
+
+    public String getAccountKey() {
+        return accountKey;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Tempo entre o disparo do download e o arquivo completo no disco
+     */
+    public Duration getLatency() {
+        return latency;
+    }
+
+    /**
+     * Dados extraídos do PDF, ou null se o arquivo ainda não foi lido ou não pôde ser lido
+     */
+    public InvoiceSummary getInvoice() {
+        return invoice;
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName() + " (" + sizeBytes + " bytes, " + latency.toMillis() + " ms)";
+    }
+}
@@ -1,12 +1,7 @@
 package com.energia.service;
 
-import com.energia.gui.MainWindow;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import com.energia.util.ConfigManager;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,7 +11,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Serviço principal para automação de download de contas de energia
@@ -25,52 +27,70 @@ public class EnergiaService {
     
     private static final Logger logger = LoggerFactory.getLogger(EnergiaService.class);
     
-    private final MainWindow mainWindow;
+    private final ProgressListener listener;
+    private final boolean ownsDriver;
+    private final String logPrefix;
     private WebDriver driver;
-    private WebDriverWait wait;
-    private boolean shouldStop = false;
+    private PageReadiness readiness;
+    private final SessionCache sessionCache = new SessionCache();
+    private volatile boolean shouldStop = false;
+    // download.sync=incremental; o agendamento liga sempre, para distinguir "ainda não saiu" de "já baixada"
+    private boolean incrementalSync = "incremental".equalsIgnoreCase(ConfigManager.getProperty("download.sync", "latest"));
     
     // Configurações padrão
-    private static final int TIMEOUT_SECONDS = 30;
+    private static final int TIMEOUT_SECONDS = ConfigManager.getIntProperty("timeout.seconds", 30);
+    private static final int OPTIONAL_STEP_TIMEOUT_SECONDS = 5;
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(ConfigManager.getIntProperty("readiness.quietMillis", 500));
+    // Links da área logada (faturas/downloads), usados para confirmar o login
+    private static final By LOGGED_IN_AREA = By.xpath("//a[contains(@href, 'download') or contains(@href, 'fatura')]");
+    // Links das contas na área de faturas (os de LOGGED_IN_AREA também aparecem antes dela)
+    private static final By INVOICE_LINKS = By.xpath("//a[contains(@href, '.pdf') or contains(@onclick, 'download')]");
     private static final String DOWNLOAD_DIR = System.getProperty("user.home") + File.separator + "Downloads" + File.separator + "Energia";
     
-    public EnergiaService(MainWindow mainWindow) {
-        this.mainWindow = mainWindow;
+    public EnergiaService(ProgressListener listener) {
+        this.listener = listener;
+        this.ownsDriver = true;
+        this.logPrefix = "";
         setupWebDriver();
     }
     
+    /**
+     * Cria o serviço sobre uma sessão emprestada de um {@link WebDriverPool}.
+     * A sessão não é encerrada ao final do download; devolvê-la ao pool é
+     * responsabilidade de quem a emprestou.
+     */
+    public EnergiaService(ProgressListener listener, WebDriver driver, String logPrefix) {
+        this.listener = listener;
+        this.ownsDriver = false;
+        this.logPrefix = logPrefix == null ? "" : logPrefix;
+        this.driver = driver;
+        this.readiness = new PageReadiness(driver);
+        createDownloadDirectory();
+    }
+    
+    /**
+     * Baixa só as contas que ainda não estão no ledger, independentemente de
+     * {@code download.sync}
+     */
+    public void setIncrementalSync(boolean incrementalSync) {
+        this.incrementalSync = incrementalSync;
+    }
+    
     private void setupWebDriver() {
         try {
-            mainWindow.logMessage("Configurando WebDriver...");
-            
-            // Configurar Chrome WebDriver
-            WebDriverManager.chromedriver().setup();
+            log("Configurando WebDriver...");
             
-            ChromeOptions options = new ChromeOptions();
-            options.addArguments("--no-sandbox");
-            options.addArguments("--disable-dev-shm-usage");
-            options.addArguments("--disable-gpu");
-            options.addArguments("--window-size=1920,1080");
-            
-            // Configurar diretório de download
-            options.addArguments("--download.default_directory=" + DOWNLOAD_DIR.replace("\\", "/"));
-            options.addArguments("--download.prompt_for_download=false");
-            options.addArguments("--download.directory_upgrade=true");
-            options.addArguments("--safebrowsing.enabled=true");
-            
-            // Desabilitar notificações
-            options.addArguments("--disable-notifications");
-            
-            driver = new ChromeDriver(options);
-            wait = new WebDriverWait(driver, Duration.ofSeconds(TIMEOUT_SECONDS));
+            boolean headless = ConfigManager.getBooleanProperty("headless.mode", false);
+            driver = new WebDriverFactory(DOWNLOAD_DIR, headless).create();
+            readiness = new PageReadiness(driver);
             
             // Criar diretório de download se não existir
             createDownloadDirectory();
             
-            mainWindow.logMessage("WebDriver configurado com sucesso");
+            log("WebDriver configurado com sucesso");
             
         } catch (Exception e) {
-            mainWindow.logMessage("ERRO ao configurar WebDriver: " + e.getMessage());
+            log("ERRO ao configurar WebDriver: " + e.getMessage());
             throw new RuntimeException("Falha ao configurar WebDriver", e);
         }
     }
@@ -80,48 +100,63 @@ public class EnergiaService {
             Path downloadPath = Paths.get(DOWNLOAD_DIR);
             if (!Files.exists(downloadPath)) {
                 Files.createDirectories(downloadPath);
-                mainWindow.logMessage("Diretório de download criado: " + DOWNLOAD_DIR);
+                log("Diretório de download criado: " + DOWNLOAD_DIR);
             }
         } catch (IOException e) {
-            mainWindow.logMessage("AVISO: Não foi possível criar diretório de download: " + e.getMessage());
+            log("AVISO: Não foi possível criar diretório de download: " + e.getMessage());
         }
     }
     
-    public void downloadLatestBill(String siteUrl, String email, String cpf, String birthDate) {
+    /**
+     * Executa login e download da conta mais recente (ou de todo o histórico,
+     * no modo HTTP com {@code download.history=true}).
+     *
+     * @return arquivos baixados, ou lista vazia se o processo foi interrompido
+     */
+    public List<DownloadedFile> downloadLatestBill(String siteUrl, String email, String cpf, String birthDate) {
         try {
-            mainWindow.logMessage("Iniciando processo de download...");
-            mainWindow.updateProgress("Acessando site...", -1);
-            
-            // 1. Acessar o site
-            driver.get(siteUrl);
-            mainWindow.logMessage("Site acessado: " + siteUrl);
-            
-            if (shouldStop) return;
-            
-            // 2. Localizar e preencher campos de login
-            mainWindow.updateProgress("Realizando login...", 25);
-            performLogin(email, cpf, birthDate);
-            
-            if (shouldStop) return;
-            
-            // 3. Navegar para área de downloads
-            mainWindow.updateProgress("Navegando para área de downloads...", 50);
-            navigateToDownloads();
+            log("Iniciando processo de download...");
+            progress("Acessando site...", -1);
+            
+            // 1-3. Reaproveitar sessão recente ou fazer o login completo
+            if (!resumeSession(cpf)) {
+                driver.get(siteUrl);
+                log("Site acessado: " + siteUrl);
+                
+                if (shouldStop) return Collections.emptyList();
+                
+                // 2. Localizar e preencher campos de login
+                progress("Realizando login...", 25);
+                performLogin(email, cpf, birthDate);
+                
+                if (shouldStop) return Collections.emptyList();
+                
+                // 3. Navegar para área de downloads
+                progress("Navegando para área de downloads...", 50);
+                navigateToDownloads();
+                sessionCache.save(driver, cpf);
+            }
             
-            if (shouldStop) return;
+            if (shouldStop) return Collections.emptyList();
             
             // 4. Baixar a conta mais recente
-            mainWindow.updateProgress("Baixando conta mais recente...", 75);
-            downloadLatestInvoice();
+            progress("Baixando conta mais recente...", 75);
+            List<DownloadedFile> downloaded = downloadLatestInvoice(cpf);
+            
+            if (shouldStop) return Collections.emptyList();
             
-            if (shouldStop) return;
+            // 5. Extrair os dados das contas baixadas (na mesma thread do download, fora da interface)
+            if (ConfigManager.getBooleanProperty("invoice.parse.enabled", true)) {
+                downloaded = readInvoices(downloaded);
+            }
             
-            // 5. Finalizar
-            mainWindow.updateProgress("Download concluído com sucesso!", 100);
-            mainWindow.logMessage("Processo de download concluído com sucesso!");
+            // 6. Finalizar
+            progress("Download concluído com sucesso!", 100);
+            log("Processo de download concluído com sucesso!");
+            return downloaded;
             
         } catch (Exception e) {
-            mainWindow.logMessage("ERRO durante o processo: " + e.getMessage());
+            log("ERRO durante o processo: " + e.getMessage());
             logger.error("Erro durante download", e);
             throw new RuntimeException("Falha no processo de download", e);
         } finally {
@@ -129,26 +164,62 @@ public class EnergiaService {
         }
     }
     
+    private List<DownloadedFile> readInvoices(List<DownloadedFile> files) {
+        List<DownloadedFile> parsed = new ArrayList<>(files.size());
+        for (DownloadedFile file : files) {
+            InvoiceSummary invoice = InvoiceSummary.read(file.getPath());
+            if (invoice != null) {
+                log("Dados da conta " + file.getPath().getFileName() + ": " + invoice);
+                parsed.add(file.withInvoice(invoice));
+            } else {
+                parsed.add(file);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Restaura a sessão salva da conta, se ainda estiver no TTL, e confirma que
+     * o portal abriu a área de faturas em vez de voltar ao login.
+     */
+    private boolean resumeSession(String cpf) {
+        if (!sessionCache.restore(driver, cpf)) {
+            return false;
+        }
+        readiness.settle(QUIET_PERIOD, PageReadiness.timeout("page", TIMEOUT_SECONDS));
+        boolean loginPage = !driver.findElements(By.id("identificador-otp")).isEmpty();
+        if (loginPage || findDownloadLinks().isEmpty()) {
+            log("Sessão salva expirou no portal; refazendo login");
+            sessionCache.invalidate(cpf);
+            // Não deixa cookies (SSO incluído) nem o localStorage restaurados para o login completo
+            BrowserState.clear(driver);
+            return false;
+        }
+        progress("Sessão reaproveitada", 50);
+        log("Sessão reaproveitada; login dispensado");
+        return true;
+    }
+    
     private void performLogin(String email, String cpf, String birthDate) {
         try {
-            mainWindow.logMessage("Iniciando login...");
+            log("Iniciando login...");
     
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
+            readiness.settle(QUIET_PERIOD, PageReadiness.timeout("page", TIMEOUT_SECONDS));
     
             // 1️⃣ Fechar banner inicial
             try {
-                WebElement closeBtn = wait.until(
-                    ExpectedConditions.elementToBeClickable(By.cssSelector(".pm__close"))
-                );
+                WebElement closeBtn = readiness.clickable(By.cssSelector(".pm__close"),
+                    PageReadiness.timeout("banner", OPTIONAL_STEP_TIMEOUT_SECONDS));
                 closeBtn.click();
-                mainWindow.logMessage("Banner fechado com sucesso!");
-                Thread.sleep(1000);
+                log("Banner fechado com sucesso!");
+                readiness.gone(By.cssSelector(".pm__modal, .pm__overlay"),
+                    PageReadiness.timeout("banner", OPTIONAL_STEP_TIMEOUT_SECONDS));
             } catch (TimeoutException te) {
                 JavascriptExecutor js = (JavascriptExecutor) driver;
                 js.executeScript(
                     "document.querySelectorAll('.pm__modal, .pm__overlay').forEach(e => e.remove());"
                 );
-                mainWindow.logMessage("Nenhum banner de entrada detectado.");
+                log("Nenhum banner de entrada detectado.");
             }
     
             // 2️⃣ Aceitar LGPD
@@ -156,29 +227,26 @@ public class EnergiaService {
     
             // 3️⃣ Preencher CPF/CNPJ
             try {
-                WebElement cpfField = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.id("identificador-otp"))
-                );
+                WebElement cpfField = readiness.present(By.id("identificador-otp"),
+                    PageReadiness.timeout("login.cpf", TIMEOUT_SECONDS));
                 cpfField.clear();
                 cpfField.sendKeys(cpf);
-                mainWindow.logMessage("CPF/CNPJ preenchido");
+                log("CPF/CNPJ preenchido");
     
-                WebElement cpfButton = wait.until(
-                    ExpectedConditions.elementToBeClickable(By.id("envia-identificador-otp"))
-                );
+                WebElement cpfButton = readiness.clickable(By.id("envia-identificador-otp"),
+                    PageReadiness.timeout("login.cpf", TIMEOUT_SECONDS));
                 cpfButton.click();
-                mainWindow.logMessage("Botão 'Entrar (CPF)' clicado");
-                Thread.sleep(2000);
+                log("Botão 'Entrar (CPF)' clicado");
+                readiness.settle(QUIET_PERIOD, PageReadiness.timeout("login.cpf", TIMEOUT_SECONDS));
     
             } catch (TimeoutException e) {
-                mainWindow.logMessage("Campo CPF/CNPJ não encontrado. Pulando esta etapa.");
+                log("Campo CPF/CNPJ não encontrado. Pulando esta etapa.");
             }
     
             // 4️⃣ Preencher Email ou Data de Nascimento dinamicamente
             try {
-                WebElement nextField = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.id("senha-identificador"))
-                );
+                WebElement nextField = readiness.present(By.id("senha-identificador"),
+                    PageReadiness.timeout("login.identificador", TIMEOUT_SECONDS));
     
                 String type = nextField.getAttribute("type");
                 String clazz = nextField.getAttribute("class");
@@ -186,48 +254,54 @@ public class EnergiaService {
                 if ("email".equalsIgnoreCase(type)) {
                     nextField.clear();
                     nextField.sendKeys(email);
-                    mainWindow.logMessage("Campo de email preenchido");
+                    log("Campo de email preenchido");
     
                 } else if ("text".equalsIgnoreCase(type) && clazz.contains("date-format")) {
                     nextField.clear();
                     nextField.sendKeys(birthDate);
-                    mainWindow.logMessage("Campo de data de nascimento preenchido");
+                    log("Campo de data de nascimento preenchido");
     
                 } else {
-                    mainWindow.logMessage("Campo encontrado, mas não é reconhecido: type=" + type + ", class=" + clazz);
+                    log("Campo encontrado, mas não é reconhecido: type=" + type + ", class=" + clazz);
                 }
     
-                WebElement sendButton = wait.until(
-                    ExpectedConditions.elementToBeClickable(By.id("envia-identificador"))
-                );
+                WebElement sendButton = readiness.clickable(By.id("envia-identificador"),
+                    PageReadiness.timeout("login.identificador", TIMEOUT_SECONDS));
+                String loginUrl = driver.getCurrentUrl();
                 sendButton.click();
-                mainWindow.logMessage("Botão de envio clicado");
+                log("Botão de envio clicado");
     
-                Thread.sleep(2000);
+                // Alguns portais redirecionam, outros trocam o conteúdo na mesma URL:
+                // basta um dos sinais (URL nova, formulário fechado ou área logada)
+                if (!readiness.submitted(loginUrl, By.id("senha-identificador"), LOGGED_IN_AREA,
+                        PageReadiness.timeout("login.envio", TIMEOUT_SECONDS))) {
+                    throw new IllegalStateException("O portal não respondeu ao envio do login");
+                }
+                readiness.settle(QUIET_PERIOD, PageReadiness.timeout("login.envio", TIMEOUT_SECONDS));
     
             } catch (TimeoutException e) {
-                mainWindow.logMessage("Nenhum campo de email/data encontrado nesta etapa. Pulando.");
+                log("Nenhum campo de email/data encontrado nesta etapa. Pulando.");
             }
     
-            mainWindow.logMessage("Login finalizado com sucesso!");
+            log("Login finalizado com sucesso!");
     
         } catch (Exception e) {
-            mainWindow.logMessage("ERRO no login: " + e.getMessage());
+            log("ERRO no login: " + e.getMessage());
             throw new RuntimeException("Falha no processo de login", e);
         }
     } 
 
     private void navigateToDownloads() {
         try {
-            mainWindow.logMessage("Navegando para área de downloads...");
+            log("Navegando para área de downloads...");
             
             // Aguardar página carregar após login
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
+            readiness.settle(QUIET_PERIOD, PageReadiness.timeout("page", TIMEOUT_SECONDS));
             
             // Tentar diferentes seletores para área de downloads
             WebElement downloadLink = findElementByMultipleSelectors(
                 By.xpath("//a[contains(text(), 'Download') or contains(text(), 'Downloads') or contains(text(), 'Faturas')]"),
-                By.xpath("//a[contains(@href, 'download') or contains(@href, 'fatura')]"),
+                LOGGED_IN_AREA,
                 By.cssSelector("a[href*='download'], a[href*='fatura']"),
                 By.className("download"),
                 By.id("downloads")
@@ -237,64 +311,166 @@ public class EnergiaService {
                 throw new RuntimeException("Link para área de downloads não encontrado");
             }
             
+            String previousUrl = driver.getCurrentUrl();
             downloadLink.click();
-            mainWindow.logMessage("Link de downloads clicado");
+            log("Link de downloads clicado");
             
-            // Aguardar página de downloads carregar
-            Thread.sleep(3000);
+            // Aguardar a área de faturas abrir: nem sempre a URL muda (conteúdo trocado na mesma página)
+            if (!readiness.navigated(previousUrl, downloadLink, INVOICE_LINKS,
+                    PageReadiness.timeout("downloads", TIMEOUT_SECONDS))) {
+                log("AVISO: nenhum sinal de abertura da área de downloads; aguardando a página estabilizar");
+            }
+            readiness.settle(QUIET_PERIOD, PageReadiness.timeout("downloads", TIMEOUT_SECONDS));
             
-            mainWindow.logMessage("Área de downloads acessada com sucesso");
+            log("Área de downloads acessada com sucesso");
             
         } catch (Exception e) {
-            mainWindow.logMessage("ERRO ao navegar para downloads: " + e.getMessage());
+            log("ERRO ao navegar para downloads: " + e.getMessage());
             throw new RuntimeException("Falha ao acessar área de downloads", e);
         }
     }
     
-    private void downloadLatestInvoice() {
+    private List<DownloadedFile> downloadLatestInvoice(String cpf) {
         try {
-            mainWindow.logMessage("Localizando conta mais recente...");
+            log("Localizando conta mais recente...");
             
             // Aguardar página carregar
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
+            readiness.present(By.tagName("body"), PageReadiness.timeout("page", TIMEOUT_SECONDS));
             
-            // Tentar diferentes seletores para links de download
-            List<WebElement> downloadLinks = driver.findElements(By.cssSelector("a[href*='.pdf'], a[href*='download']"));
+            List<WebElement> downloadLinks = findDownloadLinks();
             
             if (downloadLinks.isEmpty()) {
-                // Tentar outros seletores
-                downloadLinks = driver.findElements(By.xpath("//a[contains(@href, '.pdf') or contains(@onclick, 'download')]"));
+                throw new RuntimeException("Nenhum link de download encontrado na página");
             }
             
-            if (downloadLinks.isEmpty()) {
-                throw new RuntimeException("Nenhum link de download encontrado na página");
+            log("Encontrados " + downloadLinks.size() + " links de download");
+            
+            boolean httpMode = "http".equalsIgnoreCase(ConfigManager.getProperty("download.mode", "browser"));
+            List<InvoiceLink> invoices = InvoiceLink.scan(driver, downloadLinks);
+            InvoiceLedger ledger = InvoiceLedger.forDirectory(Paths.get(DOWNLOAD_DIR));
+            
+            if (incrementalSync) {
+                // Sincronização incremental: só as contas que ainda não foram baixadas
+                List<InvoiceLink> missing = ledger.missing(cpf, invoices);
+                log((invoices.size() - missing.size()) + " de " + invoices.size() + " contas já baixadas anteriormente");
+                if (missing.isEmpty()) {
+                    log("Nenhuma conta nova no portal");
+                    return Collections.emptyList();
+                }
+                invoices = missing;
+            } else if (!(httpMode && ConfigManager.getBooleanProperty("download.history", false))) {
+                // Pegar o primeiro link (assumindo que é o mais recente)
+                invoices = invoices.subList(0, 1);
             }
             
-            mainWindow.logMessage("Encontrados " + downloadLinks.size() + " links de download");
+            DownloadWatcher watcher = DownloadWatcher.forDirectory(Paths.get(DOWNLOAD_DIR));
+            List<DownloadedFile> downloaded = new ArrayList<>();
+            List<InvoiceLink> viaBrowser = new ArrayList<>(invoices);
+            
+            if (httpMode) {
+                List<InvoiceLink> direct = new ArrayList<>();
+                for (InvoiceLink invoice : invoices) {
+                    if (invoice.isDirect()) {
+                        direct.add(invoice);
+                    }
+                }
+                if (!direct.isEmpty()) {
+                    downloaded.addAll(downloadViaHttp(watcher, ledger, cpf, direct));
+                    viaBrowser.removeAll(direct);
+                }
+                if (!viaBrowser.isEmpty()) {
+                    log("Links sem URL direta; usando o navegador para o download");
+                }
+            }
             
-            // Pegar o primeiro link (assumindo que é o mais recente)
-            WebElement latestLink = downloadLinks.get(0);
-            String downloadUrl = latestLink.getAttribute("href");
+            Exception firstError = null;
+            for (InvoiceLink invoice : viaBrowser) {
+                if (shouldStop) {
+                    break;
+                }
+                try {
+                    DownloadedFile file = downloadViaBrowser(watcher, cpf, invoice);
+                    ledger.record(cpf, invoice, file);
+                    downloaded.add(file);
+                } catch (Exception e) {
+                    if (viaBrowser.size() == 1 && downloaded.isEmpty()) {
+                        throw e;
+                    }
+                    log("AVISO: conta " + invoice + " não pôde ser baixada: " + e.getMessage());
+                    firstError = firstError == null ? e : firstError;
+                }
+            }
+            if (downloaded.isEmpty() && firstError != null) {
+                throw firstError;
+            }
+            return downloaded;
             
+        } catch (Exception e) {
+            log("ERRO ao baixar conta: " + e.getMessage());
+            throw new RuntimeException("Falha ao baixar conta", e);
+        }
+    }
+    
+    private DownloadedFile downloadViaBrowser(DownloadWatcher watcher, String cpf, InvoiceLink invoice) throws Exception {
+        WebElement link = invoice.getElement();
+        String downloadUrl = invoice.getHref();
+        
+        // Disparar o download e aguardar o Chrome concluir o arquivo no diretório compartilhado
+        CompletableFuture<DownloadedFile> pending = watcher.expect(cpf, () -> {
             if (downloadUrl == null || downloadUrl.trim().isEmpty()) {
                 // Tentar clicar diretamente no link
-                latestLink.click();
-                mainWindow.logMessage("Link clicado para download");
+                link.click();
+                log("Link clicado para download");
             } else {
                 // Navegar diretamente para a URL de download
                 driver.get(downloadUrl);
-                mainWindow.logMessage("Navegando para URL de download: " + downloadUrl);
+                log("Navegando para URL de download: " + downloadUrl);
             }
-            
-            // Aguardar download iniciar
-            Thread.sleep(5000);
-            
-            mainWindow.logMessage("Download iniciado com sucesso");
-            
-        } catch (Exception e) {
-            mainWindow.logMessage("ERRO ao baixar conta: " + e.getMessage());
-            throw new RuntimeException("Falha ao baixar conta", e);
+        }, PageReadiness.timeout("download.start", TIMEOUT_SECONDS));
+        
+        DownloadedFile downloaded;
+        try {
+            downloaded = pending.get(PageReadiness.timeout("download", 60).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            pending.cancel(false);
+            throw new RuntimeException("Download não foi concluído no tempo limite", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+        
+        log("Download concluído: " + downloaded);
+        return downloaded;
+    }
+    
+    private List<DownloadedFile> downloadViaHttp(DownloadWatcher watcher, InvoiceLedger ledger, String cpf,
+                                                 List<InvoiceLink> invoices) throws IOException {
+        Map<String, InvoiceLink> byUrl = new LinkedHashMap<>();
+        for (InvoiceLink invoice : invoices) {
+            byUrl.putIfAbsent(invoice.getHref(), invoice);
+        }
+        log("Baixando " + byUrl.size() + " conta(s) via HTTP com a sessão do navegador...");
+        
+        Map<String, DownloadedFile> downloaded = new InvoiceHttpFetcher(driver, watcher)
+            .fetchAll(cpf, new ArrayList<>(byUrl.keySet()));
+        for (Map.Entry<String, DownloadedFile> entry : downloaded.entrySet()) {
+            ledger.record(cpf, byUrl.get(entry.getKey()), entry.getValue());
+            log("Download concluído: " + entry.getValue());
+        }
+        if (downloaded.size() < byUrl.size()) {
+            log("AVISO: " + (byUrl.size() - downloaded.size()) + " conta(s) não puderam ser baixadas via HTTP");
+        }
+        return new ArrayList<>(downloaded.values());
+    }
+    
+    private List<WebElement> findDownloadLinks() {
+        // Tentar diferentes seletores para links de download
+        List<WebElement> downloadLinks = driver.findElements(By.cssSelector("a[href*='.pdf'], a[href*='download']"));
+        
+        if (downloadLinks.isEmpty()) {
+            // Tentar outros seletores
+            downloadLinks = driver.findElements(INVOICE_LINKS);
         }
+        return downloadLinks;
     }
     
     private WebElement findElementByMultipleSelectors(By... selectors) {
@@ -312,60 +488,84 @@ public class EnergiaService {
     }
     
     private void cleanup() {
+        if (ownsDriver) {
+            quitDriver();
+        }
+    }
+    
+    private void quitDriver() {
         try {
             if (driver != null) {
                 driver.quit();
-                mainWindow.logMessage("WebDriver encerrado");
+                log("WebDriver encerrado");
             }
         } catch (Exception e) {
-            mainWindow.logMessage("AVISO: Erro ao encerrar WebDriver: " + e.getMessage());
+            log("AVISO: Erro ao encerrar WebDriver: " + e.getMessage());
         }
     }
     
     public void stop() {
         shouldStop = true;
-        mainWindow.logMessage("Solicitação de parada recebida...");
-        cleanup();
+        log("Solicitação de parada recebida...");
+        // Encerrar a sessão interrompe esperas em andamento, mesmo quando emprestada de um pool
+        quitDriver();
+    }
+    
+    public boolean isStopped() {
+        return shouldStop;
     }
     
     public String getDownloadDirectory() {
         return DOWNLOAD_DIR;
     }
 
+    public static String defaultDownloadDirectory() {
+        return DOWNLOAD_DIR;
+    }
+
+    private void log(String message) {
+        listener.logMessage(logPrefix + message);
+    }
+
+    private void progress(String message, int progress) {
+        // Em lote, o progresso agregado é informado pelo BatchDownloadService
+        if (ownsDriver) {
+            listener.updateProgress(message, progress);
+        }
+    }
+
     private void acceptLgpdIfPresent() {
         try {
-            mainWindow.logMessage("Verificando formulário LGPD...");
+            log("Verificando formulário LGPD...");
     
             // Esperar se o container LGPD aparecer
-            WebElement lgpdContainer = wait.until(
-                ExpectedConditions.presenceOfElementLocated(By.id("lgpd_n"))
-            );
+            WebElement lgpdContainer = readiness.present(By.id("lgpd_n"),
+                PageReadiness.timeout("lgpd", OPTIONAL_STEP_TIMEOUT_SECONDS));
     
             if (lgpdContainer.isDisplayed()) {
-                mainWindow.logMessage("Formulário LGPD detectado. Aceitando...");
+                log("Formulário LGPD detectado. Aceitando...");
     
                 // Marcar checkbox
                 WebElement checkBox = lgpdContainer.findElement(By.id("aviso_aceite"));
                 if (!checkBox.isSelected()) {
                     checkBox.click();
-                    mainWindow.logMessage("Checkbox LGPD marcado");
+                    log("Checkbox LGPD marcado");
                 }
     
                 // Clicar no botão enviar
                 WebElement acceptButton = lgpdContainer.findElement(By.id("lgpd_accept"));
                 acceptButton.click();
-                mainWindow.logMessage("Botão de aceite LGPD clicado");
+                log("Botão de aceite LGPD clicado");
     
                 // Esperar sumir da tela
-                wait.until(ExpectedConditions.invisibilityOf(lgpdContainer));
-                Thread.sleep(1000);
+                readiness.invisible(lgpdContainer, PageReadiness.timeout("lgpd", TIMEOUT_SECONDS));
     
-                mainWindow.logMessage("LGPD aceito com sucesso!");
+                log("LGPD aceito com sucesso!");
             }
         } catch (TimeoutException e) {
-            mainWindow.logMessage("Nenhum formulário LGPD encontrado.");
+            log("Nenhum formulário LGPD encontrado.");
         } catch (Exception e) {
-            mainWindow.logMessage("ERRO ao aceitar LGPD: " + e.getMessage());
+            log("ERRO ao aceitar LGPD: " + e.getMessage());
         }
     }
     
@@ -0,0 +1,233 @@
+package com.energia.service;
+
+import com.energia.util.ConfigManager;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Baixa os PDFs das contas diretamente por HTTP, reaproveitando os cookies da
+ * sessão autenticada no navegador. O navegador fica restrito ao login e os
+ * arquivos são gravados em streaming no diretório de download, vários em
+ * paralelo, sem passar pelo visualizador nem pelo gerenciador de downloads.
+ */
+public class InvoiceHttpFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceHttpFetcher.class);
+
+    private static final Pattern CONTENT_DISPOSITION_FILENAME =
+        Pattern.compile("filename\\*?=(?:UTF-8'')?\"?([^\";]+)\"?", Pattern.CASE_INSENSITIVE);
+
+    // Redirecionamentos seguidos por fetch(), que refaz o cabeçalho Cookie para cada destino
+    private static final int MAX_REDIRECTS = 5;
+
+    // Cliente compartilhado: mantém o pool de conexões entre contas e sessões.
+    // Não segue redirecionamentos: o cabeçalho Cookie manual iria junto para outros hosts
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .connectTimeout(Duration.ofSeconds(ConfigManager.getIntProperty("timeout.seconds", 30)))
+        .build();
+
+    private final WebDriver driver;
+    private final DownloadWatcher watcher;
+    private final Semaphore permits;
+    private final Duration requestTimeout;
+
+    public InvoiceHttpFetcher(WebDriver driver, DownloadWatcher watcher) {
+        this.driver = driver;
+        this.watcher = watcher;
+        this.permits = new Semaphore(Math.max(1, ConfigManager.getIntProperty("download.http.concurrency", 4)));
+        this.requestTimeout = PageReadiness.timeout("download", 60);
+    }
+
+    /**
+     * Baixa todas as URLs informadas em paralelo, associando os arquivos à conta.
+     * Falhas individuais são registradas e não interrompem as demais; se nenhuma
+     * URL puder ser baixada, a primeira falha é propagada.
+     *
+     * @return arquivos baixados por URL, na ordem informada, só com as URLs que deram certo
+     */
+    public Map<String, DownloadedFile> fetchAll(String accountKey, List<String> urls) throws IOException {
+        String userAgent = (String) ((JavascriptExecutor) driver).executeScript("return navigator.userAgent;");
+        String referer = driver.getCurrentUrl();
+        Set<Cookie> cookies = driver.manage().getCookies();
+
+        List<CompletableFuture<DownloadedFile>> futures = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            futures.add(fetch(accountKey, URI.create(url), cookies, userAgent, referer));
+        }
+
+        Map<String, DownloadedFile> files = new LinkedHashMap<>();
+        IOException firstError = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                files.put(urls.get(i), futures.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.warn("Falha ao baixar {}: {}", urls.get(i), cause.getMessage());
+                if (firstError == null) {
+                    firstError = cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+                }
+            }
+        }
+        if (files.isEmpty() && firstError != null) {
+            throw firstError;
+        }
+        return files;
+    }
+
+    private CompletableFuture<DownloadedFile> fetch(String accountKey, URI uri, Set<Cookie> cookies,
+                                                    String userAgent, String referer) {
+        Path temp = watcher.getDirectory().resolve(".energia-" + UUID.randomUUID() + ".part");
+        long startedAt = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(uri, cookies, userAgent, referer, temp, 0)
+            .whenComplete((response, error) -> {
+                permits.release();
+                if (error != null) {
+                    deleteQuietly(temp);
+                }
+            })
+            .thenApply(response -> {
+                try {
+                    if (response.statusCode() != 200) {
+                        Files.deleteIfExists(temp);
+                        throw new IOException("HTTP " + response.statusCode() + " ao baixar " + uri);
+                    }
+                    return watcher.adopt(accountKey, temp, fileName(response, response.uri()),
+                        Duration.ofNanos(System.nanoTime() - startedAt));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+    }
+
+    /**
+     * Envia a requisição e segue os redirecionamentos (até {@link #MAX_REDIRECTS}),
+     * levando a cada destino só os cookies da sessão válidos para ele.
+     * O corpo só é gravado em {@code temp} na resposta final.
+     */
+    private CompletableFuture<HttpResponse<Path>> send(URI uri, Set<Cookie> cookies, String userAgent,
+                                                       String referer, Path temp, int redirects) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .header("User-Agent", userAgent)
+            .header("Accept", "application/pdf,*/*;q=0.8")
+            .GET();
+        String cookieHeader = cookieHeader(uri, cookies);
+        if (!cookieHeader.isEmpty()) {
+            request.header("Cookie", cookieHeader);
+        }
+        if (referer != null && referer.startsWith("http")) {
+            request.header("Referer", referer);
+        }
+
+        HttpResponse.BodyHandler<Path> handler = info -> isRedirect(info.statusCode())
+            ? HttpResponse.BodySubscribers.replacing(null)
+            : HttpResponse.BodySubscribers.ofFile(temp);
+        return CLIENT.sendAsync(request.build(), handler).thenCompose(response -> {
+            Optional<String> location = response.headers().firstValue("Location");
+            if (!isRedirect(response.statusCode()) || location.isEmpty()) {
+                return CompletableFuture.completedFuture(response);
+            }
+            if (redirects >= MAX_REDIRECTS) {
+                return CompletableFuture.failedFuture(new IOException("Redirecionamentos demais ao baixar " + uri));
+            }
+            return send(uri.resolve(location.get()), cookies, userAgent, referer, temp, redirects + 1);
+        });
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    /**
+     * Monta o cabeçalho Cookie com os cookies da sessão válidos para a URL
+     */
+    static String cookieHeader(URI uri, Set<Cookie> cookies) {
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+        boolean https = "https".equalsIgnoreCase(uri.getScheme());
+
+        StringBuilder header = new StringBuilder();
+        for (Cookie cookie : cookies) {
+            if (cookie.isSecure() && !https) {
+                continue;
+            }
+            String domain = cookie.getDomain() == null ? host : cookie.getDomain().toLowerCase(Locale.ROOT);
+            if (domain.startsWith(".")) {
+                domain = domain.substring(1);
+            }
+            if (!host.equals(domain) && !host.endsWith("." + domain)) {
+                continue;
+            }
+            String cookiePath = cookie.getPath() == null ? "/" : cookie.getPath();
+            if (!path.startsWith(cookiePath)) {
+                continue;
+            }
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getName()).append('=').append(cookie.getValue());
+        }
+        return header.toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Não foi possível remover {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String fileName(HttpResponse<?> response, URI uri) {
+        String disposition = response.headers().firstValue("Content-Disposition").orElse("");
+        Matcher matcher = CONTENT_DISPOSITION_FILENAME.matcher(disposition);
+        String name = null;
+        if (matcher.find()) {
+            name = URLDecoder.decode(matcher.group(1).trim(), StandardCharsets.UTF_8);
+        } else if (uri.getPath() != null && uri.getPath().lastIndexOf('/') >= 0) {
+            name = uri.getPath().substring(uri.getPath().lastIndexOf('/') + 1);
+        }
+        if (name == null || name.isEmpty()) {
+            name = "fatura";
+        }
+        name = name.replaceAll("[\\\\/:*?\"<>|]", "_");
+        if (!name.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
+            name = name + ".pdf";
+        }
+        return name;
+    }
+}
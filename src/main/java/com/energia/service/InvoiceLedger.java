@@ -0,0 +1,165 @@
+package com.energia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro das contas já baixadas em um diretório, por conta e impressão
+ * digital ({@link InvoiceLink#getFingerprint()}). Fica no próprio diretório
+ * de download, num arquivo oculto ignorado pelo {@link DownloadWatcher}; uma
+ * conta continua registrada mesmo que o PDF seja movido ou enviado ao
+ * dashboard depois.
+ * <p>
+ * Ao ser criado, o registro é preenchido com os PDFs que já estão no
+ * diretório (pelo mês de referência lido do PDF e pelo nome do arquivo), para
+ * que a primeira sincronização incremental não baixe tudo de novo.
+ */
+public class InvoiceLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceLedger.class);
+
+    private static final String FILE_NAME = ".energia-ledger.properties";
+    private static final Map<Path, InvoiceLedger> INSTANCES = new ConcurrentHashMap<>();
+
+    // Chaves dos PDFs encontrados no diretório ao criar o registro
+    private static final String MONTH_KEY = "month:";
+    private static final String FILE_KEY = "file:";
+
+    private final Path file;
+    private final Properties entries = new Properties();
+
+    private InvoiceLedger(Path directory) throws IOException {
+        this.file = directory.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                entries.load(in);
+            }
+        } else {
+            seed(directory);
+            save();
+        }
+    }
+
+    /**
+     * Retorna o registro compartilhado do diretório
+     */
+    public static InvoiceLedger forDirectory(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        InvoiceLedger ledger = INSTANCES.get(key);
+        if (ledger == null) {
+            Files.createDirectories(key);
+            InvoiceLedger created = new InvoiceLedger(key);
+            ledger = INSTANCES.putIfAbsent(key, created);
+            if (ledger == null) {
+                ledger = created;
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * Contas da lista que ainda não foram baixadas para a conta informada
+     */
+    public synchronized List<InvoiceLink> missing(String accountKey, List<InvoiceLink> invoices) {
+        List<InvoiceLink> missing = new ArrayList<>();
+        for (InvoiceLink invoice : invoices) {
+            if (!isRecorded(accountKey, invoice)) {
+                missing.add(invoice);
+            }
+        }
+        return missing;
+    }
+
+    public synchronized void record(String accountKey, InvoiceLink invoice, DownloadedFile file) throws IOException {
+        if (invoice.getFingerprint() == null) {
+            return;
+        }
+        entries.setProperty(key(accountKey, invoice.getFingerprint()), file.getPath().getFileName().toString());
+        save();
+    }
+
+    private boolean isRecorded(String accountKey, InvoiceLink invoice) {
+        if (invoice.getFingerprint() != null && entries.containsKey(key(accountKey, invoice.getFingerprint()))) {
+            return true;
+        }
+        if (invoice.getReferenceMonth() != null && entries.containsKey(key(accountKey, MONTH_KEY + invoice.getReferenceMonth()))) {
+            return true;
+        }
+        String name = hrefFileName(invoice.getHref());
+        return name != null && entries.containsKey(key(accountKey, FILE_KEY + name));
+    }
+
+    /**
+     * Registra os PDFs {@code <conta>_<nome>.pdf} já presentes no diretório
+     */
+    private void seed(Path directory) {
+        int seeded = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.pdf")) {
+            for (Path pdf : files) {
+                String name = pdf.getFileName().toString();
+                int separator = name.indexOf('_');
+                if (name.startsWith(".") || separator <= 0 || !Files.isRegularFile(pdf)) {
+                    continue;
+                }
+                String account = name.substring(0, separator);
+                entries.setProperty(account + "." + FILE_KEY + name.substring(separator + 1).toLowerCase(Locale.ROOT), name);
+                InvoiceSummary summary = InvoiceSummary.read(pdf);
+                if (summary != null && summary.getReferenceMonth() != null) {
+                    // AAAA-MM do PDF para o MM/AAAA dos links
+                    String month = summary.getReferenceMonth();
+                    entries.setProperty(account + "." + MONTH_KEY + month.substring(5) + "/" + month.substring(0, 4), name);
+                }
+                seeded++;
+            }
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler os PDFs já baixados em {}: {}", directory, e.getMessage());
+        }
+        if (seeded > 0) {
+            logger.info("Registro de contas criado com {} PDFs já presentes em {}", seeded, directory);
+        }
+    }
+
+    private void save() throws IOException {
+        Path temp = Files.createTempFile(this.file.getParent(), ".energia-ledger", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            entries.store(out, "Contas já baixadas (conta.impressão digital = arquivo)");
+        }
+        Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Nome do PDF no fim do caminho do link, como o navegador gravaria
+    private static String hrefFileName(String href) {
+        if (href == null) {
+            return null;
+        }
+        try {
+            String path = URI.create(href).getPath();
+            if (path == null || path.lastIndexOf('/') < 0) {
+                return null;
+            }
+            String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            return name.endsWith(".pdf") ? name : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String key(String accountKey, String fingerprint) {
+        return DownloadWatcher.sanitize(accountKey) + "." + fingerprint;
+    }
+}
@@ -0,0 +1,205 @@
+package com.energia.service;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Link de conta encontrado na área de faturas, com uma impressão digital
+ * estável entre execuções para identificar contas já baixadas.
+ * <p>
+ * A impressão digital usa, nesta ordem de preferência, o mês de referência e
+ * o número da fatura (lidos do texto do link e da linha em que ele aparece),
+ * o hash da URL sem parâmetros de sessão ou o hash do texto da linha. Links
+ * sem nenhuma dessas informações ficam sem impressão digital e são sempre
+ * baixados.
+ */
+public class InvoiceLink {
+
+    // MM/AAAA que não faça parte de uma data completa (ex.: vencimento 10/04/2024)
+    private static final Pattern NUMERIC_MONTH = Pattern.compile("(?<!\\d[/.-])\\b(0?[1-9]|1[0-2])\\s*[/.-]\\s*(20\\d{2})\\b");
+    private static final Pattern NAMED_MONTH = Pattern.compile(
+        "\\b(jan|fev|mar|abr|mai|jun|jul|ago|set|out|nov|dez)[a-zç]*\\.?\\s*(?:/|-|de)?\\s*(20\\d{2}|\\d{2})\\b");
+    private static final Pattern INVOICE_NUMBER = Pattern.compile(
+        "(?:n[º°o]\\.?|n[uú]mero|fatura|documento)\\s*:?\\s*(\\d{5,})");
+    private static final Pattern VOLATILE_PARAM = Pattern.compile(
+        "^(?:token|access_token|session|sessionid|sid|jsessionid|_|t|ts|timestamp|nocache)$", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, String> MONTHS = new HashMap<>();
+
+    static {
+        String[] names = {"jan", "fev", "mar", "abr", "mai", "jun", "jul", "ago", "set", "out", "nov", "dez"};
+        for (int i = 0; i < names.length; i++) {
+            MONTHS.put(names[i], String.format("%02d", i + 1));
+        }
+    }
+
+    // Texto da linha/cartão da tabela de faturas que contém o link
+    private static final String CONTEXT_SCRIPT =
+        "var el = arguments[0];" +
+        "var row = el.closest('tr, li, article, .fatura, .card, [class*=\"fatura\"], [class*=\"invoice\"]');" +
+        "return ((el.innerText || '') + ' ' + (el.getAttribute('title') || '') + ' ' + (row ? row.innerText : '')).trim();";
+
+    private final WebElement element;
+    private final String href;
+    private final String referenceMonth;
+    private final String invoiceNumber;
+    private final String fingerprint;
+
+    InvoiceLink(WebElement element, String href, String context) {
+        this.element = element;
+        this.href = href;
+        String text = context == null ? "" : context.toLowerCase(Locale.ROOT);
+        String hrefText = href == null ? "" : href.toLowerCase(Locale.ROOT);
+        this.referenceMonth = firstNonNull(referenceMonth(text), referenceMonth(hrefText));
+        this.invoiceNumber = invoiceNumber(text);
+        this.fingerprint = fingerprint(referenceMonth, invoiceNumber, href, text);
+    }
+
+    /**
+     * Lê os links da página, sem repetir a mesma conta, na ordem da página
+     */
+    public static List<InvoiceLink> scan(WebDriver driver, List<WebElement> links) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        List<InvoiceLink> invoices = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (WebElement link : links) {
+            String context;
+            try {
+                context = (String) js.executeScript(CONTEXT_SCRIPT, link);
+            } catch (RuntimeException e) {
+                context = link.getText();
+            }
+            InvoiceLink invoice = new InvoiceLink(link, link.getAttribute("href"), context);
+            if (invoice.fingerprint == null || seen.add(invoice.fingerprint)) {
+                invoices.add(invoice);
+            }
+        }
+        return invoices;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    public String getHref() {
+        return href;
+    }
+
+    /**
+     * URL absoluta http(s), quando o link tem uma
+     */
+    public boolean isDirect() {
+        return href != null && (href.startsWith("http://") || href.startsWith("https://"));
+    }
+
+    /**
+     * Mês de referência no formato MM/AAAA, ou null
+     */
+    public String getReferenceMonth() {
+        return referenceMonth;
+    }
+
+    public String getInvoiceNumber() {
+        return invoiceNumber;
+    }
+
+    /**
+     * Impressão digital da conta, ou null se o link não tiver como ser identificado
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public String toString() {
+        if (referenceMonth != null) {
+            return invoiceNumber != null ? referenceMonth + " nº " + invoiceNumber : referenceMonth;
+        }
+        return invoiceNumber != null ? "nº " + invoiceNumber : String.valueOf(href);
+    }
+
+    static String referenceMonth(String text) {
+        Matcher numeric = NUMERIC_MONTH.matcher(text);
+        if (numeric.find()) {
+            return String.format("%02d/%s", Integer.parseInt(numeric.group(1)), numeric.group(2));
+        }
+        Matcher named = NAMED_MONTH.matcher(text);
+        if (named.find()) {
+            String year = named.group(2).length() == 2 ? "20" + named.group(2) : named.group(2);
+            return MONTHS.get(named.group(1)) + "/" + year;
+        }
+        return null;
+    }
+
+    static String invoiceNumber(String text) {
+        Matcher matcher = INVOICE_NUMBER.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String fingerprint(String month, String number, String href, String text) {
+        if (month != null || number != null) {
+            return "ref:" + (month == null ? "" : month) + "#" + (number == null ? "" : number);
+        }
+        if (href != null && !href.isEmpty() && !href.startsWith("javascript:")) {
+            return "url:" + sha256(stableUrl(href));
+        }
+        if (!text.isEmpty()) {
+            return "txt:" + sha256(text.replaceAll("\\s+", " "));
+        }
+        return null;
+    }
+
+    /**
+     * URL sem fragmento, sem ;jsessionid e sem parâmetros que mudam a cada sessão
+     */
+    static String stableUrl(String href) {
+        try {
+            URI uri = URI.create(href);
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath().replaceAll("(?i);jsessionid=[^/?]*", "");
+            StringBuilder query = new StringBuilder();
+            if (uri.getRawQuery() != null) {
+                for (String param : uri.getRawQuery().split("&")) {
+                    String name = param.contains("=") ? param.substring(0, param.indexOf('=')) : param;
+                    if (!name.isEmpty() && !VOLATILE_PARAM.matcher(name).matches()) {
+                        query.append(query.length() == 0 ? "?" : "&").append(param);
+                    }
+                }
+            }
+            String authority = uri.getRawAuthority() == null ? "" : uri.getRawAuthority().toLowerCase(Locale.ROOT);
+            return authority + path + query;
+        } catch (IllegalArgumentException e) {
+            return href;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 12; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String firstNonNull(String a, String b) {
+        return a != null ? a : b;
+    }
+}
@@ -0,0 +1,143 @@
+package com.energia.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dados principais extraídos do PDF da conta logo após o download: mês de
+ * referência, consumo, energia injetada/compensada, bandeira e valor a pagar.
+ * Campos não encontrados no texto ficam nulos. A extração completa, gravada no
+ * banco, é feita pelo dashboard quando o arquivo é enviado.
+ */
+public class InvoiceSummary {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceSummary.class);
+
+    // Mesmos padrões de com.energia.dashboard.invoice.InvoicePdfParser, no dashboard-api
+    // (projeto Maven separado), que reconhece também o mês por extenso e o vencimento:
+    // ao corrigir um padrão, corrigir também lá
+    private static final String NUMBER = "(\\d{1,3}(?:\\.\\d{3})*(?:,\\d+)?|\\d+(?:,\\d+)?)";
+
+    private static final Pattern REFERENCE = Pattern.compile(
+        "(?:refer[eê]ncia|referente a|m[eê]s/ano)\\s*:?\\s*(0?[1-9]|1[0-2])\\s*/\\s*(20\\d{2})");
+    private static final Pattern CONSUMPTION = Pattern.compile(
+        "consumo(?: ativo| faturado| total)?(?: \\(kwh\\))?[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern INJECTED = Pattern.compile(
+        "(?:energia )?injetada[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern COMPENSATED = Pattern.compile(
+        "(?:energia )?compensada[^\\n\\d]{0,40}" + NUMBER + "\\s*kwh");
+    private static final Pattern TARIFF_FLAG = Pattern.compile(
+        "bandeira(?: tarif[aá]ria)?\\s*:?\\s*(verde|amarela|vermelha(?:\\s*(?:-\\s*)?(?:patamar\\s*)?[12])?|escassez h[ií]drica)");
+    private static final Pattern AMOUNT_DUE = Pattern.compile(
+        "(?:total a pagar|valor a pagar|valor total|total da fatura)[^\\n\\d]{0,20}(?:r\\$)?\\s*" + NUMBER);
+
+    private final String referenceMonth;
+    private final BigDecimal consumptionKwh;
+    private final BigDecimal injectedKwh;
+    private final BigDecimal compensatedKwh;
+    private final String tariffFlag;
+    private final BigDecimal amountDue;
+
+    private InvoiceSummary(String referenceMonth, BigDecimal consumptionKwh, BigDecimal injectedKwh,
+                           BigDecimal compensatedKwh, String tariffFlag, BigDecimal amountDue) {
+        this.referenceMonth = referenceMonth;
+        this.consumptionKwh = consumptionKwh;
+        this.injectedKwh = injectedKwh;
+        this.compensatedKwh = compensatedKwh;
+        this.tariffFlag = tariffFlag;
+        this.amountDue = amountDue;
+    }
+
+    /**
+     * Lê o PDF e extrai os dados da conta
+     *
+     * @return os dados encontrados, ou null se o PDF não pôde ser lido
+     */
+    public static InvoiceSummary read(Path pdf) {
+        try (PDDocument document = PDDocument.load(pdf.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            return fromText(stripper.getText(document));
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler o PDF {}: {}", pdf.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    static InvoiceSummary fromText(String rawText) {
+        String text = rawText.toLowerCase(new Locale("pt", "BR")).replace('\u00a0', ' ');
+        Matcher m = REFERENCE.matcher(text);
+        String reference = m.find() ? String.format("%s-%02d", m.group(2), Integer.parseInt(m.group(1))) : null;
+        m = TARIFF_FLAG.matcher(text);
+        String flag = m.find() ? m.group(1).replaceAll("\\s+", " ") : null;
+        return new InvoiceSummary(reference, decimal(CONSUMPTION, text), decimal(INJECTED, text),
+            decimal(COMPENSATED, text), flag, decimal(AMOUNT_DUE, text));
+    }
+
+    private static BigDecimal decimal(Pattern pattern, String text) {
+        Matcher m = pattern.matcher(text);
+        return m.find() ? new BigDecimal(m.group(1).replace(".", "").replace(',', '.')) : null;
+    }
+
+    public String getReferenceMonth() {
+        return referenceMonth;
+    }
+
+    public BigDecimal getConsumptionKwh() {
+        return consumptionKwh;
+    }
+
+    public BigDecimal getInjectedKwh() {
+        return injectedKwh;
+    }
+
+    public BigDecimal getCompensatedKwh() {
+        return compensatedKwh;
+    }
+
+    public String getTariffFlag() {
+        return tariffFlag;
+    }
+
+    public BigDecimal getAmountDue() {
+        return amountDue;
+    }
+
+    /**
+     * Campos encontrados, para o resumo JSON da execução sem interface
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        putIfPresent(map, "referenceMonth", referenceMonth);
+        putIfPresent(map, "consumptionKwh", consumptionKwh);
+        putIfPresent(map, "injectedKwh", injectedKwh);
+        putIfPresent(map, "compensatedKwh", compensatedKwh);
+        putIfPresent(map, "tariffFlag", tariffFlag);
+        putIfPresent(map, "amountDue", amountDue);
+        return map;
+    }
+
+    private static void putIfPresent(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "referência " + (referenceMonth == null ? "?" : referenceMonth)
+            + ", consumo " + (consumptionKwh == null ? "?" : consumptionKwh.toPlainString()) + " kWh"
+            + ", total " + (amountDue == null ? "?" : "R$ " + amountDue.toPlainString());
+    }
+}
@@ -0,0 +1,176 @@
+package com.energia.service;
+
+import com.energia.util.ConfigManager;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Espera por sinais reais de prontidão da página (estado do documento,
+ * requisições de rede pendentes, mutações do DOM e estado de elementos) em
+ * vez de pausas fixas. A conclusão de downloads é acompanhada pelo
+ * {@link DownloadWatcher}.
+ * <p>
+ * Cada etapa tem seu próprio timeout, configurável por
+ * {@code timeout.<etapa>.seconds} no arquivo de configuração.
+ */
+public class PageReadiness {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * Instala contadores de fetch/XHR e um MutationObserver no documento atual
+     * (uma única vez por documento) e devolve um retrato do estado da página.
+     */
+    private static final String PROBE_SCRIPT =
+        "var w = window;" +
+        "if (!w.__energiaProbe) {" +
+        "  w.__energiaProbe = { pending: 0, lastMutation: performance.now() };" +
+        "  var p = w.__energiaProbe;" +
+        "  if (w.fetch) {" +
+        "    var f = w.fetch;" +
+        "    w.fetch = function() { p.pending++;" +
+        "      return f.apply(this, arguments).finally(function() { p.pending--; }); };" +
+        "  }" +
+        "  var send = XMLHttpRequest.prototype.send;" +
+        "  XMLHttpRequest.prototype.send = function() { p.pending++;" +
+        "    this.addEventListener('loadend', function() { p.pending--; });" +
+        "    return send.apply(this, arguments); };" +
+        "  new MutationObserver(function() { p.lastMutation = performance.now(); })" +
+        "    .observe(document, { childList: true, subtree: true, attributes: true });" +
+        "}" +
+        "return { ready: document.readyState," +
+        "  pending: w.__energiaProbe.pending," +
+        "  resources: performance.getEntriesByType('resource').length," +
+        "  quietMs: performance.now() - w.__energiaProbe.lastMutation };";
+
+    private final WebDriver driver;
+
+    public PageReadiness(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Timeout de uma etapa: {@code timeout.<etapa>.seconds}, senão o padrão informado
+     */
+    public static Duration timeout(String step, int defaultSeconds) {
+        return Duration.ofSeconds(ConfigManager.getIntProperty("timeout." + step + ".seconds", defaultSeconds));
+    }
+
+    public WebElement present(By locator, Duration timeout) {
+        return waitFor(timeout).until(ExpectedConditions.presenceOfElementLocated(locator));
+    }
+
+    public WebElement clickable(By locator, Duration timeout) {
+        return waitFor(timeout).until(ExpectedConditions.elementToBeClickable(locator));
+    }
+
+    public void invisible(WebElement element, Duration timeout) {
+        waitFor(timeout).until(ExpectedConditions.invisibilityOf(element));
+    }
+
+    /**
+     * Aguarda o desaparecimento de todos os elementos do seletor; retorna false se expirar
+     */
+    public boolean gone(By locator, Duration timeout) {
+        try {
+            waitFor(timeout).until(ExpectedConditions.invisibilityOfElementLocated(locator));
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Aguarda o documento carregar, a rede ficar ociosa e o DOM parar de mudar
+     * por {@code quiet}. Retorna false se a página não estabilizar no prazo,
+     * deixando a decisão de prosseguir para o chamador.
+     */
+    public boolean settle(Duration quiet, Duration timeout) {
+        long quietMs = quiet.toMillis();
+        long[] lastResources = {-1};
+        long[] stableSince = {0};
+        try {
+            waitFor(timeout).until(d -> {
+                Map<String, Object> probe = probe();
+                if (probe == null || !"complete".equals(probe.get("ready"))) {
+                    lastResources[0] = -1;
+                    return false;
+                }
+                long pending = ((Number) probe.get("pending")).longValue();
+                long resources = ((Number) probe.get("resources")).longValue();
+                double domQuietMs = ((Number) probe.get("quietMs")).doubleValue();
+                long now = System.currentTimeMillis();
+
+                if (pending > 0 || resources != lastResources[0]) {
+                    lastResources[0] = resources;
+                    stableSince[0] = now;
+                    return false;
+                }
+                return now - stableSince[0] >= quietMs && domQuietMs >= quietMs;
+            });
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Aguarda o envio de um formulário surtir efeito, com ou sem navegação: a
+     * URL muda, o campo do formulário deixa de estar visível ou aparece um
+     * elemento da página seguinte. Retorna false se nenhum dos sinais ocorrer
+     * no prazo.
+     */
+    public boolean submitted(String previousUrl, By formField, By nextPage, Duration timeout) {
+        try {
+            waitFor(timeout).until(d -> !previousUrl.equals(d.getCurrentUrl())
+                || d.findElements(formField).stream().noneMatch(WebElement::isDisplayed)
+                || !d.findElements(nextPage).isEmpty());
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Aguarda o clique num link de navegação surtir efeito, com ou sem mudança
+     * de URL: a URL muda, o link clicado sai do documento ou aparece um
+     * elemento do conteúdo de destino. Retorna false se nenhum dos sinais
+     * ocorrer no prazo.
+     */
+    public boolean navigated(String previousUrl, WebElement clicked, By target, Duration timeout) {
+        try {
+            waitFor(timeout).until(d -> !previousUrl.equals(d.getCurrentUrl())
+                || ExpectedConditions.stalenessOf(clicked).apply(d)
+                || !d.findElements(target).isEmpty());
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> probe() {
+        try {
+            return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(PROBE_SCRIPT);
+        } catch (JavascriptException e) {
+            // Documento em transição (navegação em andamento)
+            return null;
+        }
+    }
+
+    private WebDriverWait waitFor(Duration timeout) {
+        WebDriverWait wait = new WebDriverWait(driver, timeout, POLL_INTERVAL);
+        wait.ignoring(StaleElementReferenceException.class);
+        return wait;
+    }
+}
@@ -0,0 +1,15 @@
+package com.energia.service;
+
+/**
+ * Destino das mensagens de log e de progresso da automação. Implementado pela
+ * janela principal e pelo executor de linha de comando (sem interface gráfica).
+ */
+public interface ProgressListener {
+
+    void logMessage(String message);
+
+    /**
+     * @param progress percentual de 0 a 100, ou negativo quando indeterminado
+     */
+    void updateProgress(String message, int progress);
+}
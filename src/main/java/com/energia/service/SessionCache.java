@@ -0,0 +1,241 @@
+package com.energia.service;
+
+import com.energia.util.ConfigManager;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache persistente de sessões autenticadas no portal, por CPF/CNPJ.
+ * <p>
+ * Guarda cookies (de todos os domínios da sessão), o localStorage da origem e
+ * a URL da área de faturas. Dentro do TTL, a sessão é restaurada no navegador
+ * e o fluxo de login é pulado; se o portal redirecionar para o login, a
+ * entrada é invalidada e o login completo é refeito.
+ * <p>
+ * Os arquivos contêm credenciais de sessão e são gravados com permissão
+ * restrita ao usuário quando o sistema de arquivos suporta POSIX.
+ */
+public class SessionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionCache.class);
+
+    private static final String DEFAULT_DIR = System.getProperty("user.home") + File.separator + ".energia" + File.separator + "sessions";
+
+    private static final String READ_STORAGE_SCRIPT =
+        "var o = {}; for (var i = 0; i < localStorage.length; i++) {" +
+        "  var k = localStorage.key(i); o[k] = localStorage.getItem(k); } return o;";
+
+    private static final String WRITE_STORAGE_SCRIPT =
+        "var items = arguments[0]; for (var k in items) { localStorage.setItem(k, items[k]); }";
+
+    private final Json json = new Json();
+    private final Path directory;
+    private final Duration ttl;
+    private final boolean enabled;
+
+    public SessionCache() {
+        this(Paths.get(ConfigManager.getProperty("session.cache.dir", DEFAULT_DIR)),
+            Duration.ofMinutes(ConfigManager.getIntProperty("session.ttl.minutes", 20)),
+            ConfigManager.getBooleanProperty("session.cache.enabled", true));
+    }
+
+    public SessionCache(Path directory, Duration ttl, boolean enabled) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Restaura no navegador a sessão salva da conta e abre a área de faturas.
+     *
+     * @return true se havia sessão válida (dentro do TTL) e ela foi aplicada;
+     *         cabe ao chamador confirmar que o portal não voltou ao login
+     */
+    public boolean restore(WebDriver driver, String cpf) {
+        if (!enabled) {
+            return false;
+        }
+        Path file = fileFor(cpf);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            Map<String, Object> entry = json.toType(Files.readString(file, StandardCharsets.UTF_8), Json.MAP_TYPE);
+            long savedAt = ((Number) entry.get("savedAt")).longValue();
+            if (System.currentTimeMillis() - savedAt > ttl.toMillis()) {
+                invalidate(cpf);
+                return false;
+            }
+            String invoicesUrl = (String) entry.get("invoicesUrl");
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> cookies = (List<Map<String, Object>>) entry.get("cookies");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> storage = (Map<String, Object>) entry.get("localStorage");
+
+            applyCookies(driver, invoicesUrl, cookies);
+            if (storage != null && !storage.isEmpty()) {
+                // localStorage é por origem: precisa de um documento da origem para ser gravado
+                driver.get(origin(invoicesUrl));
+                ((JavascriptExecutor) driver).executeScript(WRITE_STORAGE_SCRIPT, storage);
+            }
+            driver.get(invoicesUrl);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Sessão em cache inválida para a conta; será descartada: {}", e.getMessage());
+            invalidate(cpf);
+            return false;
+        }
+    }
+
+    /**
+     * Salva a sessão atual do navegador, com a página atual como área de faturas
+     */
+    public void save(WebDriver driver, String cpf) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("savedAt", System.currentTimeMillis());
+            entry.put("invoicesUrl", driver.getCurrentUrl());
+            entry.put("cookies", readCookies(driver));
+            entry.put("localStorage", ((JavascriptExecutor) driver).executeScript(READ_STORAGE_SCRIPT));
+
+            Files.createDirectories(directory);
+            Path file = fileFor(cpf);
+            Path temp = Files.createTempFile(directory, ".session", ".tmp");
+            restrictPermissions(temp);
+            Files.writeString(temp, json.toJson(entry), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            logger.warn("Não foi possível salvar a sessão em cache: {}", e.getMessage());
+        }
+    }
+
+    public void invalidate(String cpf) {
+        try {
+            Files.deleteIfExists(fileFor(cpf));
+        } catch (IOException e) {
+            logger.warn("Não foi possível remover a sessão em cache: {}", e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> readCookies(WebDriver driver) {
+        if (driver instanceof ChromeDriver) {
+            // Inclui cookies de todos os domínios (SSO, subdomínios), não apenas do atual
+            Map<String, Object> result = ((ChromeDriver) driver).executeCdpCommand("Network.getAllCookies", Collections.emptyMap());
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> cookies = (List<Map<String, Object>>) result.get("cookies");
+            List<Map<String, Object>> stored = new ArrayList<>(cookies.size());
+            for (Map<String, Object> cookie : cookies) {
+                Map<String, Object> c = new LinkedHashMap<>();
+                for (String key : new String[] {"name", "value", "domain", "path", "expires", "httpOnly", "secure", "sameSite"}) {
+                    if (cookie.get(key) != null) {
+                        c.put(key, cookie.get(key));
+                    }
+                }
+                stored.add(c);
+            }
+            return stored;
+        }
+        List<Map<String, Object>> stored = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("name", cookie.getName());
+            c.put("value", cookie.getValue());
+            c.put("domain", cookie.getDomain());
+            c.put("path", cookie.getPath());
+            c.put("expires", cookie.getExpiry() == null ? -1 : cookie.getExpiry().getTime() / 1000.0);
+            c.put("httpOnly", cookie.isHttpOnly());
+            c.put("secure", cookie.isSecure());
+            stored.add(c);
+        }
+        return stored;
+    }
+
+    private void applyCookies(WebDriver driver, String invoicesUrl, List<Map<String, Object>> cookies) {
+        if (driver instanceof ChromeDriver) {
+            ChromeDriver chrome = (ChromeDriver) driver;
+            for (Map<String, Object> cookie : cookies) {
+                Map<String, Object> params = new HashMap<>(cookie);
+                Object expires = params.get("expires");
+                if (expires instanceof Number && ((Number) expires).doubleValue() < 0) {
+                    // Cookie de sessão: sem expiração explícita
+                    params.remove("expires");
+                }
+                chrome.executeCdpCommand("Network.setCookie", params);
+            }
+            return;
+        }
+        // Sem CDP, só é possível gravar cookies do domínio carregado
+        driver.get(origin(invoicesUrl));
+        for (Map<String, Object> cookie : cookies) {
+            Object expires = cookie.get("expires");
+            java.util.Date expiry = expires instanceof Number && ((Number) expires).doubleValue() > 0
+                ? new java.util.Date((long) (((Number) expires).doubleValue() * 1000)) : null;
+            try {
+                driver.manage().addCookie(new Cookie((String) cookie.get("name"), (String) cookie.get("value"),
+                    (String) cookie.get("domain"), (String) cookie.get("path"), expiry,
+                    Boolean.TRUE.equals(cookie.get("secure")), Boolean.TRUE.equals(cookie.get("httpOnly"))));
+            } catch (Exception e) {
+                logger.debug("Cookie {} ignorado: {}", cookie.get("name"), e.getMessage());
+            }
+        }
+    }
+
+    private static String origin(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority() + "/";
+    }
+
+    private Path fileFor(String cpf) {
+        // O CPF/CNPJ não aparece no nome do arquivo
+        String digits = cpf.replaceAll("[^0-9A-Za-z]", "");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(digits.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return directory.resolve(name + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void restrictPermissions(Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Sistema de arquivos sem POSIX (Windows): mantém as permissões padrão do perfil do usuário
+        }
+    }
+}
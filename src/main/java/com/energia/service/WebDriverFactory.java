@@ -0,0 +1,72 @@
+package com.energia.service;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cria instâncias de ChromeDriver com as opções usadas pela automação
+ */
+public class WebDriverFactory {
+
+    private static volatile boolean driverBinaryReady = false;
+
+    private final String downloadDir;
+    private final boolean headless;
+
+    public WebDriverFactory(String downloadDir, boolean headless) {
+        this.downloadDir = downloadDir;
+        this.headless = headless;
+    }
+
+    public WebDriver create() {
+        ensureDriverBinary();
+
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--window-size=1920,1080");
+        if (headless) {
+            options.addArguments("--headless=new");
+        }
+
+        // Desabilitar notificações
+        options.addArguments("--disable-notifications");
+
+        // Configurar diretório de download (preferências do perfil, válidas também em modo headless)
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("download.default_directory", downloadDir);
+        prefs.put("download.prompt_for_download", false);
+        prefs.put("download.directory_upgrade", true);
+        prefs.put("safebrowsing.enabled", true);
+        // Baixar PDFs em vez de abri-los no visualizador embutido
+        prefs.put("plugins.always_open_pdf_externally", true);
+        options.setExperimentalOption("prefs", prefs);
+
+        return new ChromeDriver(options);
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * O WebDriverManager resolve o binário do chromedriver uma única vez por processo
+     */
+    private static void ensureDriverBinary() {
+        if (driverBinaryReady) {
+            return;
+        }
+        synchronized (WebDriverFactory.class) {
+            if (!driverBinaryReady) {
+                WebDriverManager.chromedriver().setup();
+                driverBinaryReady = true;
+            }
+        }
+    }
+}
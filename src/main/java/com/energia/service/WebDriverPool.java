@@ -0,0 +1,119 @@
+package com.energia.service;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pool limitado e reutilizável de sessões do navegador.
+ * As sessões são criadas sob demanda até o limite de concorrência e
+ * reaproveitadas entre contas, evitando o custo de subir o Chrome a cada conta.
+ */
+public class WebDriverPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final WebDriverFactory factory;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Set<WebDriver> all = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    public WebDriverPool(WebDriverFactory factory, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Tamanho do pool deve ser maior que zero");
+        }
+        this.factory = factory;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Obtém uma sessão livre, bloqueando enquanto o limite estiver ocupado
+     */
+    public WebDriver acquire() throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Pool de WebDriver encerrado");
+        }
+        permits.acquire();
+        WebDriver driver = idle.pollFirst();
+        if (driver != null) {
+            return driver;
+        }
+        try {
+            driver = factory.create();
+            all.add(driver);
+            logger.debug("Nova sessão do navegador criada ({} ativas)", all.size());
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve uma sessão saudável ao pool, limpando o estado da conta anterior
+     */
+    public void release(WebDriver driver) {
+        try {
+            if (closed) {
+                discard(driver);
+                return;
+            }
+            resetSession(driver);
+            idle.offerFirst(driver);
+        } catch (Exception e) {
+            logger.warn("Sessão do navegador descartada ao ser devolvida: {}", e.getMessage());
+            discard(driver);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Descarta uma sessão em estado inválido (travada, encerrada ou interrompida)
+     */
+    public void invalidate(WebDriver driver) {
+        try {
+            discard(driver);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (WebDriver driver : Collections.unmodifiableSet(all)) {
+            discard(driver);
+        }
+        idle.clear();
+    }
+
+    private void resetSession(WebDriver driver) {
+        // Cookies de todos os domínios e o armazenamento das origens da conta anterior
+        BrowserState.clear(driver);
+        driver.get("about:blank");
+    }
+
+    private void discard(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        all.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            logger.debug("Erro ao encerrar sessão do navegador: {}", e.getMessage());
+        }
+    }
+}
@@ -59,6 +59,33 @@ public class ConfigManager {
         return properties.getProperty(key, defaultValue);
     }
     
+    /**
+     * Obtém uma propriedade inteira, usando o valor padrão se ausente ou inválida
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Obtém uma propriedade booleana, usando o valor padrão se ausente
+     */
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
     /**
      * Define uma propriedade de configuração
      */